@@ -0,0 +1,114 @@
+package com.tomogle.springrestfultodolist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.repository.InMemoryTodoRepository;
+import com.tomogle.springrestfultodolist.service.TodoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Measures a full Spring MVC dispatch through TodoController, including validation and JSON conversion with the
+ * message converters the application configures, with the data store held in memory.
+ * <p>
+ * The data store, and everything else holding Todos, is made afresh for each iteration, so the Todos created by
+ * {@link #createTodo()} do not pile up across iterations and slow down the later ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoControllerBenchmark {
+
+  private static final String TODO_BY_ID_PATH = TodoController.TODO_RESOURCE_BASE_PATH + "/{id}";
+
+  private AnnotationConfigApplicationContext context;
+  private MockMvc mvc;
+  private String existingId;
+  private byte[] todoJson;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws Exception {
+    InMemoryTodoRepository repository = new InMemoryTodoRepository((Path) null, 0);
+    for (int i = 0; i < 100; i++) {
+      repository.save(new Todo(null, "Title " + i, "Content " + i));
+    }
+    existingId = repository.findAll().get(0).getId();
+
+    context = new AnnotationConfigApplicationContext();
+    context.getBeanFactory().registerSingleton("todoRepository", repository);
+    context.getBeanFactory().registerSingleton("jacksonObjectMapperBuilder", Jackson2ObjectMapperBuilder.json());
+    context.scan("com.tomogle.springrestfultodolist.service", "com.tomogle.springrestfultodolist.cache",
+            "com.tomogle.springrestfultodolist.search", "com.tomogle.springrestfultodolist.changes",
+            "com.tomogle.springrestfultodolist.converter");
+    context.register(PropertySourcesPlaceholderConfigurer.class, LocalValidatorFactoryBean.class);
+    context.refresh();
+
+    ObjectMapper objectMapper = context.getBean(Jackson2ObjectMapperBuilder.class).build();
+    TodoController controller = new TodoController(context.getBean(TodoService.class), objectMapper);
+    mvc = MockMvcBuilders.standaloneSetup(controller)
+            .setMessageConverters(messageConverters().toArray(new HttpMessageConverter<?>[0]))
+            .build();
+    todoJson = objectMapper.writeValueAsBytes(new TodoDTO(null, "A Todo title", "Some content"));
+  }
+
+  /**
+   * @return the default message converters, as extended by the application's WireFormatConfiguration
+   */
+  private List<HttpMessageConverter<?>> messageConverters() {
+    List<HttpMessageConverter<?>> converters = new ArrayList<>(new HttpMessageConverters().getConverters());
+    context.getBeansOfType(WebMvcConfigurer.class).values()
+            .forEach(configurer -> configurer.extendMessageConverters(converters));
+    return converters;
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse getTodoById() throws Exception {
+    return mvc.perform(get(TODO_BY_ID_PATH, existingId).accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse getTodoPage() throws Exception {
+    return mvc.perform(get(TodoController.TODO_RESOURCE_BASE_PATH).param("limit", "20")
+            .accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse createTodo() throws Exception {
+    return mvc.perform(post(TodoController.TODO_RESOURCE_BASE_PATH).content(todoJson)
+            .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse updateTodo() throws Exception {
+    return mvc.perform(put(TODO_BY_ID_PATH, existingId).content(todoJson)
+            .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+  }
+}
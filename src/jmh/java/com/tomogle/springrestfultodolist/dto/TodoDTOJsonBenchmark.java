@@ -0,0 +1,51 @@
+package com.tomogle.springrestfultodolist.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialization and deserialization of a TodoDTO at several content sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoDTOJsonBenchmark {
+
+  @Param({"0", "1000", "10000"})
+  private int contentLength;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private TodoDTO todo;
+  private byte[] todoJson;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    writer = objectMapper.writerFor(TodoDTO.class);
+    reader = objectMapper.readerFor(TodoDTO.class);
+    char[] content = new char[contentLength];
+    Arrays.fill(content, 'a');
+    todo = new TodoDTO("5716b8a2e4b0a1c2d3e4f5a6", "A Todo title", new String(content), 1L);
+    todoJson = writer.writeValueAsBytes(todo);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return writer.writeValueAsBytes(todo);
+  }
+
+  @Benchmark
+  public TodoDTO deserialize() throws IOException {
+    return reader.readValue(todoJson);
+  }
+}
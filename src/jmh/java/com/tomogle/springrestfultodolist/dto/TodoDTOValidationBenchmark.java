@@ -0,0 +1,46 @@
+package com.tomogle.springrestfultodolist.dto;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Bean Validation of a valid TodoDTO and of one that breaks its constraints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoDTOValidationBenchmark {
+
+  private Validator validator;
+  private TodoDTO validTodo;
+  private TodoDTO invalidTodo;
+
+  @Setup
+  public void setUp() {
+    validator = Validation.buildDefaultValidatorFactory().getValidator();
+    char[] tooLongContent = new char[Todo.MAX_LENGTH_CONTENT + 1];
+    Arrays.fill(tooLongContent, 'a');
+    validTodo = new TodoDTO(null, "A Todo title", "Some content");
+    invalidTodo = new TodoDTO(null, "", new String(tooLongContent));
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<TodoDTO>> validateValid() {
+    return validator.validate(validTodo);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<TodoDTO>> validateInvalid() {
+    return validator.validate(invalidTodo);
+  }
+}
@@ -0,0 +1,67 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.cache.TodoCountCache;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.repository.InMemoryTodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.Validation;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting between Todos and TodoDTOs in DataStoreTodoService, with the data store held in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataStoreTodoServiceBenchmark {
+
+  @Param({"10", "1000"})
+  private int todoCount;
+
+  private DataStoreTodoService service;
+  private TodoDTO todoToCreate;
+  private String cachedId;
+
+  @Setup
+  public void setUp() throws Exception {
+    InMemoryTodoRepository repository = new InMemoryTodoRepository((Path) null, 0);
+    for (int i = 0; i < todoCount; i++) {
+      repository.save(new Todo(null, "Title " + i, "Content " + i));
+    }
+    TodoSearchIndex searchIndex = new TodoSearchIndex();
+    service = new DataStoreTodoService(repository, new TodoCache(todoCount, 0), new TodoCountCache(1000),
+            searchIndex, new TodoSearchIndexBuilder(() -> repository, searchIndex),
+            Validation.buildDefaultValidatorFactory().getValidator(), new TodoChangeFeed(1000),
+            new TodoIdempotencyStore(1000, 60), Optional.empty());
+    todoToCreate = new TodoDTO(null, "A new title", "Some new content");
+    cachedId = repository.findAll().get(0).getId();
+    service.findById(cachedId);
+  }
+
+  @Benchmark
+  public List<TodoDTO> findAll() {
+    return service.findAll();
+  }
+
+  @Benchmark
+  public TodoDTO findCachedById() throws TodoNotFoundException {
+    return service.findById(cachedId);
+  }
+
+  @Benchmark
+  public TodoDTO update() throws Exception {
+    return service.update(cachedId, todoToCreate);
+  }
+}
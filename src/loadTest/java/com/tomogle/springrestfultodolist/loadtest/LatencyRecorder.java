@@ -0,0 +1,59 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records the latency of every request of one kind, keeping each one rather than a sampled reservoir so the high
+ * percentiles are exact.
+ */
+class LatencyRecorder {
+
+  private long[] latenciesNanos = new long[1024];
+  private int count;
+  private long errors;
+
+  /**
+   * @param latencyNanos the time from when the request was due to be sent until its response was read
+   * @param succeeded whether the response was a success
+   */
+  synchronized void record(long latencyNanos, boolean succeeded) {
+    if (count == latenciesNanos.length) {
+      latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+    }
+    latenciesNanos[count++] = latencyNanos;
+    if (!succeeded) {
+      errors++;
+    }
+  }
+
+  synchronized void recordAll(LatencyRecorder other) {
+    synchronized (other) {
+      for (int i = 0; i < other.count; i++) {
+        record(other.latenciesNanos[i], true);
+      }
+      errors += other.errors;
+    }
+  }
+
+  synchronized int getCount() {
+    return count;
+  }
+
+  synchronized long getErrors() {
+    return errors;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the latency that the given percentage of requests completed within, or 0 if none were recorded
+   */
+  synchronized long percentileNanos(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long[] sorted = Arrays.copyOf(latenciesNanos, count);
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return sorted[Math.max(0, Math.min(count, rank) - 1)];
+  }
+}
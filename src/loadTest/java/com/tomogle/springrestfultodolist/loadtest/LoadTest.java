@@ -0,0 +1,167 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tomogle.springrestfultodolist.Application;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.service.TodoService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the Application on a random local port, with Todos held in memory in place of MongoDB, and drives the Todo
+ * API with an open-model load of mixed operations. Throughput and p50, p99 and p99.9 latency for each operation are
+ * printed and written to {@code loadtest.txt} and {@code loadtest.json} in the report directory.
+ * <p>
+ * Options are given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code rate} - requests sent each second, on average (default 500)</li>
+ *   <li>{@code duration} - seconds to measure for (default 30)</li>
+ *   <li>{@code warmup} - seconds to send load for before measuring, so the JIT has compiled the hot paths (default
+ *   10)</li>
+ *   <li>{@code mix} - relative weight of each operation (default get:60,list:5,post:15,put:15,delete:5)</li>
+ *   <li>{@code workers} - requests that may be in flight at once (default 64)</li>
+ *   <li>{@code todos} - Todos created before the load starts (default 1000)</li>
+ *   <li>{@code seed} - seed for the arrival times and choice of operations (default 1)</li>
+ *   <li>{@code report} - directory to write the reports to (default build/reports/loadtest)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+  private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+  static {
+    DEFAULT_OPTIONS.put("rate", "500");
+    DEFAULT_OPTIONS.put("duration", "30");
+    DEFAULT_OPTIONS.put("warmup", "10");
+    DEFAULT_OPTIONS.put("mix", "get:60,list:5,post:15,put:15,delete:5");
+    DEFAULT_OPTIONS.put("workers", "64");
+    DEFAULT_OPTIONS.put("todos", "1000");
+    DEFAULT_OPTIONS.put("seed", "1");
+    DEFAULT_OPTIONS.put("report", "build/reports/loadtest");
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseOptions(args);
+    double rate = Double.parseDouble(options.get("rate"));
+    long duration = Long.parseLong(options.get("duration"));
+    long warmup = Long.parseLong(options.get("warmup"));
+    Map<TodoOperation, Integer> mix = parseMix(options.get("mix"));
+    int workers = Integer.parseInt(options.get("workers"));
+    long seed = Long.parseLong(options.get("seed"));
+
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+            .profiles("inmemory")
+            .properties("server.port=0", "todo.inmemory.snapshotFile=")
+            .run();
+    try {
+      int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+      TodoIdPool ids = new TodoIdPool();
+      TodoService todoService = context.getBean(TodoService.class);
+      for (int i = 0; i < Integer.parseInt(options.get("todos")); i++) {
+        ids.add(todoService.create(new TodoDTO(null, "Title " + i, "Content " + i)).getId());
+      }
+      ObjectMapper objectMapper = new ObjectMapper();
+      TodoClient client = new TodoClient("http://localhost:" + port + "/api/todo", objectMapper);
+      OpenLoadGenerator generator = new OpenLoadGenerator(client, ids, mix, rate, workers);
+
+      if (warmup > 0) {
+        System.out.printf("Warming up for %ds at %.0f requests/s%n", warmup, rate);
+        generator.run(warmup, seed);
+      }
+      System.out.printf("Measuring for %ds at %.0f requests/s%n", duration, rate);
+      long start = System.nanoTime();
+      Map<TodoOperation, LatencyRecorder> recorders = generator.run(duration, seed + 1);
+      double elapsedSeconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+      writeReports(Paths.get(options.get("report")), options, recorders, elapsedSeconds, objectMapper);
+    } finally {
+      context.close();
+    }
+  }
+
+  private static void writeReports(Path reportDirectory, Map<String, String> options,
+                                   Map<TodoOperation, LatencyRecorder> recorders, double elapsedSeconds,
+                                   ObjectMapper objectMapper) throws IOException {
+    LatencyRecorder all = new LatencyRecorder();
+    Map<String, LatencyRecorder> rows = new LinkedHashMap<>();
+    recorders.forEach((operation, recorder) -> {
+      rows.put(operation.name(), recorder);
+      all.recordAll(recorder);
+    });
+    rows.put("ALL", all);
+
+    StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-8s %9s %7s %10s %9s %9s %9s %9s%n",
+            "op", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+    Map<String, Object> operations = new LinkedHashMap<>();
+    rows.forEach((name, recorder) -> {
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("requests", recorder.getCount());
+      row.put("errors", recorder.getErrors());
+      row.put("throughput", recorder.getCount() / elapsedSeconds);
+      row.put("p50Millis", millis(recorder.percentileNanos(50)));
+      row.put("p99Millis", millis(recorder.percentileNanos(99)));
+      row.put("p999Millis", millis(recorder.percentileNanos(99.9)));
+      row.put("maxMillis", millis(recorder.percentileNanos(100)));
+      operations.put(name, row);
+      text.append(String.format(Locale.ROOT, "%-8s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name,
+              row.get("requests"), row.get("errors"), row.get("throughput"), row.get("p50Millis"),
+              row.get("p99Millis"), row.get("p999Millis"), row.get("maxMillis")));
+    });
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("options", new LinkedHashMap<>(options));
+    report.put("elapsedSeconds", elapsedSeconds);
+    report.put("operations", operations);
+
+    System.out.print(text);
+    Files.createDirectories(reportDirectory);
+    Files.write(reportDirectory.resolve("loadtest.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+    objectMapper.enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(reportDirectory.resolve("loadtest.json").toFile(), report);
+    System.out.println("Reports written to " + reportDirectory.toAbsolutePath());
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+      if (name == null || !DEFAULT_OPTIONS.containsKey(name)) {
+        throw new IllegalArgumentException("Unknown option " + arg + ", expected one of --" +
+                String.join("=, --", DEFAULT_OPTIONS.keySet()) + "=");
+      }
+      options.put(name, arg.substring(equals + 1));
+    }
+    return options;
+  }
+
+  static Map<TodoOperation, Integer> parseMix(String mix) {
+    Map<TodoOperation, Integer> weights = new EnumMap<>(TodoOperation.class);
+    for (String entry : mix.split(",")) {
+      String[] operationAndWeight = entry.trim().split(":");
+      int weight = Integer.parseInt(operationAndWeight[1].trim());
+      if (weight > 0) {
+        weights.put(TodoOperation.valueOf(operationAndWeight[0].trim().toUpperCase(Locale.ROOT)), weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("The mix " + mix + " does not give any operation a weight");
+    }
+    return weights;
+  }
+}
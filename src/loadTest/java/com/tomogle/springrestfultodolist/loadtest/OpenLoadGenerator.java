@@ -0,0 +1,109 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a target rate regardless of how quickly they are answered, as independent users would, rather than
+ * waiting for each response before sending the next request. Arrivals are spaced as a Poisson process and each
+ * request's latency is measured from when it was due to be sent, so time spent queued behind a slow server counts
+ * against it instead of being hidden by the generator slowing down.
+ */
+class OpenLoadGenerator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OpenLoadGenerator.class);
+  private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+  private final TodoClient client;
+  private final TodoIdPool ids;
+  private final TodoOperation[] operations;
+  private final int[] cumulativeWeights;
+  private final double ratePerSecond;
+  private final int workers;
+
+  /**
+   * @param mix the relative weight of each operation in the requests sent
+   * @param ratePerSecond the mean number of requests to send each second
+   * @param workers the number of requests that may be in flight at once, beyond which requests queue
+   */
+  OpenLoadGenerator(TodoClient client, TodoIdPool ids, Map<TodoOperation, Integer> mix, double ratePerSecond,
+                    int workers) {
+    this.client = client;
+    this.ids = ids;
+    this.operations = mix.keySet().toArray(new TodoOperation[mix.size()]);
+    this.cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += mix.get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+    this.ratePerSecond = ratePerSecond;
+    this.workers = workers;
+  }
+
+  /**
+   * Sends requests for the given duration, then waits for those still in flight.
+   *
+   * @return the latencies recorded for each operation
+   */
+  Map<TodoOperation, LatencyRecorder> run(long durationSeconds, long seed) throws InterruptedException {
+    Map<TodoOperation, LatencyRecorder> recorders = new EnumMap<>(TodoOperation.class);
+    for (TodoOperation operation : operations) {
+      recorders.put(operation, new LatencyRecorder());
+    }
+    ExecutorService executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>());
+    Random random = new Random(seed);
+    double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+    long due = start;
+    while (due < end) {
+      long wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      TodoOperation operation = pick(random);
+      long dueAt = due;
+      executor.execute(() -> send(operation, dueAt, recorders.get(operation)));
+      due += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+    }
+    executor.shutdown();
+    if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      LOG.warn("Requests were still in flight {}s after the load stopped, so were abandoned", DRAIN_TIMEOUT_SECONDS);
+      executor.shutdownNow();
+    }
+    return recorders;
+  }
+
+  private void send(TodoOperation operation, long dueAt, LatencyRecorder recorder) {
+    boolean succeeded;
+    try {
+      int status = operation.execute(client, ids);
+      succeeded = status < 400;
+    } catch (IOException e) {
+      succeeded = false;
+    }
+    recorder.record(System.nanoTime() - dueAt, succeeded);
+  }
+
+  private TodoOperation pick(Random random) {
+    int choice = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (choice < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    throw new IllegalStateException("Weights do not cover choice " + choice);
+  }
+}
@@ -0,0 +1,108 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Minimal HTTP client for the Todo API. Every response body is read to the end, so the JDK can keep the connection
+ * alive and reuse it for the next request, as a real client would.
+ */
+class TodoClient {
+
+  private static final String CONTENT = "Some content for a Todo that is a typical length for one written by hand, "
+          + "with enough words in it to be worth searching and a little more besides.";
+
+  private final String baseUrl;
+  private final ObjectMapper objectMapper;
+
+  TodoClient(String baseUrl, ObjectMapper objectMapper) {
+    this.baseUrl = baseUrl;
+    this.objectMapper = objectMapper;
+  }
+
+  int get(String id) throws IOException {
+    return send("GET", "/" + id, null).getStatus();
+  }
+
+  int list(int limit) throws IOException {
+    return send("GET", "?limit=" + limit, null).getStatus();
+  }
+
+  Response create() throws IOException {
+    return send("POST", "", newTodo(null));
+  }
+
+  int update(String id) throws IOException {
+    return send("PUT", "/" + id, newTodo(id)).getStatus();
+  }
+
+  int delete(String id) throws IOException {
+    return send("DELETE", "/" + id, null).getStatus();
+  }
+
+  private TodoDTO newTodo(String id) {
+    return new TodoDTO(id, "Title " + ThreadLocalRandom.current().nextInt(1000000), CONTENT);
+  }
+
+  private Response send(String method, String path, TodoDTO body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", "application/json");
+    if (body != null) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream output = connection.getOutputStream()) {
+        objectMapper.writeValue(output, body);
+      }
+    }
+    int status = connection.getResponseCode();
+    byte[] responseBody = readFully(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+    String id = null;
+    if ("POST".equals(method) && status < 400) {
+      id = objectMapper.readValue(responseBody, TodoDTO.class).getId();
+    }
+    return new Response(status, id);
+  }
+
+  private static byte[] readFully(InputStream input) throws IOException {
+    if (input == null) {
+      return new byte[0];
+    }
+    try (InputStream toRead = input) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = toRead.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return output.toByteArray();
+    }
+  }
+
+  static class Response {
+    private final int status;
+    private final String id;
+
+    Response(int status, String id) {
+      this.status = status;
+      this.id = id;
+    }
+
+    int getStatus() {
+      return status;
+    }
+
+    Optional<String> getId() {
+      return Optional.ofNullable(id);
+    }
+  }
+}
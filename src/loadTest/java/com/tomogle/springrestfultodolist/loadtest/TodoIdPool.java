@@ -0,0 +1,42 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The IDs of the Todos the load test knows to exist, from which operations pick a Todo at random. An ID taken for a
+ * delete is removed straight away so no other operation picks it.
+ */
+class TodoIdPool {
+
+  private final List<String> ids = new ArrayList<>();
+
+  synchronized void add(String id) {
+    ids.add(id);
+  }
+
+  synchronized Optional<String> pick() {
+    if (ids.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+  }
+
+  /**
+   * Removes and returns a random ID, swapping the last ID into its place so removal does not shift the others.
+   */
+  synchronized Optional<String> take() {
+    if (ids.isEmpty()) {
+      return Optional.empty();
+    }
+    int index = ThreadLocalRandom.current().nextInt(ids.size());
+    String last = ids.remove(ids.size() - 1);
+    return Optional.of(index == ids.size() ? last : ids.set(index, last));
+  }
+
+  synchronized int size() {
+    return ids.size();
+  }
+}
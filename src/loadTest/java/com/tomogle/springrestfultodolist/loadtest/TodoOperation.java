@@ -0,0 +1,56 @@
+package com.tomogle.springrestfultodolist.loadtest;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * The operations on the Todo API that the load test drives, each as the HTTP request TodoController serves it.
+ */
+enum TodoOperation {
+
+  GET {
+    @Override
+    int execute(TodoClient client, TodoIdPool ids) throws IOException {
+      Optional<String> id = ids.pick();
+      return id.isPresent() ? client.get(id.get()) : client.list(1);
+    }
+  },
+  LIST {
+    @Override
+    int execute(TodoClient client, TodoIdPool ids) throws IOException {
+      return client.list(LIST_PAGE_SIZE);
+    }
+  },
+  POST {
+    @Override
+    int execute(TodoClient client, TodoIdPool ids) throws IOException {
+      TodoClient.Response response = client.create();
+      response.getId().ifPresent(ids::add);
+      return response.getStatus();
+    }
+  },
+  PUT {
+    @Override
+    int execute(TodoClient client, TodoIdPool ids) throws IOException {
+      Optional<String> id = ids.pick();
+      return id.isPresent() ? client.update(id.get()) : client.create().getStatus();
+    }
+  },
+  DELETE {
+    @Override
+    int execute(TodoClient client, TodoIdPool ids) throws IOException {
+      Optional<String> id = ids.take();
+      return id.isPresent() ? client.delete(id.get()) : client.list(1);
+    }
+  };
+
+  static final int LIST_PAGE_SIZE = 50;
+
+  /**
+   * Sends the request for this operation, picking the Todo to act on from the pool of IDs known to exist. Should the
+   * pool be empty an operation on a single Todo sends the nearest request that does not need one instead.
+   *
+   * @return the HTTP status of the response
+   */
+  abstract int execute(TodoClient client, TodoIdPool ids) throws IOException;
+}
@@ -0,0 +1,192 @@
+package com.tomogle.springrestfultodolist.cache;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Size bounded, in-process cache of Todos by ID. The least recently used Todo is evicted once the cache is full and,
+ * when a time to live is configured, Todos are expired that long after they were cached.
+ * <p>
+ * With {@code todo.cache.compressContentAboveChars} above 0, content longer than that many characters, and content
+ * the data store already held compressed, is cached compressed, so each such Todo holds a fraction of the heap it
+ * would as text, but every hit inflates it again, as every Todo read from the cache is read for its content. With it 0
+ * all content is cached as text, inflating it first if the data store held it compressed, so hits cost no more than
+ * the text they return. Content the data store has yet to load is loaded before it is cached either way, as the data
+ * store drops it once the Todo is updated.
+ */
+@Component
+public class TodoCache {
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final int compressContentAboveChars;
+  private final LongSupplier nanoClock;
+  private final Map<String, Entry> entries;
+  // Guarded by entries
+  private long generation;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+
+  /**
+   * @param maxSize the maximum number of Todos to hold
+   * @param ttlSeconds how long a Todo may be held for, or 0 to hold Todos until they are evicted
+   */
+  public TodoCache(int maxSize, long ttlSeconds) {
+    this(maxSize, ttlSeconds, 0);
+  }
+
+  /**
+   * @param compressContentAboveChars the length above which content is cached compressed, or 0 to cache all content
+   *     as text
+   */
+  @Autowired
+  public TodoCache(@Value("${todo.cache.maxSize:10000}") int maxSize,
+                   @Value("${todo.cache.ttlSeconds:300}") long ttlSeconds,
+                   @Value("${todo.cache.compressContentAboveChars:0}") int compressContentAboveChars) {
+    this(maxSize, ttlSeconds, compressContentAboveChars, System::nanoTime);
+  }
+
+  TodoCache(int maxSize, long ttlSeconds, LongSupplier nanoClock) {
+    this(maxSize, ttlSeconds, 0, nanoClock);
+  }
+
+  TodoCache(int maxSize, long ttlSeconds, int compressContentAboveChars, LongSupplier nanoClock) {
+    this.maxSize = maxSize;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.compressContentAboveChars = compressContentAboveChars;
+    this.nanoClock = nanoClock;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        boolean full = size() > TodoCache.this.maxSize;
+        if (full) {
+          evictions.incrementAndGet();
+        }
+        return full;
+      }
+    };
+  }
+
+  public Optional<Todo> get(String id) {
+    Todo todo = null;
+    synchronized (entries) {
+      Entry entry = entries.get(id);
+      if (entry != null && isExpired(entry)) {
+        entries.remove(id);
+        expirations.incrementAndGet();
+      } else if (entry != null) {
+        todo = entry.todo;
+      }
+    }
+    (todo == null ? misses : hits).incrementAndGet();
+    return Optional.ofNullable(todo);
+  }
+
+  /**
+   * Caches the Todo, replacing any Todo already cached with the same ID unless the cached Todo is at a later version.
+   * Concurrent writes of the same Todo can cache their results in a different order to the one they were saved in,
+   * and the last to be cached must not replace a later version.
+   */
+  public void put(Todo todo) {
+    Entry entry = new Entry(cacheable(todo), nanoClock.getAsLong());
+    synchronized (entries) {
+      Entry cached = entries.get(todo.getId());
+      if (cached == null || !isLaterVersion(cached.todo, todo)) {
+        entries.put(todo.getId(), entry);
+      }
+    }
+  }
+
+  /**
+   * Called before reading a Todo from the data store to cache it.
+   *
+   * @return the token to cache the Todo read with
+   */
+  public long startRead() {
+    synchronized (entries) {
+      return generation;
+    }
+  }
+
+  /**
+   * Caches the Todo read from the data store only if no Todo is cached with the same ID, so it cannot replace one that
+   * was cached by a more recent write, and no Todo was invalidated since the read started, as it could have been read
+   * before a delete or update and would otherwise be cached after it.
+   *
+   * @param readToken the token returned by {@link #startRead()} before the Todo was read
+   */
+  public void putIfAbsent(Todo todo, long readToken) {
+    Entry entry = new Entry(cacheable(todo), nanoClock.getAsLong());
+    synchronized (entries) {
+      if (readToken == generation) {
+        entries.putIfAbsent(todo.getId(), entry);
+      }
+    }
+  }
+
+  public void invalidate(String id) {
+    synchronized (entries) {
+      generation++;
+      entries.remove(id);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getExpirations() {
+    return expirations.get();
+  }
+
+  private Todo cacheable(Todo todo) {
+    if (compressContentAboveChars <= 0) {
+      return todo.withContentInflated();
+    }
+    return todo.withContentLoaded().withContentCompressedAbove(compressContentAboveChars);
+  }
+
+  private static boolean isLaterVersion(Todo todo, Todo than) {
+    return todo.getVersion() != null && than.getVersion() != null && todo.getVersion() > than.getVersion();
+  }
+
+  private boolean isExpired(Entry entry) {
+    return ttlNanos > 0 && nanoClock.getAsLong() - entry.cachedAtNanos >= ttlNanos;
+  }
+
+  private static class Entry {
+    private final Todo todo;
+    private final long cachedAtNanos;
+
+    private Entry(Todo todo, long cachedAtNanos) {
+      this.todo = todo;
+      this.cachedAtNanos = cachedAtNanos;
+    }
+  }
+}
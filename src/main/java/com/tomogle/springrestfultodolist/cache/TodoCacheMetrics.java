@@ -0,0 +1,35 @@
+package com.tomogle.springrestfultodolist.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Exposes the TodoCache statistics through the actuator metrics endpoint.
+ */
+@Component
+class TodoCacheMetrics implements PublicMetrics {
+
+  private static final String PREFIX = "cache.todo.";
+
+  private final TodoCache cache;
+
+  @Autowired
+  public TodoCacheMetrics(TodoCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+            new Metric<>(PREFIX + "size", cache.size()),
+            new Metric<>(PREFIX + "hits", cache.getHits()),
+            new Metric<>(PREFIX + "misses", cache.getMisses()),
+            new Metric<>(PREFIX + "evictions", cache.getEvictions()),
+            new Metric<>(PREFIX + "expirations", cache.getExpirations()));
+  }
+}
@@ -0,0 +1,76 @@
+package com.tomogle.springrestfultodolist.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process cache of the number of Todos, so repeatedly asking for the count does not ask the data store each time.
+ * The count is cached for at most a configured age, and is invalidated whenever Todos are added or removed.
+ * <p>
+ * As the count is read from the data store concurrently with writes, a read is only cached if no invalidation happened
+ * while it was in progress, as otherwise it could have been read before a write and cached after it.
+ */
+@Component
+public class TodoCountCache {
+
+  private final long maxAgeNanos;
+  private final LongSupplier nanoClock;
+
+  private long generation;
+  private long count = -1;
+  private long cachedAtNanos;
+
+  /**
+   * @param maxAgeMillis how long a count may be cached for, or 0 to always read it from the data store
+   */
+  @Autowired
+  public TodoCountCache(@Value("${todo.cache.countMaxAgeMillis:1000}") long maxAgeMillis) {
+    this(maxAgeMillis, System::nanoTime);
+  }
+
+  TodoCountCache(long maxAgeMillis, LongSupplier nanoClock) {
+    this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @return the cached count, or empty if there is none or it is too old
+   */
+  public synchronized OptionalLong get() {
+    if (count < 0 || nanoClock.getAsLong() - cachedAtNanos >= maxAgeNanos) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(count);
+  }
+
+  /**
+   * Called before reading the count from the data store.
+   *
+   * @return the token to cache the count read with
+   */
+  public synchronized long startRead() {
+    return generation;
+  }
+
+  /**
+   * Caches the count read from the data store, unless the cache was invalidated since the read started.
+   *
+   * @param readToken the token returned by {@link #startRead()} before the count was read
+   */
+  public synchronized void put(long count, long readToken) {
+    if (readToken == generation && maxAgeNanos > 0) {
+      this.count = count;
+      this.cachedAtNanos = nanoClock.getAsLong();
+    }
+  }
+
+  public synchronized void invalidate() {
+    generation++;
+    count = -1;
+  }
+}
@@ -0,0 +1,39 @@
+package com.tomogle.springrestfultodolist.changes;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+
+/**
+ * A Todo that was created, updated or deleted, as held in the TodoChangeFeed.
+ */
+public class TodoChange {
+
+  public enum Type {
+    CREATED, UPDATED, DELETED
+  }
+
+  private final String id;
+  private final Type type;
+  private final TodoDTO todo;
+
+  /**
+   * @param id the ID of the change, unique across restarts, for clients to resume after
+   * @param todo the Todo as it was after the change, or as it was when deleted
+   */
+  public TodoChange(String id, Type type, TodoDTO todo) {
+    this.id = id;
+    this.type = type;
+    this.todo = todo;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public TodoDTO getTodo() {
+    return todo;
+  }
+}
@@ -0,0 +1,270 @@
+package com.tomogle.springrestfultodolist.changes;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feed of the changes made to Todos, which subscribers are sent as they happen. The most recent changes are held in a
+ * ring of fixed capacity, so a subscriber that reconnects with the ID of the last change it saw is first sent the
+ * changes it missed, as long as they are still held.
+ * <p>
+ * Changes are sent to subscribers on a bounded pool of {@code todo.changes.senderThreads} threads of the feed's own, in
+ * the order they were published. Each subscriber is sent its changes by one thread at a time, separately from every
+ * other subscriber, so a subscriber whose network has stalled holds up neither the threads publishing changes nor the
+ * subscribers sent changes by the other threads. The changes a subscriber has yet to be sent are bounded by the ring:
+ * once it falls further behind than that, it is told it missed changes instead.
+ * <p>
+ * A subscriber still being sent a change {@code todo.changes.stallTimeoutMillis} after the send started is dropped
+ * when the next change is published, so it is sent nothing more and the thread sending to it is given back to the
+ * pool as soon as that send returns, rather than being held for as long as the subscriber stays connected. Its
+ * listener is then told it was dropped, so its client can reconnect and resume from the last change it was sent.
+ */
+@Component
+public class TodoChangeFeed implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TodoChangeFeed.class);
+  private static final long NOT_SENDING = Long.MIN_VALUE;
+
+  /**
+   * Receives the changes sent to a subscriber, on one of the feed's threads, and never on two at once.
+   */
+  public interface Listener {
+
+    void onChange(TodoChange change) throws IOException;
+
+    /**
+     * Called in place of replaying changes when those after the subscriber's last change are no longer held, or were
+     * made before a restart, so the subscriber should reload the Todos rather than rely on the changes it is sent.
+     */
+    void onMissedChanges() throws IOException;
+
+    /**
+     * Called once the subscriber has been dropped for stalling, after which it is sent nothing more, so it should end
+     * its stream.
+     */
+    void onDropped();
+  }
+
+  /**
+   * A subscription to the feed, which must be closed once its listener should be sent no more changes.
+   */
+  public interface Subscription extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private final int capacity;
+  private final TodoChange[] ring;
+  private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+  private long lastSequence;
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final long stallTimeoutNanos;
+  private final AtomicInteger senderCount = new AtomicInteger();
+  private final ExecutorService senders;
+
+  /**
+   * @param capacity the number of most recent changes held for subscribers to resume from
+   */
+  public TodoChangeFeed(int capacity) {
+    this(capacity, 8, 10_000);
+  }
+
+  /**
+   * @param senderThreads the number of threads sending changes to subscribers
+   * @param stallTimeoutMillis how long sending a change to a subscriber may take before it is dropped
+   */
+  @Autowired
+  public TodoChangeFeed(@Value("${todo.changes.capacity:1000}") int capacity,
+                        @Value("${todo.changes.senderThreads:8}") int senderThreads,
+                        @Value("${todo.changes.stallTimeoutMillis:10000}") long stallTimeoutMillis) {
+    this.capacity = capacity;
+    this.ring = new TodoChange[capacity];
+    this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMillis);
+    // At most one delivery per subscriber is ever waiting, so the queue is bounded by the number of subscribers
+    this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+      Thread thread = new Thread(runnable, "todo-change-feed-" + senderCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Adds the change to the feed and sends it to every subscriber.
+   */
+  public void publish(TodoChange.Type type, TodoDTO todo) {
+    synchronized (ring) {
+      lastSequence++;
+      ring[(int) (lastSequence % capacity)] = new TodoChange(epoch + "-" + lastSequence, type, todo);
+    }
+    subscribers.forEach(this::scheduleDelivery);
+  }
+
+  /**
+   * Subscribes to the changes after the one with the given ID, or only to changes from now on if no ID is given.
+   *
+   * @param lastChangeId the ID of the last change the subscriber saw, or null
+   */
+  public Subscription subscribe(String lastChangeId, Listener listener) {
+    Subscriber subscriber;
+    synchronized (ring) {
+      long resumeAfter = lastChangeId == null ? lastSequence : sequenceOf(lastChangeId);
+      subscriber = resumeAfter < 0
+              ? new Subscriber(listener, lastSequence, true)
+              : new Subscriber(listener, resumeAfter, false);
+    }
+    subscribers.add(subscriber);
+    scheduleDelivery(subscriber);
+    return () -> unsubscribe(subscriber);
+  }
+
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  @Override
+  public void destroy() {
+    senders.shutdownNow();
+  }
+
+  /**
+   * @return the sequence number within this feed of the change with the given ID, or -1 if it is from before a
+   *     restart or not a change ID at all
+   */
+  private long sequenceOf(String changeId) {
+    int separator = changeId.lastIndexOf('-');
+    if (separator < 0 || !changeId.substring(0, separator).equals(epoch)) {
+      return -1;
+    }
+    try {
+      long sequence = Long.parseLong(changeId.substring(separator + 1));
+      return sequence >= 0 && sequence <= lastSequence ? sequence : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private void unsubscribe(Subscriber subscriber) {
+    subscriber.unsubscribed = true;
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * Delivers to the subscriber on one of the feed's threads, unless a delivery to it is already under way, in which
+   * case that delivery goes round again once it is done, as each delivery sends every change not yet sent. A
+   * subscriber that has stalled is dropped instead.
+   */
+  private void scheduleDelivery(Subscriber subscriber) {
+    long sendStartedNanos = subscriber.sendStartedNanos;
+    if (sendStartedNanos != NOT_SENDING && System.nanoTime() - sendStartedNanos >= stallTimeoutNanos) {
+      drop(subscriber);
+    } else {
+      requestDelivery(subscriber);
+    }
+  }
+
+  /**
+   * Unsubscribes the subscriber and requests a delivery to it, which tells its listener it was dropped once the send
+   * it stalled in returns, as its listener is never called on two threads at once.
+   */
+  private void drop(Subscriber subscriber) {
+    if (!subscriber.dropped) {
+      LOG.debug("Dropping a subscriber to Todo changes that stalled");
+      subscriber.dropped = true;
+      unsubscribe(subscriber);
+      requestDelivery(subscriber);
+    }
+  }
+
+  private void requestDelivery(Subscriber subscriber) {
+    if (subscriber.deliveriesRequested.getAndIncrement() == 0) {
+      senders.execute(() -> {
+        int requested = 1;
+        do {
+          deliver(subscriber);
+          requested = subscriber.deliveriesRequested.addAndGet(-requested);
+        } while (requested != 0);
+      });
+    }
+  }
+
+  private void deliver(Subscriber subscriber) {
+    if (subscriber.dropped && !subscriber.toldDropped) {
+      subscriber.toldDropped = true;
+      subscriber.listener.onDropped();
+    }
+    if (subscriber.unsubscribed) {
+      return;
+    }
+    try {
+      for (TodoChange change : unsentChanges(subscriber)) {
+        subscriber.sendStartedNanos = System.nanoTime();
+        if (change == null) {
+          subscriber.listener.onMissedChanges();
+        } else {
+          subscriber.listener.onChange(change);
+        }
+        subscriber.sendStartedNanos = NOT_SENDING;
+        if (subscriber.unsubscribed) {
+          return;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unsubscribing from Todo changes as a change could not be sent", e);
+      unsubscribe(subscriber);
+    } finally {
+      subscriber.sendStartedNanos = NOT_SENDING;
+    }
+  }
+
+  /**
+   * Takes the changes the subscriber has not been sent, preceded by null if it has missed changes no longer held.
+   */
+  private List<TodoChange> unsentChanges(Subscriber subscriber) {
+    synchronized (ring) {
+      List<TodoChange> unsent = new ArrayList<>();
+      if (subscriber.missedChanges || subscriber.lastSentSequence < lastSequence - capacity) {
+        unsent.add(null);
+        subscriber.missedChanges = false;
+        subscriber.lastSentSequence = Math.max(subscriber.lastSentSequence, lastSequence - capacity);
+      }
+      for (long sequence = subscriber.lastSentSequence + 1; sequence <= lastSequence; sequence++) {
+        unsent.add(ring[(int) (sequence % capacity)]);
+      }
+      subscriber.lastSentSequence = lastSequence;
+      return unsent;
+    }
+  }
+
+  private static class Subscriber {
+    private final Listener listener;
+    private final AtomicInteger deliveriesRequested = new AtomicInteger();
+    private volatile boolean unsubscribed;
+    private volatile boolean dropped;
+    private volatile long sendStartedNanos = NOT_SENDING;
+    // Only used by the thread delivering to the subscriber
+    private boolean toldDropped;
+    private long lastSentSequence;
+    private boolean missedChanges;
+
+    private Subscriber(Listener listener, long lastSentSequence, boolean missedChanges) {
+      this.listener = listener;
+      this.lastSentSequence = lastSentSequence;
+      this.missedChanges = missedChanges;
+    }
+  }
+}
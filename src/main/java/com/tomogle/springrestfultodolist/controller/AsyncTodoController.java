@@ -0,0 +1,211 @@
+package com.tomogle.springrestfultodolist.controller;
+
+import com.tomogle.springrestfultodolist.Constants;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
+import com.tomogle.springrestfultodolist.exception.TodoBadFieldException;
+import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoServiceBusyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
+import com.tomogle.springrestfultodolist.service.AsyncTodoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.tomogle.springrestfultodolist.controller.AsyncTodoController.ASYNC_TODO_RESOURCE_BASE_PATH;
+import static com.tomogle.springrestfultodolist.controller.TodoController.ANY_ETAG;
+import static com.tomogle.springrestfultodolist.controller.TodoController.NEXT_CURSOR_HEADER;
+import static com.tomogle.springrestfultodolist.controller.TodoController.eTag;
+import static com.tomogle.springrestfultodolist.controller.TodoController.pageSize;
+import static com.tomogle.springrestfultodolist.controller.TodoController.parseFields;
+import static com.tomogle.springrestfultodolist.controller.TodoController.versionFromETag;
+import static java.lang.String.format;
+
+/**
+ * Restful controller for interacting with Todos like TodoController, but releasing the container thread while the
+ * Todos are read or written, so the number of requests in progress is not limited by the container's threads. A
+ * request the service has not answered within {@code todo.async.timeoutMillis} is answered with 503 Service
+ * Unavailable.
+ */
+@RestController
+@RequestMapping(ASYNC_TODO_RESOURCE_BASE_PATH)
+@ConditionalOnProperty(name = "todo.async.enabled", havingValue = "true")
+class AsyncTodoController {
+
+  static final String ASYNC_TODO_RESOURCE_BASE_PATH = Constants.BASE_API_PATH + "/async/todo";
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncTodoController.class);
+
+  private final AsyncTodoService todoService;
+  private final long timeoutMillis;
+
+  @Autowired
+  public AsyncTodoController(AsyncTodoService todoService,
+                             @Value("${todo.async.timeoutMillis:30000}") long timeoutMillis) {
+    this.todoService = todoService;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Returns every Todo, or a page of them, as TodoController does.
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public DeferredResult<ResponseEntity<List<TodoDTO>>> getAllTodos(
+          @RequestParam(value="limit", required=false) Integer limit,
+          @RequestParam(value="after", required=false) String after,
+          @RequestParam(value="fields", required=false) String fields) throws TodoBadFieldException {
+    if (limit == null && after == null) {
+      return deferred(todoService.findAll(parseFields(fields)).thenApply(ResponseEntity::ok));
+    }
+    return deferred(todoService.findPage(after, pageSize(limit), parseFields(fields)).thenApply(page -> {
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+      if (page.getNextCursor() != null) {
+        response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+      }
+      return response.body(page.getTodos());
+    }));
+  }
+
+  /**
+   * Returns the Todo with its version as the ETag, or just 304 Not Modified if the client already has that version, as
+   * TodoController does. The If-None-Match header is read on the request's thread, as the Todo is found on another,
+   * from which the request must not be touched.
+   */
+  @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+  public DeferredResult<ResponseEntity<TodoDTO>> getTodoById(
+          @PathVariable(value="id") String id,
+          @RequestParam(value="fields", required=false) String fields,
+          @RequestHeader(value=HttpHeaders.IF_NONE_MATCH, required=false) String ifNoneMatch)
+          throws TodoBadFieldException {
+    if (fields != null) {
+      return deferred(todoService.findById(id, parseFields(fields)).thenApply(ResponseEntity::ok));
+    }
+    return deferred(todoService.findById(id).thenApply(todo -> {
+      String eTag = eTag(todo);
+      if (eTag == null) {
+        return ResponseEntity.ok(todo);
+      }
+      if (isListed(eTag, ifNoneMatch)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<TodoDTO>build();
+      }
+      return ResponseEntity.ok().eTag(eTag).body(todo);
+    }));
+  }
+
+  @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+  public DeferredResult<TodoDTO> deleteTodoById(@PathVariable(value="id") String id) {
+    return deferred(todoService.delete(id));
+  }
+
+  @RequestMapping(method = RequestMethod.POST)
+  public DeferredResult<ResponseEntity<TodoDTO>> createTodo(@Valid @RequestBody TodoDTO todoToCreate) {
+    return deferred(todoService.create(todoToCreate)
+            .thenApply(todo -> ResponseEntity.status(HttpStatus.CREATED).body(todo)));
+  }
+
+  /**
+   * Updates the Todo, unconditionally unless an If-Match ETag is given, as TodoController does.
+   */
+  @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
+  public DeferredResult<ResponseEntity<TodoDTO>> updateTodo(
+          @PathVariable(value="id") String id,
+          @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch,
+          @Valid @RequestBody TodoDTO todoToUpdate) throws TodoVersionConflictException {
+    CompletableFuture<TodoDTO> updatedTodo = ifMatch == null || ANY_ETAG.equals(ifMatch.trim())
+            ? todoService.update(id, todoToUpdate)
+            : todoService.update(id, todoToUpdate, versionFromETag(ifMatch));
+    return deferred(updatedTodo.thenApply(todo -> {
+      String eTag = eTag(todo);
+      return eTag == null ? ResponseEntity.ok(todo) : ResponseEntity.ok().eTag(eTag).body(todo);
+    }));
+  }
+
+  /**
+   * Whether the ETag is one of those in an If-None-Match header, or the header is *, comparing them weakly as a GET
+   * does, so a weak ETag given for the same version matches it.
+   */
+  private static boolean isListed(String eTag, String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String listed : ifNoneMatch.split(",")) {
+      String trimmed = listed.trim();
+      if (ANY_ETAG.equals(trimmed) || withoutWeakPrefix(trimmed).equals(withoutWeakPrefix(eTag))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String withoutWeakPrefix(String eTag) {
+    return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+  }
+
+  /**
+   * Completes the DeferredResult from the future, with the exception the service failed with rather than the
+   * CompletionException a dependent stage wraps it in, so the exception handlers below can handle it. Should the future
+   * not complete in time, the result is completed with a TodoServiceBusyException instead.
+   */
+  private <T> DeferredResult<T> deferred(CompletableFuture<T> future) {
+    DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+    result.onTimeout(() -> result.setErrorResult(new TodoServiceBusyException(
+            format("The request was not handled within %d ms", timeoutMillis))));
+    future.whenComplete((value, error) -> {
+      if (error == null) {
+        result.setResult(value);
+      } else {
+        result.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error);
+      }
+    });
+    return result;
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  public void handleTodoNotFoundException(TodoNotFoundException exception) {
+    LOG.info("Todo not found: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadIDException(TodoBadIDException exception) {
+    LOG.info("Bad Todo ID: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadCursorException(TodoBadCursorException exception) {
+    LOG.info("Bad page cursor: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public void handleTodoVersionConflictException(TodoVersionConflictException exception) {
+    LOG.info("Todo version conflict: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadFieldException(TodoBadFieldException exception) {
+    LOG.info("Bad Todo field: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public void handleTodoServiceBusyException(TodoServiceBusyException exception) {
+    LOG.warn("Todo service busy: {}", exception.getMessage());
+  }
+}
@@ -0,0 +1,76 @@
+package com.tomogle.springrestfultodolist.controller;
+
+import com.tomogle.springrestfultodolist.changes.TodoChange;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import static com.tomogle.springrestfultodolist.controller.TodoController.TODO_RESOURCE_BASE_PATH;
+
+/**
+ * Restful controller streaming the changes made to Todos as Server-Sent Events, so clients can follow the Todos
+ * without polling for them.
+ */
+@RestController
+@RequestMapping(TODO_RESOURCE_BASE_PATH)
+class TodoChangesController {
+
+  static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+  static final String MISSED_CHANGES_EVENT = "reload";
+
+  private final TodoChangeFeed changeFeed;
+  private final long timeoutMillis;
+
+  /**
+   * @param timeoutMillis how long a stream is held open before it is ended, after which EventSource clients reconnect
+   *     and resume from the last change they saw
+   */
+  @Autowired
+  public TodoChangesController(TodoChangeFeed changeFeed,
+                               @Value("${todo.changes.timeoutMillis:300000}") long timeoutMillis) {
+    this.changeFeed = changeFeed;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Streams every Todo created, updated or deleted from now on as an event named {@code created}, {@code updated} or
+   * {@code deleted}, whose data is the Todo. A client resuming with a {@value #LAST_EVENT_ID_HEADER} header is first
+   * sent the changes it missed, or a single {@value #MISSED_CHANGES_EVENT} event if they are no longer held, in which
+   * case it should reload the Todos.
+   */
+  @RequestMapping(value = "/changes", method = RequestMethod.GET)
+  public SseEmitter streamChanges(@RequestHeader(value=LAST_EVENT_ID_HEADER, required=false) String lastEventId) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    TodoChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId, new TodoChangeFeed.Listener() {
+      @Override
+      public void onChange(TodoChange change) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(change.getId())
+                .name(change.getType().name().toLowerCase(Locale.ROOT))
+                .data(change.getTodo()));
+      }
+
+      @Override
+      public void onMissedChanges() throws IOException {
+        emitter.send(SseEmitter.event().name(MISSED_CHANGES_EVENT).data("Changes were missed, reload the Todos"));
+      }
+
+      @Override
+      public void onDropped() {
+        // Ends the stream, so the client reconnects and resumes from the last change it was sent
+        emitter.complete();
+      }
+    });
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    return emitter;
+  }
+}
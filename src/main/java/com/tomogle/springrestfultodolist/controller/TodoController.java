@@ -1,18 +1,44 @@
 package com.tomogle.springrestfultodolist.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tomogle.springrestfultodolist.Constants;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoBatchResultDTO;
+import com.tomogle.springrestfultodolist.dto.TodoCountDTO;
 import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPatchDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
+import com.tomogle.springrestfultodolist.exception.TodoBadFieldException;
 import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoBadPatchException;
+import com.tomogle.springrestfultodolist.exception.TodoBatchTooLargeException;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
 import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoSearchNotReadyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
 import com.tomogle.springrestfultodolist.service.TodoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.tomogle.springrestfultodolist.controller.TodoController.TODO_RESOURCE_BASE_PATH;
+import static java.lang.String.format;
 
 /**
  * Restful controller for interacting with Todos.
@@ -22,22 +48,107 @@ import static com.tomogle.springrestfultodolist.controller.TodoController.TODO_R
 class TodoController {
 
   static final String TODO_RESOURCE_BASE_PATH = Constants.BASE_API_PATH + "/todo";
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 500;
+  static final int MAX_BATCH_SIZE = 500;
+  static final String ANY_ETAG = "*";
+  static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+  private static final Logger LOG = LoggerFactory.getLogger(TodoController.class);
 
   private final TodoService todoService;
+  private final ObjectMapper objectMapper;
 
   @Autowired
-  public TodoController(TodoService todoService) {
+  public TodoController(TodoService todoService, ObjectMapper objectMapper) {
     this.todoService = todoService;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * Returns every Todo, unless a page is requested with {@code limit} or {@code after}, in which case only that page is
+   * returned and the cursor for the following page is given in the {@value #NEXT_CURSOR_HEADER} header. If
+   * {@code fields} are given, only those fields are read and returned along with the ID and version. The number of
+   * Todos in all pages is given in the {@value #TOTAL_COUNT_HEADER} header.
+   */
   @RequestMapping(method = RequestMethod.GET)
-  public List<TodoDTO> getAllTodos() {
-    return todoService.findAll();
+  public ResponseEntity<List<TodoDTO>> getAllTodos(@RequestParam(value="limit", required=false) Integer limit,
+                                                   @RequestParam(value="after", required=false) String after,
+                                                   @RequestParam(value="fields", required=false) String fields)
+          throws TodoBadCursorException, TodoBadFieldException {
+    if (limit == null && after == null) {
+      List<TodoDTO> todos = fields == null ? todoService.findAll() : todoService.findAll(parseFields(fields));
+      return ResponseEntity.ok().header(TOTAL_COUNT_HEADER, Integer.toString(todos.size())).body(todos);
+    }
+    TodoPageDTO page = todoService.findPage(after, pageSize(limit), parseFields(fields));
+    return withNextCursor(ResponseEntity.ok().header(TOTAL_COUNT_HEADER, Long.toString(todoService.count())), page);
   }
 
+  /**
+   * Returns the number of Todos, without reading them.
+   */
+  @RequestMapping(value = "/count", method = RequestMethod.GET)
+  public TodoCountDTO countTodos() {
+    return new TodoCountDTO(todoService.count());
+  }
+
+  /**
+   * Returns every Todo as a JSON array written while the Todos are read from the data store, so the whole collection
+   * is never held in memory at once.
+   */
+  @RequestMapping(method = RequestMethod.GET, params = "stream=true")
+  public ResponseEntity<StreamingResponseBody> streamAllTodos(
+          @RequestParam(value="fields", required=false) String fields) throws TodoBadFieldException {
+    Set<TodoField> fieldsToRead = parseFields(fields);
+    StreamingResponseBody body = outputStream -> {
+      try (Stream<TodoDTO> todos = todoService.streamAll(fieldsToRead);
+           JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        Iterator<TodoDTO> iterator = todos.iterator();
+        while (iterator.hasNext()) {
+          generator.writeObject(iterator.next());
+        }
+        generator.writeEndArray();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+  }
+
+  /**
+   * Returns a page of the Todos whose title or content best match the words in {@code q}, best first, with the cursor
+   * for the following page in the {@value #NEXT_CURSOR_HEADER} header. Until the search index has been built after
+   * startup, responds 503 Service Unavailable.
+   */
+  @RequestMapping(value = "/search", method = RequestMethod.GET)
+  public ResponseEntity<List<TodoDTO>> searchTodos(@RequestParam(value="q") String query,
+                                                   @RequestParam(value="limit", required=false) Integer limit,
+                                                   @RequestParam(value="after", required=false) String after)
+          throws TodoBadCursorException, TodoSearchNotReadyException {
+    return withNextCursor(ResponseEntity.ok(), todoService.search(query, after, pageSize(limit)));
+  }
+
+  /**
+   * Returns the Todo with its version as the ETag, or just 304 Not Modified if the client already has that version.
+   * If {@code fields} are given, only those fields are read and returned along with the ID and version, without an
+   * ETag as the response is not the full Todo.
+   */
   @RequestMapping(value = "/{id}", method = RequestMethod.GET)
-  public TodoDTO getTodoById(@PathVariable(value="id") String id) throws TodoNotFoundException {
-    return todoService.findById(id);
+  public ResponseEntity<TodoDTO> getTodoById(@PathVariable(value="id") String id,
+                                             @RequestParam(value="fields", required=false) String fields,
+                                             WebRequest request)
+          throws TodoNotFoundException, TodoBadFieldException {
+    if (fields != null) {
+      return ResponseEntity.ok(todoService.findById(id, parseFields(fields)));
+    }
+    TodoDTO todo = todoService.findById(id);
+    String eTag = eTag(todo);
+    if (eTag != null && request.checkNotModified(eTag)) {
+      return null;
+    }
+    return withETag(ResponseEntity.ok(), eTag).body(todo);
   }
 
   @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
@@ -45,28 +156,183 @@ class TodoController {
     return todoService.delete(id);
   }
 
+  /**
+   * Creates the Todo. If an {@value #IDEMPOTENCY_KEY_HEADER} header is given, the Todo is only created the first time
+   * the key is given, and a retry with the same key is given the Todo created then.
+   */
   @RequestMapping(method = RequestMethod.POST)
   @ResponseStatus(HttpStatus.CREATED)
-  public TodoDTO createTodo(@Valid @RequestBody TodoDTO todoToCreate) {
-    return todoService.create(todoToCreate);
+  public TodoDTO createTodo(@RequestHeader(value=IDEMPOTENCY_KEY_HEADER, required=false) String idempotencyKey,
+                            @Valid @RequestBody TodoDTO todoToCreate) throws TodoIdempotencyKeyReusedException {
+    return idempotencyKey == null
+            ? todoService.create(todoToCreate)
+            : todoService.create(todoToCreate, idempotencyKey);
   }
 
+  /**
+   * Updates the Todo, unconditionally unless an If-Match ETag is given, in which case only if the Todo is still at the
+   * version in the ETag.
+   */
   @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
-  @ResponseStatus(HttpStatus.OK)
-  public TodoDTO updateTodo(@PathVariable(value="id") String id, @Valid @RequestBody TodoDTO todoToUpdate)
-          throws TodoBadIDException {
-    return todoService.update(id, todoToUpdate);
+  public ResponseEntity<TodoDTO> updateTodo(@PathVariable(value="id") String id,
+                                            @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch,
+                                            @Valid @RequestBody TodoDTO todoToUpdate)
+          throws TodoBadIDException, TodoVersionConflictException {
+    TodoDTO updatedTodo = ifMatch == null || ANY_ETAG.equals(ifMatch.trim())
+            ? todoService.update(id, todoToUpdate)
+            : todoService.update(id, todoToUpdate, versionFromETag(ifMatch));
+    return withETag(ResponseEntity.ok(), eTag(updatedTodo)).body(updatedTodo);
+  }
+
+  /**
+   * Changes only the fields in a JSON Merge Patch of the Todo, so clients need not send the fields they leave as they
+   * are. As with a PUT, the Todo is only changed at the version in an If-Match ETag, if one is given.
+   */
+  @RequestMapping(value = "/{id}", method = RequestMethod.PATCH,
+          consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<TodoDTO> patchTodo(@PathVariable(value="id") String id,
+                                           @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch,
+                                           @RequestBody TodoPatchDTO patch)
+          throws TodoBadIDException, TodoBadPatchException, TodoNotFoundException, TodoVersionConflictException {
+    TodoDTO patchedTodo = ifMatch == null || ANY_ETAG.equals(ifMatch.trim())
+            ? todoService.patch(id, patch)
+            : todoService.patch(id, patch, versionFromETag(ifMatch));
+    return withETag(ResponseEntity.ok(), eTag(patchedTodo)).body(patchedTodo);
+  }
+
+  @RequestMapping(value = "/batch", method = RequestMethod.POST)
+  public List<TodoBatchResultDTO> createTodos(@RequestBody List<TodoDTO> todosToCreate)
+          throws TodoBatchTooLargeException {
+    verifyBatchSizeOrThrow(todosToCreate);
+    return todoService.createAll(todosToCreate);
+  }
+
+  @RequestMapping(value = "/batch", method = RequestMethod.PUT)
+  public List<TodoBatchResultDTO> updateTodos(@RequestBody List<TodoDTO> todosToUpdate)
+          throws TodoBatchTooLargeException {
+    verifyBatchSizeOrThrow(todosToUpdate);
+    return todoService.updateAll(todosToUpdate);
+  }
+
+  @RequestMapping(value = "/batch", method = RequestMethod.DELETE)
+  public List<TodoBatchResultDTO> deleteTodos(@RequestBody List<String> idsToDelete)
+          throws TodoBatchTooLargeException {
+    verifyBatchSizeOrThrow(idsToDelete);
+    return todoService.deleteAll(idsToDelete);
+  }
+
+  private static void verifyBatchSizeOrThrow(List<?> batch) throws TodoBatchTooLargeException {
+    if (batch.size() > MAX_BATCH_SIZE) {
+      throw new TodoBatchTooLargeException(format("The batch of %d is larger than the maximum of %d",
+              batch.size(), MAX_BATCH_SIZE));
+    }
+  }
+
+  /**
+   * Parses a comma separated list of field names. The ID and version are always included, as they are needed to page
+   * through and update Todos.
+   */
+  static Set<TodoField> parseFields(String fields) throws TodoBadFieldException {
+    if (fields == null) {
+      return TodoField.ALL;
+    }
+    Set<TodoField> parsed = EnumSet.of(TodoField.ID, TodoField.VERSION);
+    for (String fieldName : fields.split(",")) {
+      String trimmed = fieldName.trim();
+      if (!trimmed.isEmpty()) {
+        parsed.add(TodoField.fromFieldName(trimmed)
+                .orElseThrow(() -> new TodoBadFieldException(format("%s is not a field of a Todo", trimmed))));
+      }
+    }
+    return parsed;
+  }
+
+  static String eTag(TodoDTO todo) {
+    return todo == null || todo.getVersion() == null ? null : "\"" + todo.getVersion() + "\"";
+  }
+
+  private static ResponseEntity<List<TodoDTO>> withNextCursor(ResponseEntity.BodyBuilder response, TodoPageDTO page) {
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return response.body(page.getTodos());
+  }
+
+  private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, String eTag) {
+    return eTag == null ? response : response.eTag(eTag);
+  }
+
+  static long versionFromETag(String eTag) throws TodoVersionConflictException {
+    String trimmed = eTag.trim();
+    // Weak ETags never match for If-Match, and any other ETag not issued by eTag(TodoDTO) cannot match a version
+    if (trimmed.length() > 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+      try {
+        return Long.parseLong(trimmed.substring(1, trimmed.length() - 1));
+      } catch (NumberFormatException e) {
+        // Fall through to the conflict below
+      }
+    }
+    throw new TodoVersionConflictException(format("The ETag %s does not match any Todo version", eTag));
+  }
+
+  static int pageSize(Integer limit) {
+    if (limit == null) {
+      return DEFAULT_PAGE_SIZE;
+    }
+    return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
   }
 
   @ExceptionHandler
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public void handleTodoNotFoundException(TodoNotFoundException exception) {
-    // TODO: Log the exception
+    LOG.info("Todo not found: {}", exception.getMessage());
   }
 
   @ExceptionHandler
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   public void handleTodoBadIDException(TodoBadIDException exception) {
-    // TODO: Log the exception
+    LOG.info("Bad Todo ID: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadCursorException(TodoBadCursorException exception) {
+    LOG.info("Bad page cursor: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+  public void handleTodoBatchTooLargeException(TodoBatchTooLargeException exception) {
+    LOG.info("Batch too large: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public void handleTodoVersionConflictException(TodoVersionConflictException exception) {
+    LOG.info("Todo version conflict: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadFieldException(TodoBadFieldException exception) {
+    LOG.info("Bad Todo field: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public void handleTodoBadPatchException(TodoBadPatchException exception) {
+    LOG.info("Bad Todo patch: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public void handleTodoIdempotencyKeyReusedException(TodoIdempotencyKeyReusedException exception) {
+    LOG.info("Idempotency key reused: {}", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public void handleTodoSearchNotReadyException(TodoSearchNotReadyException exception) {
+    LOG.info("Search not ready: {}", exception.getMessage());
   }
 }
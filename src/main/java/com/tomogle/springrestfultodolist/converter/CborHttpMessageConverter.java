@@ -0,0 +1,20 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Reads and writes CBOR (RFC 7049), a standard binary encoding of JSON's data model, for clients that ask for it.
+ */
+public class CborHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+  public static final MediaType CBOR = new MediaType("application", "cbor");
+
+  /**
+   * @param objectMapper an ObjectMapper whose factory is a CBORFactory
+   */
+  public CborHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper, CBOR);
+  }
+}
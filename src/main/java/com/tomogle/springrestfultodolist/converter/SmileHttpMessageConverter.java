@@ -0,0 +1,21 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Reads and writes Smile, Jackson's binary encoding of JSON, for clients that ask for it. Smile is smaller than JSON
+ * and quicker to parse, as field names repeated across a list are written once and referred back to.
+ */
+public class SmileHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+  public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+  /**
+   * @param objectMapper an ObjectMapper whose factory is a SmileFactory
+   */
+  public SmileHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper, SMILE);
+  }
+}
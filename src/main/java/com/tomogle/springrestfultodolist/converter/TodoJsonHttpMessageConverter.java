@@ -0,0 +1,72 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Writes JSON like MappingJackson2HttpMessageConverter, but writes a single Todo, the response to the most common
+ * request, directly with an ObjectWriter made for TodoDTOs, so its serializer is not looked up on every response.
+ * <p>
+ * Its JsonGenerator is also closed once written, which returns the generator's buffers to Jackson to be reused, while
+ * leaving the response open. The generator is only flushed otherwise, so every response allocates new buffers, many
+ * times larger than the Todo.
+ */
+public class TodoJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  private volatile ObjectWriter todoWriter;
+
+  public TodoJsonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  public void setObjectMapper(ObjectMapper objectMapper) {
+    super.setObjectMapper(objectMapper);
+    todoWriter = null;
+  }
+
+  @Override
+  public void setPrettyPrint(boolean prettyPrint) {
+    super.setPrettyPrint(prettyPrint);
+    todoWriter = null;
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+          throws IOException, HttpMessageNotWritableException {
+    if (!(object instanceof TodoDTO)) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+    JsonEncoding encoding = getJsonEncoding(outputMessage.getHeaders().getContentType());
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(outputMessage.getBody(), encoding)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    try {
+      writePrefix(generator, object);
+      todoWriter().writeValue(generator, object);
+      writeSuffix(generator, object);
+      generator.close();
+    } catch (JsonProcessingException e) {
+      throw new HttpMessageNotWritableException("Could not write content: " + e.getOriginalMessage(), e);
+    }
+  }
+
+  private ObjectWriter todoWriter() {
+    ObjectWriter writer = todoWriter;
+    if (writer == null) {
+      writer = objectMapper.writerFor(TodoDTO.class);
+      todoWriter = writer;
+    }
+    return writer;
+  }
+}
@@ -0,0 +1,43 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.util.List;
+
+/**
+ * Adds the binary wire formats to those Spring MVC negotiates with clients. They are added after the JSON converter so
+ * that JSON stays the default for clients that accept anything, and each is configured like the JSON ObjectMapper so
+ * Todos look the same whichever format they are sent in. The JSON converter itself is replaced by one writing single
+ * Todos directly, with the same ObjectMapper.
+ */
+@Configuration
+class WireFormatConfiguration extends WebMvcConfigurerAdapter {
+
+  @Autowired
+  private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    for (int i = 0; i < converters.size(); i++) {
+      if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+        ObjectMapper jsonObjectMapper = ((MappingJackson2HttpMessageConverter) converters.get(i)).getObjectMapper();
+        converters.set(i, new TodoJsonHttpMessageConverter(jsonObjectMapper));
+      }
+    }
+    converters.add(new SmileHttpMessageConverter(objectMapper(new ObjectMapper(new SmileFactory()))));
+    converters.add(new CborHttpMessageConverter(objectMapper(new ObjectMapper(new CBORFactory()))));
+  }
+
+  private ObjectMapper objectMapper(ObjectMapper objectMapper) {
+    objectMapperBuilder.configure(objectMapper);
+    return objectMapper;
+  }
+}
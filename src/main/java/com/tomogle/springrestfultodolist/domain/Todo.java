@@ -1,5 +1,9 @@
 package com.tomogle.springrestfultodolist.domain;
 
+import org.springframework.data.annotation.Transient;
+
+import java.util.Set;
+
 /**
  *
  */
@@ -10,12 +14,27 @@ public class Todo {
 
   private final String id;
   private final String title;
-  private final String content;
+  // Not mapped, as MongoDB stores the content either as its text or apart from the Todo, and TodoDocumentReader reads it
+  @Transient
+  private final TodoContent content;
+  private final Long version;
 
   public Todo(String id, String title, String content) {
+    this(id, title, content, null);
+  }
+
+  /**
+   * @param version the number of times this Todo has been saved, or null if it has not been saved yet
+   */
+  public Todo(String id, String title, String content, Long version) {
+    this(id, title, TodoContent.of(content), version);
+  }
+
+  private Todo(String id, String title, TodoContent content, Long version) {
     this.id = id;
     this.title = title;
     this.content = content;
+    this.version = version;
   }
 
   public String getId() {
@@ -26,10 +45,88 @@ public class Todo {
     return title;
   }
 
+  /**
+   * @param content the content, which may be compressed
+   */
+  public static Todo of(String id, String title, TodoContent content, Long version) {
+    return new Todo(id, title, content, version);
+  }
+
+  /**
+   * @return the content, inflated first if it is held compressed
+   */
   public String getContent() {
+    return content == null ? null : content.get();
+  }
+
+  /**
+   * @return the content as it is held, compressed or not, without inflating it
+   */
+  public TodoContent getTodoContent() {
     return content;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return a copy of this Todo holding only the given fields, with the others left null
+   */
+  public Todo withOnly(Set<TodoField> fields) {
+    if (fields.containsAll(TodoField.ALL)) {
+      return this;
+    }
+    return new Todo(
+            fields.contains(TodoField.ID) ? id : null,
+            fields.contains(TodoField.TITLE) ? title : null,
+            fields.contains(TodoField.CONTENT) ? content : null,
+            fields.contains(TodoField.VERSION) ? version : null);
+  }
+
+  /**
+   * @return a copy of this Todo with the title and content taken from the other Todo if they are among the given
+   *     fields, and otherwise kept, along with this Todo's ID and version
+   */
+  public Todo withFieldsFrom(Todo other, Set<TodoField> fields) {
+    return new Todo(id,
+            fields.contains(TodoField.TITLE) ? other.title : title,
+            fields.contains(TodoField.CONTENT) ? other.content : content,
+            version);
+  }
+
+  /**
+   * @return a copy of this Todo with its content compressed if it is longer than the given number of characters, or
+   *     this Todo if it is not, or is already compressed
+   */
+  public Todo withContentCompressedAbove(int thresholdChars) {
+    if (thresholdChars <= 0 || content == null || content.isCompressed() || content.get().length() <= thresholdChars) {
+      return this;
+    }
+    return new Todo(id, title, TodoContent.compress(content.get()), version);
+  }
+
+  /**
+   * @return a copy of this Todo holding its content as it is once loaded from the data store, or this Todo if its
+   *     content is already loaded
+   */
+  public Todo withContentLoaded() {
+    if (content == null || content.loaded() == content) {
+      return this;
+    }
+    return new Todo(id, title, content.loaded(), version);
+  }
+
+  /**
+   * @return a copy of this Todo holding its content as text, or this Todo if it already does
+   */
+  public Todo withContentInflated() {
+    if (content == null || !content.isCompressed()) {
+      return this;
+    }
+    return new Todo(id, title, TodoContent.of(content.get()), version);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -39,7 +136,8 @@ public class Todo {
 
     if (id != null ? !id.equals(todo.id) : todo.id != null) return false;
     if (title != null ? !title.equals(todo.title) : todo.title != null) return false;
-    return content != null ? content.equals(todo.content) : todo.content == null;
+    if (content != null ? !content.equals(todo.content) : todo.content != null) return false;
+    return version != null ? version.equals(todo.version) : todo.version == null;
 
   }
 
@@ -48,6 +146,7 @@ public class Todo {
     int result = id != null ? id.hashCode() : 0;
     result = 31 * result + (title != null ? title.hashCode() : 0);
     result = 31 * result + (content != null ? content.hashCode() : 0);
+    result = 31 * result + (version != null ? version.hashCode() : 0);
     return result;
   }
 }
@@ -0,0 +1,167 @@
+package com.tomogle.springrestfultodolist.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The content of a Todo, held as the text itself, compressed with raw Deflate, or not yet loaded from the data store.
+ * <p>
+ * Compressed content is only inflated when it is read, and the text is not kept afterwards, so a Todo whose content
+ * is never read, such as one listed without it, only holds the compressed bytes. Content that is not yet loaded holds
+ * nothing until it is first read, and is then held as it was loaded. Whether a cached Todo holds its content compressed
+ * is up to TodoCache.
+ */
+public final class TodoContent {
+
+  private static final ThreadLocal<Deflater> DEFLATERS =
+          ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+  private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  // Either the text, the compressed UTF-8 of the text and its length before compression, or how to load either
+  private final String text;
+  private final byte[] compressed;
+  private final int utf8Length;
+  private final Supplier<TodoContent> loader;
+  private volatile TodoContent loaded;
+  private int hash;
+
+  private TodoContent(String text, byte[] compressed, int utf8Length, Supplier<TodoContent> loader) {
+    this.text = text;
+    this.compressed = compressed;
+    this.utf8Length = utf8Length;
+    this.loader = loader;
+  }
+
+  public static TodoContent of(String text) {
+    return text == null ? null : new TodoContent(text, null, 0, null);
+  }
+
+  /**
+   * @return the text compressed, or held as it is if compressing does not make it any smaller
+   */
+  public static TodoContent compress(String text) {
+    if (text == null) {
+      return null;
+    }
+    byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+    // Deflating into a buffer no larger than the input stops as soon as compressing is not worth it
+    byte[] buffer = new byte[utf8.length];
+    Deflater deflater = DEFLATERS.get();
+    deflater.reset();
+    deflater.setInput(utf8);
+    deflater.finish();
+    int compressedLength = deflater.deflate(buffer);
+    if (!deflater.finished() || compressedLength >= utf8.length) {
+      return of(text);
+    }
+    return new TodoContent(null, Arrays.copyOf(buffer, compressedLength), utf8.length, null);
+  }
+
+  /**
+   * @param compressed the content as compressed by {@link #compress(String)}, as read back from storage
+   * @param utf8Length the length of the content's UTF-8 before it was compressed
+   */
+  public static TodoContent ofCompressed(byte[] compressed, int utf8Length) {
+    return new TodoContent(null, compressed, utf8Length, null);
+  }
+
+  /**
+   * @param loader loads the content, compressed, from the data store the first time it is read
+   */
+  public static TodoContent lazy(Supplier<TodoContent> loader) {
+    return new TodoContent(null, null, 0, loader);
+  }
+
+  /**
+   * @return this content as it is held once loaded, loading it first if it is not yet loaded
+   */
+  public TodoContent loaded() {
+    if (loader == null) {
+      return this;
+    }
+    TodoContent content = loaded;
+    if (content == null) {
+      content = loader.get();
+      loaded = content;
+    }
+    return content;
+  }
+
+  /**
+   * @return the text, inflated on every call if it is compressed
+   */
+  public String get() {
+    if (loader != null) {
+      return loaded().get();
+    }
+    if (compressed == null) {
+      return text;
+    }
+    byte[] utf8 = new byte[utf8Length];
+    Inflater inflater = INFLATERS.get();
+    inflater.reset();
+    inflater.setInput(compressed);
+    try {
+      if (inflater.inflate(utf8) != utf8Length || !inflater.finished()) {
+        throw new IllegalStateException("Compressed Todo content is truncated");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Compressed Todo content is corrupt", e);
+    }
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return whether the content is compressed, which content not yet loaded always is
+   */
+  public boolean isCompressed() {
+    return compressed != null || loader != null;
+  }
+
+  /**
+   * @return a read-only view of the compressed content, or null if it is not compressed
+   */
+  public ByteBuffer getCompressed() {
+    if (loader != null) {
+      return loaded().getCompressed();
+    }
+    return compressed == null ? null : ByteBuffer.wrap(compressed).asReadOnlyBuffer();
+  }
+
+  /**
+   * @return the length of the content's UTF-8 before it was compressed, or 0 if it is not compressed
+   */
+  public int getUtf8Length() {
+    return loader != null ? loaded().getUtf8Length() : utf8Length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    TodoContent content = loaded();
+    TodoContent that = ((TodoContent) o).loaded();
+
+    if (content.compressed != null && that.compressed != null && Arrays.equals(content.compressed, that.compressed)) {
+      return true;
+    }
+    return content.get().equals(that.get());
+  }
+
+  @Override
+  public int hashCode() {
+    // Hashes the text rather than how it is held, so equal content hashes the same compressed or not
+    int result = hash;
+    if (result == 0) {
+      result = get().hashCode();
+      hash = result;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,37 @@
+package com.tomogle.springrestfultodolist.domain;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The fields of a Todo, used to read only some of them.
+ */
+public enum TodoField {
+  ID("id"),
+  TITLE("title"),
+  CONTENT("content"),
+  VERSION("version");
+
+  public static final Set<TodoField> ALL = Collections.unmodifiableSet(EnumSet.allOf(TodoField.class));
+
+  private final String fieldName;
+
+  TodoField(String fieldName) {
+    this.fieldName = fieldName;
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  public static Optional<TodoField> fromFieldName(String fieldName) {
+    for (TodoField field : values()) {
+      if (field.fieldName.equals(fieldName)) {
+        return Optional.of(field);
+      }
+    }
+    return Optional.empty();
+  }
+}
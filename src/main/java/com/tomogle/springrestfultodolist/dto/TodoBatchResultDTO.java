@@ -0,0 +1,51 @@
+package com.tomogle.springrestfultodolist.dto;
+
+/**
+ * The outcome for a single Todo in a batch request, given as an HTTP status code along with either the resulting
+ * TodoDTO or the reason it failed.
+ */
+public class TodoBatchResultDTO {
+
+  private final int status;
+  private final TodoDTO todo;
+  private final String error;
+
+  public TodoBatchResultDTO(int status, TodoDTO todo, String error) {
+    this.status = status;
+    this.todo = todo;
+    this.error = error;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public TodoDTO getTodo() {
+    return todo;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    TodoBatchResultDTO that = (TodoBatchResultDTO) o;
+
+    if (status != that.status) return false;
+    if (todo != null ? !todo.equals(that.todo) : that.todo != null) return false;
+    return error != null ? error.equals(that.error) : that.error == null;
+
+  }
+
+  @Override
+  public int hashCode() {
+    int result = status;
+    result = 31 * result + (todo != null ? todo.hashCode() : 0);
+    result = 31 * result + (error != null ? error.hashCode() : 0);
+    return result;
+  }
+}
@@ -0,0 +1,32 @@
+package com.tomogle.springrestfultodolist.dto;
+
+/**
+ * The number of Todos.
+ */
+public class TodoCountDTO {
+
+  private final long count;
+
+  public TodoCountDTO(long count) {
+    this.count = count;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    TodoCountDTO that = (TodoCountDTO) o;
+
+    return count == that.count;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (count ^ (count >>> 32));
+  }
+}
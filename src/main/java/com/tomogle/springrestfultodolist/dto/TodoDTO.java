@@ -1,10 +1,12 @@
 package com.tomogle.springrestfultodolist.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.tomogle.springrestfultodolist.domain.Todo;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.constraints.Size;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TodoDTO {
 
   private String id;
@@ -14,14 +16,20 @@ public class TodoDTO {
   private String title;
   @Size(max = Todo.MAX_LENGTH_CONTENT)
   private String content;
+  private Long version;
 
   public TodoDTO() {
   }
 
   public TodoDTO(String id, String title, String content) {
+    this(id, title, content, null);
+  }
+
+  public TodoDTO(String id, String title, String content, Long version) {
     this.id = id;
     this.title = title;
     this.content = content;
+    this.version = version;
   }
 
   public String getId() {
@@ -48,6 +56,14 @@ public class TodoDTO {
     this.content = content;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -57,7 +73,8 @@ public class TodoDTO {
 
     if (id != null ? !id.equals(todoDTO.id) : todoDTO.id != null) return false;
     if (title != null ? !title.equals(todoDTO.title) : todoDTO.title != null) return false;
-    return content != null ? content.equals(todoDTO.content) : todoDTO.content == null;
+    if (content != null ? !content.equals(todoDTO.content) : todoDTO.content != null) return false;
+    return version != null ? version.equals(todoDTO.version) : todoDTO.version == null;
 
   }
 
@@ -66,6 +83,7 @@ public class TodoDTO {
     int result = id != null ? id.hashCode() : 0;
     result = 31 * result + (title != null ? title.hashCode() : 0);
     result = 31 * result + (content != null ? content.hashCode() : 0);
+    result = 31 * result + (version != null ? version.hashCode() : 0);
     return result;
   }
 }
@@ -0,0 +1,47 @@
+package com.tomogle.springrestfultodolist.dto;
+
+import java.util.List;
+
+/**
+ * A single page of TodoDTOs along with the cursor to fetch the page after it.
+ */
+public class TodoPageDTO {
+
+  private final List<TodoDTO> todos;
+  private final String nextCursor;
+
+  public TodoPageDTO(List<TodoDTO> todos, String nextCursor) {
+    this.todos = todos;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<TodoDTO> getTodos() {
+    return todos;
+  }
+
+  /**
+   * @return the opaque cursor for the next page, or null if this is the last page
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    TodoPageDTO that = (TodoPageDTO) o;
+
+    if (todos != null ? !todos.equals(that.todos) : that.todos != null) return false;
+    return nextCursor != null ? nextCursor.equals(that.nextCursor) : that.nextCursor == null;
+
+  }
+
+  @Override
+  public int hashCode() {
+    int result = todos != null ? todos.hashCode() : 0;
+    result = 31 * result + (nextCursor != null ? nextCursor.hashCode() : 0);
+    return result;
+  }
+}
@@ -0,0 +1,72 @@
+package com.tomogle.springrestfultodolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A JSON Merge Patch (RFC 7396) of a Todo. Each member of the patch replaces that field of the Todo, or removes it if
+ * null, and fields with no member are left as they are, so the patch only holds the fields that change. As a field
+ * left out and a field set to null mean different things, the fields that were given are recorded as they are set.
+ */
+public class TodoPatchDTO {
+
+  private String id;
+  private String title;
+  private String content;
+  private final Set<TodoField> fields = EnumSet.noneOf(TodoField.class);
+  private final Set<String> unknownMembers = new TreeSet<>();
+
+  public TodoPatchDTO() {
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+    fields.add(TodoField.TITLE);
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public void setContent(String content) {
+    this.content = content;
+    fields.add(TodoField.CONTENT);
+  }
+
+  /**
+   * @return the fields the patch changes, which are only ever the title and content
+   */
+  public Set<TodoField> getFields() {
+    return Collections.unmodifiableSet(fields);
+  }
+
+  /**
+   * Records members that are not fields of a Todo, such as its version, so the patch can be refused rather than
+   * partly applied.
+   */
+  @JsonAnySetter
+  public void setUnknownMember(String name, Object value) {
+    unknownMembers.add(name);
+  }
+
+  public Set<String> getUnknownMembers() {
+    return Collections.unmodifiableSet(unknownMembers);
+  }
+}
@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a pagination cursor could not be understood.
+ */
+public class TodoBadCursorException extends Exception {
+  public TodoBadCursorException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a requested field is not a field of a Todo.
+ */
+public class TodoBadFieldException extends Exception {
+  public TodoBadFieldException(String message) {
+    super(message);
+  }
+}
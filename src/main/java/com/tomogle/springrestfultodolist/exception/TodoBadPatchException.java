@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a patch to a Todo would change something that cannot be changed, or leave it invalid.
+ */
+public class TodoBadPatchException extends Exception {
+  public TodoBadPatchException(String message) {
+    super(message);
+  }
+}
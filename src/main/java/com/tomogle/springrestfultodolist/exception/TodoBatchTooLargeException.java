@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a batch request contains more Todos than can be handled at once.
+ */
+public class TodoBatchTooLargeException extends Exception {
+  public TodoBatchTooLargeException(String message) {
+    super(message);
+  }
+}
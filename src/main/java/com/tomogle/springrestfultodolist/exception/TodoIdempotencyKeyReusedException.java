@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where an idempotency key already used to create one Todo is given for creating a different one.
+ */
+public class TodoIdempotencyKeyReusedException extends Exception {
+  public TodoIdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
@@ -2,9 +2,32 @@ package com.tomogle.springrestfultodolist.exception;
 
 /**
  * Represents the case where todos cannot be found in the data store.
+ * <p>
+ * Thrown for every request for a Todo that does not exist, which is an expected outcome rather than a fault, so it
+ * records no stack trace, which would be the most expensive part of the request and is never logged.
  */
 public class TodoNotFoundException extends Exception {
+
+  private final String id;
+
   public TodoNotFoundException(String message) {
-    super(message);
+    this(message, null);
+  }
+
+  private TodoNotFoundException(String message, String id) {
+    super(message, null, false, false);
+    this.id = id;
+  }
+
+  /**
+   * @return the exception for the Todo with the given ID, whose message is only built if it is asked for
+   */
+  public static TodoNotFoundException forId(String id) {
+    return new TodoNotFoundException(null, id);
+  }
+
+  @Override
+  public String getMessage() {
+    return id == null ? super.getMessage() : "Could not find Todo with ID ".concat(id);
   }
 }
@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a search cannot be made yet, as the search index is still being built.
+ */
+public class TodoSearchNotReadyException extends Exception {
+  public TodoSearchNotReadyException(String message) {
+    super(message);
+  }
+}
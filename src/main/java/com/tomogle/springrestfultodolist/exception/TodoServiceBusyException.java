@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a request cannot be taken on because too many are already waiting to be handled.
+ */
+public class TodoServiceBusyException extends Exception {
+  public TodoServiceBusyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,10 @@
+package com.tomogle.springrestfultodolist.exception;
+
+/**
+ * Represents the case where a Todo was not at the version expected by a conditional update.
+ */
+public class TodoVersionConflictException extends Exception {
+  public TodoVersionConflictException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,67 @@
+package com.tomogle.springrestfultodolist.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each request by the endpoint that handled it and the response status, and counts those that failed. Timers
+ * are named {@code todo.endpoint.<method>.<path pattern>.<status>} and error counters
+ * {@code todo.endpoint.<method>.<path pattern>.errors}. A request handled asynchronously, such as a streamed response,
+ * is timed until the response is complete.
+ */
+class EndpointMetricsInterceptor extends HandlerInterceptorAdapter implements AsyncHandlerInterceptor {
+
+  static final String PREFIX = "todo.endpoint.";
+  private static final String START_TIME_ATTRIBUTE = EndpointMetricsInterceptor.class.getName() + ".startTime";
+  private static final String UNMAPPED = "unmapped";
+
+  private final MetricRegistry metricRegistry;
+
+  public EndpointMetricsInterceptor(MetricRegistry metricRegistry) {
+    this.metricRegistry = metricRegistry;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // An asynchronous dispatch passes through again, but keeps the time the request first arrived
+    if (request.getAttribute(START_TIME_ATTRIBUTE) == null) {
+      request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              Exception ex) {
+    Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
+    if (startTime == null) {
+      return;
+    }
+    long elapsed = System.nanoTime() - startTime;
+    int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+    String endpoint = PREFIX + request.getMethod() + "." + endpointName(request);
+    metricRegistry.timer(endpoint + "." + status).update(elapsed, TimeUnit.NANOSECONDS);
+    if (status >= 400) {
+      metricRegistry.counter(endpoint + ".errors").inc();
+    }
+  }
+
+  /**
+   * Names the endpoint by its path pattern rather than the request path, so there is one timer for every Todo rather
+   * than one for each, with slashes as dots and path variables named without braces.
+   */
+  private static String endpointName(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return UNMAPPED;
+    }
+    String name = pattern.toString().replaceAll("[{}]", "").replace('/', '.');
+    return name.startsWith(".") ? name.substring(1) : name;
+  }
+}
@@ -0,0 +1,25 @@
+package com.tomogle.springrestfultodolist.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Times the API endpoints. The timers are held in the Dropwizard MetricRegistry, which the actuator exposes through
+ * its metrics endpoint with their percentiles, e.g. {@code todo.endpoint.GET.api.todo.id.200.snapshot.99thPercentile}.
+ */
+@Configuration
+class MetricsConfiguration extends WebMvcConfigurerAdapter {
+
+  @Autowired
+  private MetricRegistry metricRegistry;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new EndpointMetricsInterceptor(metricRegistry))
+            .addPathPatterns(Constants.BASE_API_PATH + "/**");
+  }
+}
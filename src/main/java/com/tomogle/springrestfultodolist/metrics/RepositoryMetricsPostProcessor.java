@@ -0,0 +1,107 @@
+package com.tomogle.springrestfultodolist.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Wraps the TodoRepository so that each call is timed by method, as {@code todo.repository.<method>}, and each call
+ * that throws is counted, as {@code todo.repository.<method>.errors}. A Stream returned by the repository is timed
+ * until it is closed, as that is when the data store has finished reading.
+ */
+@Component
+class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+  static final String PREFIX = "todo.repository.";
+
+  private final MetricRegistry metricRegistry;
+
+  @Autowired
+  public RepositoryMetricsPostProcessor(MetricRegistry metricRegistry) {
+    this.metricRegistry = metricRegistry;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (!(bean instanceof TodoRepository)) {
+      return bean;
+    }
+    // Keeps every interface of the repository, such as DisposableBean, so its lifecycle callbacks still work
+    return Proxy.newProxyInstance(bean.getClass().getClassLoader(), ClassUtils.getAllInterfaces(bean),
+            new TimingInvocationHandler((TodoRepository) bean));
+  }
+
+  private class TimingInvocationHandler implements InvocationHandler {
+
+    private final TodoRepository repository;
+    private final Map<Method, MethodMetrics> methodMetrics = new ConcurrentHashMap<>();
+
+    TimingInvocationHandler(TodoRepository repository) {
+      this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (!isRepositoryMethod(method)) {
+        try {
+          return method.invoke(repository, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+      MethodMetrics metrics = methodMetrics.computeIfAbsent(method, MethodMetrics::new);
+      long startTime = System.nanoTime();
+      try {
+        Object result = method.invoke(repository, args);
+        if (result instanceof Stream) {
+          return ((Stream<?>) result).onClose(() -> metrics.record(startTime));
+        }
+        metrics.record(startTime);
+        return result;
+      } catch (InvocationTargetException e) {
+        metrics.record(startTime);
+        metrics.errors.inc();
+        throw e.getCause();
+      }
+    }
+
+    private boolean isRepositoryMethod(Method method) {
+      Class<?> declaringClass = method.getDeclaringClass();
+      return declaringClass != Object.class && declaringClass.isAssignableFrom(TodoRepository.class);
+    }
+  }
+
+  private class MethodMetrics {
+
+    private final Timer timer;
+    private final Counter errors;
+
+    MethodMetrics(Method method) {
+      this.timer = metricRegistry.timer(PREFIX + method.getName());
+      this.errors = metricRegistry.counter(PREFIX + method.getName() + ".errors");
+    }
+
+    void record(long startTime) {
+      timer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+  }
+}
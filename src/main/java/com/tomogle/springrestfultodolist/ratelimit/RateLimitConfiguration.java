@@ -0,0 +1,56 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the rate of API requests from each client when {@code todo.rateLimit.enabled} is set. Each client may make
+ * {@code todo.rateLimit.read.perSecond} reads and {@code todo.rateLimit.write.perSecond} writes a second, in bursts of
+ * up to {@code todo.rateLimit.read.burst} and {@code todo.rateLimit.write.burst}. Clients are limited by address,
+ * unless they give one of the comma separated API keys in {@code todo.rateLimit.apiKeys}. The number of clients being
+ * limited is given by the gauges {@code todo.rateLimit.read.clients} and {@code todo.rateLimit.write.clients}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.rateLimit.enabled", havingValue = "true")
+class RateLimitConfiguration extends WebMvcConfigurerAdapter {
+
+  @Autowired
+  private MetricRegistry metricRegistry;
+
+  @Value("${todo.rateLimit.read.perSecond:100}")
+  private double readsPerSecond;
+  @Value("${todo.rateLimit.read.burst:200}")
+  private int readBurst;
+  @Value("${todo.rateLimit.write.perSecond:20}")
+  private double writesPerSecond;
+  @Value("${todo.rateLimit.write.burst:40}")
+  private int writeBurst;
+  @Value("${todo.rateLimit.maxClients:10000}")
+  private int maxClients;
+  @Value("${todo.rateLimit.apiKeys:}")
+  private String[] apiKeys;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    RateLimiter readLimiter = new RateLimiter(readsPerSecond, readBurst, maxClients, System::nanoTime);
+    RateLimiter writeLimiter = new RateLimiter(writesPerSecond, writeBurst, maxClients, System::nanoTime);
+    metricRegistry.register(RateLimitInterceptor.PREFIX + "read.clients", (Gauge<Integer>) readLimiter::getClientCount);
+    metricRegistry.register(RateLimitInterceptor.PREFIX + "write.clients",
+            (Gauge<Integer>) writeLimiter::getClientCount);
+    Set<String> knownApiKeys = Arrays.stream(apiKeys).map(String::trim).filter(key -> !key.isEmpty())
+            .collect(Collectors.toSet());
+    registry.addInterceptor(new RateLimitInterceptor(readLimiter, writeLimiter, knownApiKeys, metricRegistry))
+            .addPathPatterns(Constants.BASE_API_PATH + "/**");
+  }
+}
@@ -0,0 +1,87 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns away requests from clients that have used up their requests with a {@code 429 Too Many Requests} response,
+ * whose {@code Retry-After} header gives the number of seconds until they may make another. Reads and writes are
+ * limited separately, so a client writing heavily can still read. Clients are told apart by their address, or by the
+ * API key in their {@value #API_KEY_HEADER} header if it is one of the keys configured. An unknown key is ignored, as
+ * nothing else checks it, and a client could otherwise give a new key with each request to get a new allowance.
+ * <p>
+ * Requests turned away are counted as {@code todo.rateLimit.read.rejected} and {@code todo.rateLimit.write.rejected}.
+ */
+class RateLimitInterceptor extends HandlerInterceptorAdapter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RateLimitInterceptor.class);
+  static final String PREFIX = "todo.rateLimit.";
+  static final String API_KEY_HEADER = "X-API-Key";
+
+  private final RateLimiter readLimiter;
+  private final RateLimiter writeLimiter;
+  private final Set<String> apiKeys;
+  private final Counter readsRejected;
+  private final Counter writesRejected;
+
+  public RateLimitInterceptor(RateLimiter readLimiter, RateLimiter writeLimiter, MetricRegistry metricRegistry) {
+    this(readLimiter, writeLimiter, Collections.emptySet(), metricRegistry);
+  }
+
+  /**
+   * @param apiKeys the API keys clients may be told apart by, rather than by their address
+   */
+  public RateLimitInterceptor(RateLimiter readLimiter, RateLimiter writeLimiter, Set<String> apiKeys,
+                              MetricRegistry metricRegistry) {
+    this.readLimiter = readLimiter;
+    this.writeLimiter = writeLimiter;
+    this.apiKeys = apiKeys;
+    this.readsRejected = metricRegistry.counter(PREFIX + "read.rejected");
+    this.writesRejected = metricRegistry.counter(PREFIX + "write.rejected");
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // An asynchronous dispatch passes through again, but was already let in when the request first arrived
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    boolean read = isRead(request.getMethod());
+    String client = clientOf(request);
+    long waitNanos = (read ? readLimiter : writeLimiter).tryAcquire(client);
+    if (waitNanos == 0) {
+      return true;
+    }
+    (read ? readsRejected : writesRejected).inc();
+    LOG.debug("Rate limited {} {} from {}", request.getMethod(), request.getRequestURI(), client);
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(waitNanos)));
+    return false;
+  }
+
+  private static boolean isRead(String method) {
+    return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+  }
+
+  private String clientOf(HttpServletRequest request) {
+    String apiKey = request.getHeader(API_KEY_HEADER);
+    return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "address:" + request.getRemoteAddr();
+  }
+
+  private static long retryAfterSeconds(long waitNanos) {
+    long nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+    return (waitNanos + nanosPerSecond - 1) / nanosPerSecond;
+  }
+}
@@ -0,0 +1,80 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of requests from each client with a token bucket of its own, so one client using up its requests
+ * leaves every other client's untouched.
+ * <p>
+ * Buckets are held for at most {@code maxClients} clients. Full buckets are dropped to make room for new clients, as
+ * they are no different from new ones, and should every bucket still be in use the clients beyond the limit share a
+ * single bucket until room is made, so a flood of clients cannot grow the buckets held without bound.
+ */
+class RateLimiter {
+
+  private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final long nanosPerToken;
+  private final int capacity;
+  private final int maxClients;
+  private final LongSupplier nanoClock;
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final TokenBucket overflowBucket;
+  private final AtomicLong lastSweepNanos;
+
+  /**
+   * @param tokensPerSecond the steady rate of requests allowed from each client
+   * @param capacity the number of requests a client may make at once after not making any for a while
+   */
+  RateLimiter(double tokensPerSecond, int capacity, int maxClients, LongSupplier nanoClock) {
+    this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+    this.capacity = capacity;
+    this.maxClients = maxClients;
+    this.nanoClock = nanoClock;
+    long now = nanoClock.getAsLong();
+    this.overflowBucket = new TokenBucket(nanosPerToken, capacity, now);
+    this.lastSweepNanos = new AtomicLong(now - SWEEP_INTERVAL_NANOS);
+  }
+
+  /**
+   * Takes one of the client's requests if it has any left.
+   *
+   * @return 0 if the request may go ahead, otherwise how many nanoseconds until the client may make another
+   */
+  long tryAcquire(String client) {
+    long now = nanoClock.getAsLong();
+    return bucketFor(client, now).tryTake(now);
+  }
+
+  int getClientCount() {
+    return buckets.size();
+  }
+
+  private TokenBucket bucketFor(String client, long now) {
+    TokenBucket bucket = buckets.get(client);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxClients) {
+      sweep(now);
+      if (buckets.size() >= maxClients) {
+        return overflowBucket;
+      }
+    }
+    return buckets.computeIfAbsent(client, key -> new TokenBucket(nanosPerToken, capacity, now));
+  }
+
+  /**
+   * Drops the full buckets, at most once a second however many new clients arrive, as it visits every bucket.
+   */
+  private void sweep(long now) {
+    long lastSweep = lastSweepNanos.get();
+    if (now - lastSweep >= SWEEP_INTERVAL_NANOS && lastSweepNanos.compareAndSet(lastSweep, now)) {
+      buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket refilled at a steady rate up to a fixed capacity, whose whole state is the time at which it will next
+ * be full. Taking a token pushes that time on by the refill interval, which is refused if it would be more than a full
+ * bucket's worth of intervals from now. Being a single value it is updated with compare-and-set, so requests from the
+ * same client never wait on each other for a lock.
+ */
+class TokenBucket {
+
+  private final long nanosPerToken;
+  private final long capacityNanos;
+  private final AtomicLong fullAtNanos;
+
+  TokenBucket(long nanosPerToken, int capacity, long nowNanos) {
+    this.nanosPerToken = nanosPerToken;
+    this.capacityNanos = nanosPerToken * capacity;
+    this.fullAtNanos = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes a token if one is available.
+   *
+   * @return 0 if a token was taken, otherwise how many nanoseconds until one will be available
+   */
+  long tryTake(long nowNanos) {
+    while (true) {
+      long fullAt = fullAtNanos.get();
+      long nextFullAt = Math.max(fullAt, nowNanos) + nanosPerToken;
+      long waitNanos = nextFullAt - nowNanos - capacityNanos;
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+      if (fullAtNanos.compareAndSet(fullAt, nextFullAt)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * @return whether the bucket is full, in which case it is no different from a new bucket and need not be kept
+   */
+  boolean isFull(long nowNanos) {
+    return fullAtNanos.get() - nowNanos <= 0;
+  }
+}
@@ -0,0 +1,251 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoRepository holding every Todo in memory, for deployments without MongoDB. Selected with the {@code inmemory}
+ * profile.
+ * <p>
+ * Todos are held in a concurrent skip list ordered by ID, so reads take no locks and pages are read in the same order
+ * as from MongoDB. IDs are generated as ObjectIds for the same reason. If a snapshot file is configured, every Todo is
+ * written to it periodically and on shutdown, and read back on startup, so a restart loses at most the changes made
+ * since the last snapshot.
+ * <p>
+ * If a content compression threshold is configured, content longer than it is held compressed, and only inflated
+ * when it is read, so the heap held by each Todo and the size of the snapshot drop with the content's size.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryTodoRepository implements TodoRepository, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InMemoryTodoRepository.class);
+
+  private final ConcurrentNavigableMap<String, Todo> todos = new ConcurrentSkipListMap<>();
+  private final Path snapshotFile;
+  private final ScheduledExecutorService snapshotScheduler;
+  private final int compressContentAboveChars;
+  private final AtomicLong changes = new AtomicLong();
+  // Kept alongside the map, as counting a skip list walks every entry
+  private final AtomicLong size = new AtomicLong();
+  private long changesAtLastSnapshot;
+
+  /**
+   * @param snapshotFile the file to snapshot to and recover from, or null to hold Todos only in memory
+   * @param snapshotIntervalSeconds how often to snapshot, or 0 to snapshot only on shutdown
+   */
+  public InMemoryTodoRepository(Path snapshotFile, long snapshotIntervalSeconds) throws IOException {
+    this(snapshotFile, snapshotIntervalSeconds, 0);
+  }
+
+  /**
+   * @param compressContentAboveChars the length above which content is held compressed, or 0 to never compress it
+   */
+  public InMemoryTodoRepository(Path snapshotFile, long snapshotIntervalSeconds, int compressContentAboveChars)
+          throws IOException {
+    this.snapshotFile = snapshotFile;
+    this.compressContentAboveChars = compressContentAboveChars;
+    if (snapshotFile != null) {
+      for (Todo todo : MappedTodoSnapshot.read(snapshotFile)) {
+        todos.put(todo.getId(), todo);
+      }
+      size.set(todos.size());
+      LOG.info("Recovered {} Todos from {}", todos.size(), snapshotFile);
+    }
+    if (snapshotFile != null && snapshotIntervalSeconds > 0) {
+      snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-snapshot");
+        thread.setDaemon(true);
+        return thread;
+      });
+      snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfChanged, snapshotIntervalSeconds,
+              snapshotIntervalSeconds, TimeUnit.SECONDS);
+    } else {
+      snapshotScheduler = null;
+    }
+  }
+
+  @Autowired
+  public InMemoryTodoRepository(@Value("${todo.inmemory.snapshotFile:todos.snapshot}") String snapshotFile,
+                                @Value("${todo.inmemory.snapshotIntervalSeconds:30}") long snapshotIntervalSeconds,
+                                @Value("${todo.content.compressAboveChars:0}") int compressContentAboveChars)
+          throws IOException {
+    this(snapshotFile.isEmpty() ? null : Paths.get(snapshotFile), snapshotIntervalSeconds, compressContentAboveChars);
+  }
+
+  @Override
+  public List<Todo> findAll() {
+    return new ArrayList<>(todos.values());
+  }
+
+  @Override
+  public Optional<Todo> find(String id) {
+    return Optional.ofNullable(todos.get(id));
+  }
+
+  @Override
+  public long count() {
+    return size.get();
+  }
+
+  @Override
+  public Optional<Todo> find(String id, Set<TodoField> fields) {
+    return find(id).map(todo -> todo.withOnly(fields));
+  }
+
+  @Override
+  public Todo save(Todo todoToSave) {
+    String id = todoToSave.getId() != null ? todoToSave.getId() : new ObjectId().toHexString();
+    boolean[] created = new boolean[1];
+    Todo saved = todos.compute(id, (key, existing) -> {
+      // Set on every attempt, as a skip list may apply the function more than once
+      created[0] = existing == null;
+      return nextVersion(id, todoToSave, existing);
+    });
+    if (created[0]) {
+      size.incrementAndGet();
+    }
+    changes.incrementAndGet();
+    return saved;
+  }
+
+  @Override
+  public Optional<Todo> saveIfVersion(Todo todoToSave, long expectedVersion) {
+    return replaceIfVersion(todoToSave.getId(), expectedVersion, existing -> todoToSave);
+  }
+
+  @Override
+  public Optional<Todo> saveFields(Todo todoToSave, Set<TodoField> fields) {
+    String id = todoToSave.getId();
+    Todo saved = todos.computeIfPresent(id,
+            (key, existing) -> nextVersion(id, existing.withFieldsFrom(todoToSave, fields), existing));
+    if (saved != null) {
+      changes.incrementAndGet();
+    }
+    return Optional.ofNullable(saved);
+  }
+
+  @Override
+  public Optional<Todo> saveFieldsIfVersion(Todo todoToSave, Set<TodoField> fields, long expectedVersion) {
+    return replaceIfVersion(todoToSave.getId(), expectedVersion,
+            existing -> existing.withFieldsFrom(todoToSave, fields));
+  }
+
+  /**
+   * Replaces the Todo with the one the change makes from it, if it is at the expected version.
+   */
+  private Optional<Todo> replaceIfVersion(String id, long expectedVersion, UnaryOperator<Todo> change) {
+    Todo existing = todos.get(id);
+    if (existing == null || existing.getVersion() == null || existing.getVersion() != expectedVersion) {
+      return Optional.empty();
+    }
+    Todo saved = nextVersion(existing.getId(), change.apply(existing), existing);
+    // Only replaces the Todo if no other save has happened since it was read
+    if (!todos.replace(existing.getId(), existing, saved)) {
+      return Optional.empty();
+    }
+    changes.incrementAndGet();
+    return Optional.of(saved);
+  }
+
+  @Override
+  public List<Todo> findPage(String afterId, int limit, Set<TodoField> fields) {
+    Collection<Todo> after = afterId == null ? todos.values() : todos.tailMap(afterId, false).values();
+    return after.stream().limit(limit).map(todo -> todo.withOnly(fields)).collect(Collectors.toList());
+  }
+
+  @Override
+  public Stream<Todo> streamAll(Set<TodoField> fields) {
+    return todos.values().stream().map(todo -> todo.withOnly(fields));
+  }
+
+  @Override
+  public Optional<Todo> findAndRemove(String id) {
+    Todo removed = todos.remove(id);
+    if (removed != null) {
+      size.decrementAndGet();
+      changes.incrementAndGet();
+    }
+    return Optional.ofNullable(removed);
+  }
+
+  @Override
+  public List<Todo> saveAll(List<Todo> todosToSave) {
+    return todosToSave.stream().map(this::save).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    List<Todo> removed = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      findAndRemove(id).ifPresent(removed::add);
+    }
+    return removed;
+  }
+
+  /**
+   * Writes every Todo to the snapshot file, if there is one. Todos changed while the snapshot is being written may or
+   * may not be included, as with any read of the whole repository.
+   */
+  public synchronized void snapshot() throws IOException {
+    if (snapshotFile == null) {
+      return;
+    }
+    long changesBeforeSnapshot = changes.get();
+    // Copied once, as the snapshot sizes its file from the Todos before writing them, while saves carry on
+    MappedTodoSnapshot.write(snapshotFile, new ArrayList<>(todos.values()));
+    changesAtLastSnapshot = changesBeforeSnapshot;
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    if (snapshotScheduler != null) {
+      snapshotScheduler.shutdown();
+    }
+    snapshot();
+  }
+
+  private synchronized void snapshotIfChanged() {
+    if (changes.get() == changesAtLastSnapshot) {
+      return;
+    }
+    try {
+      snapshot();
+    } catch (IOException | RuntimeException e) {
+      // Caught whatever the failure, as one escaping would cancel every later snapshot
+      LOG.error("Failed to snapshot Todos to " + snapshotFile, e);
+    }
+  }
+
+  private Todo nextVersion(String id, Todo todo, Todo existing) {
+    long version = existing == null || existing.getVersion() == null ? 1L : existing.getVersion() + 1;
+    return Todo.of(id, todo.getTitle(), todo.getTodoContent(), version).withContentCompressedAbove(
+            compressContentAboveChars);
+  }
+}
@@ -0,0 +1,669 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * TodoRepository storing Todos in an append-only log on local disk, for deployments without MongoDB. Selected with
+ * the {@code logstore} profile.
+ * <p>
+ * Every save and delete is appended to the active log segment by a single writer thread. Writes waiting at the same
+ * time are appended together with one write, and with {@link FsyncPolicy#ALWAYS} one fsync, before any of them
+ * return, so concurrent writers share the cost of reaching the disk. An in-memory index, ordered by ID like MongoDB,
+ * holds where the latest record for each Todo is, so a read is a single positioned read of the file.
+ * <p>
+ * Once a segment is full a new one is started. Older segments that are mostly superseded records are compacted in the
+ * background: their live records are copied to a new segment, and the old segment is deleted once the index points at
+ * the copies. At startup the index is rebuilt by scanning each segment sequentially through a memory mapping.
+ * <p>
+ * If a content compression threshold is configured, content longer than it is compressed by the thread saving it,
+ * and recorded compressed, so records shrink with the content and a Todo read back only inflates its content when the
+ * content itself is read.
+ */
+@Repository
+@Profile("logstore")
+public class LogStructuredTodoRepository implements TodoRepository, DisposableBean {
+
+  /**
+   * When appended records are forced to disk.
+   */
+  public enum FsyncPolicy {
+    /** Before a write returns, so an acknowledged write survives a power failure. */
+    ALWAYS,
+    /** Periodically, so a power failure may lose the writes since the last fsync. */
+    INTERVAL,
+    /** Only when a segment is full, leaving it to the operating system otherwise. */
+    NEVER
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogStructuredTodoRepository.class);
+  private static final int MAX_WRITE_BATCH = 1000;
+  private static final double COMPACTION_LIVE_RATIO = 0.5;
+
+  private final Path directory;
+  private final long segmentSizeBytes;
+  private final FsyncPolicy fsyncPolicy;
+  private final int compressContentAboveChars;
+  private final ConcurrentNavigableMap<String, Location> index = new ConcurrentSkipListMap<>();
+  // Kept alongside the index, as counting a skip list walks every entry
+  private final AtomicLong liveTodos = new AtomicLong();
+  private final ConcurrentMap<Integer, TodoLogSegment> segments = new ConcurrentHashMap<>();
+  private final AtomicInteger nextSegmentId = new AtomicInteger();
+  private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final ScheduledExecutorService maintenance;
+  private volatile TodoLogSegment activeSegment;
+  private volatile boolean closed;
+  // Held while checking closed and enqueueing, so nothing is enqueued behind the STOP that destroy enqueues
+  private final Object enqueueLock = new Object();
+  // Only used by the writer thread once started
+  private long nextSequence;
+
+  /**
+   * @param fsyncIntervalMillis how often to fsync with {@link FsyncPolicy#INTERVAL}
+   * @param compactionIntervalSeconds how often to look for segments to compact, or 0 to compact only when asked to
+   */
+  public LogStructuredTodoRepository(Path directory, long segmentSizeBytes, FsyncPolicy fsyncPolicy,
+                                     long fsyncIntervalMillis, long compactionIntervalSeconds) throws IOException {
+    this(directory, segmentSizeBytes, fsyncPolicy, fsyncIntervalMillis, compactionIntervalSeconds, 0);
+  }
+
+  /**
+   * @param compressContentAboveChars the length above which content is recorded compressed, or 0 to never compress it
+   */
+  public LogStructuredTodoRepository(Path directory, long segmentSizeBytes, FsyncPolicy fsyncPolicy,
+                                     long fsyncIntervalMillis, long compactionIntervalSeconds,
+                                     int compressContentAboveChars) throws IOException {
+    this.directory = directory;
+    this.segmentSizeBytes = segmentSizeBytes;
+    this.fsyncPolicy = fsyncPolicy;
+    this.compressContentAboveChars = compressContentAboveChars;
+    Files.createDirectories(directory);
+    recover();
+
+    writer = new Thread(this::writeLoop, "todo-log-writer");
+    writer.setDaemon(true);
+    writer.start();
+    maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "todo-log-maintenance");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+      maintenance.scheduleWithFixedDelay(this::forceActiveSegment, fsyncIntervalMillis, fsyncIntervalMillis,
+              TimeUnit.MILLISECONDS);
+    }
+    if (compactionIntervalSeconds > 0) {
+      maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalSeconds, compactionIntervalSeconds,
+              TimeUnit.SECONDS);
+    }
+  }
+
+  @Autowired
+  public LogStructuredTodoRepository(@Value("${todo.logstore.directory:todo-log}") String directory,
+                                     @Value("${todo.logstore.segmentSizeBytes:67108864}") long segmentSizeBytes,
+                                     @Value("${todo.logstore.fsync:ALWAYS}") FsyncPolicy fsyncPolicy,
+                                     @Value("${todo.logstore.fsyncIntervalMillis:1000}") long fsyncIntervalMillis,
+                                     @Value("${todo.logstore.compactionIntervalSeconds:60}")
+                                     long compactionIntervalSeconds,
+                                     @Value("${todo.content.compressAboveChars:0}") int compressContentAboveChars)
+          throws IOException {
+    this(Paths.get(directory), segmentSizeBytes, fsyncPolicy, fsyncIntervalMillis, compactionIntervalSeconds,
+            compressContentAboveChars);
+  }
+
+  @Override
+  public List<Todo> findAll() {
+    return index.keySet().stream().map(this::find).filter(Optional::isPresent).map(Optional::get)
+            .collect(Collectors.toList());
+  }
+
+  @Override
+  public Optional<Todo> find(String id) {
+    // A record can move between finding it in the index and reading it, if its segment is compacted meanwhile
+    while (true) {
+      Location location = index.get(id);
+      if (location == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(location.segment.read(location.offset, location.length).getTodo());
+      } catch (ClosedChannelException e) {
+        if (index.get(id) == location) {
+          throw failure(format("reading Todo %s", id), e);
+        }
+      } catch (IOException e) {
+        throw failure(format("reading Todo %s", id), e);
+      }
+    }
+  }
+
+  @Override
+  public long count() {
+    return liveTodos.get();
+  }
+
+  @Override
+  public Optional<Todo> find(String id, Set<TodoField> fields) {
+    return find(id).map(todo -> todo.withOnly(fields));
+  }
+
+  @Override
+  public Todo save(Todo todoToSave) {
+    String id = todoToSave.getId() != null ? todoToSave.getId() : new ObjectId().toHexString();
+    return submit(new Write(id, compressed(todoToSave), null)).get();
+  }
+
+  @Override
+  public Optional<Todo> saveIfVersion(Todo todoToSave, long expectedVersion) {
+    return submit(new Write(todoToSave.getId(), compressed(todoToSave), expectedVersion));
+  }
+
+  /**
+   * Appends the whole Todo with the given fields changed, as each record holds a whole Todo so any one can be read or
+   * recovered alone.
+   */
+  @Override
+  public Optional<Todo> saveFields(Todo todoToSave, Set<TodoField> fields) {
+    return submit(new Write(todoToSave.getId(), compressed(todoToSave), fields, null));
+  }
+
+  @Override
+  public Optional<Todo> saveFieldsIfVersion(Todo todoToSave, Set<TodoField> fields, long expectedVersion) {
+    return submit(new Write(todoToSave.getId(), compressed(todoToSave), fields, expectedVersion));
+  }
+
+  @Override
+  public List<Todo> findPage(String afterId, int limit, Set<TodoField> fields) {
+    Collection<String> ids = afterId == null ? index.keySet() : index.tailMap(afterId, false).keySet();
+    return ids.stream().map(this::find).filter(Optional::isPresent).limit(limit)
+            .map(todo -> todo.get().withOnly(fields)).collect(Collectors.toList());
+  }
+
+  @Override
+  public Stream<Todo> streamAll(Set<TodoField> fields) {
+    return index.keySet().stream().map(this::find).filter(Optional::isPresent)
+            .map(todo -> todo.get().withOnly(fields));
+  }
+
+  @Override
+  public Optional<Todo> findAndRemove(String id) {
+    return submit(new Write(id, null, null));
+  }
+
+  @Override
+  public List<Todo> saveAll(List<Todo> todosToSave) {
+    List<Write> writes = todosToSave.stream()
+            .map(todo -> new Write(todo.getId() != null ? todo.getId() : new ObjectId().toHexString(),
+                    compressed(todo), null))
+            .collect(Collectors.toList());
+    return submitAll(writes).stream().map(Optional::get).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    List<Write> writes = ids.stream().map(id -> new Write(id, null, null)).collect(Collectors.toList());
+    return submitAll(writes).stream().filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
+  }
+
+  /**
+   * Compacts every full segment in which fewer than half of the bytes are the latest records for their Todos.
+   */
+  public synchronized void compact() throws IOException {
+    List<TodoLogSegment> candidates = segments.values().stream()
+            .filter(segment -> segment != activeSegment)
+            .filter(segment -> segment.liveBytes().get() < segment.size() * COMPACTION_LIVE_RATIO)
+            .sorted((first, second) -> Integer.compare(first.getId(), second.getId()))
+            .collect(Collectors.toList());
+    for (TodoLogSegment segment : candidates) {
+      compact(segment);
+    }
+  }
+
+  @Override
+  public void destroy() throws IOException, InterruptedException {
+    maintenance.shutdown();
+    maintenance.awaitTermination(1, TimeUnit.MINUTES);
+    synchronized (enqueueLock) {
+      closed = true;
+      commands.add(Command.STOP);
+    }
+    writer.join();
+    for (Command command : commands) {
+      if (command instanceof Write) {
+        ((Write) command).result.completeExceptionally(new IllegalStateException("The Todo log has been closed"));
+      }
+    }
+    activeSegment.force();
+    for (TodoLogSegment segment : segments.values()) {
+      segment.close();
+    }
+  }
+
+  /**
+   * Rebuilds the index by scanning every segment, keeping the record with the highest sequence number for each ID.
+   */
+  private void recover() throws IOException {
+    TreeMap<Integer, TodoLogSegment> found = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        int id = TodoLogSegment.idOf(file);
+        if (id >= 0) {
+          found.put(id, TodoLogSegment.open(directory, id));
+        }
+      }
+    }
+    Map<String, Location> latest = new HashMap<>();
+    long maxSequence = 0;
+    for (TodoLogSegment segment : found.values()) {
+      long[] segmentMaxSequence = {maxSequence};
+      segment.scan((record, offset, length, encoded) -> {
+        Location existing = latest.get(record.getId());
+        if (existing == null || record.getSequence() > existing.sequence) {
+          latest.put(record.getId(), new Location(record, segment, offset, length));
+        }
+        segmentMaxSequence[0] = Math.max(segmentMaxSequence[0], record.getSequence());
+        segment.includeSequence(record.getSequence());
+      });
+      maxSequence = segmentMaxSequence[0];
+      segments.put(segment.getId(), segment);
+    }
+    for (Map.Entry<String, Location> entry : latest.entrySet()) {
+      Location location = entry.getValue();
+      if (!location.isTombstone()) {
+        index.put(entry.getKey(), location);
+        location.segment.liveBytes().addAndGet(location.length);
+      }
+    }
+    liveTodos.set(index.size());
+    nextSequence = maxSequence + 1;
+    nextSegmentId.set(found.isEmpty() ? 0 : found.lastKey() + 1);
+    activeSegment = found.isEmpty() ? newSegment() : found.lastEntry().getValue();
+    LOG.info("Recovered {} Todos from {} log segments in {}", index.size(), segments.size(), directory);
+  }
+
+  private TodoLogSegment newSegment() throws IOException {
+    TodoLogSegment segment = TodoLogSegment.open(directory, nextSegmentId.getAndIncrement());
+    segments.put(segment.getId(), segment);
+    return segment;
+  }
+
+  private Todo compressed(Todo todo) {
+    return todo.withContentCompressedAbove(compressContentAboveChars);
+  }
+
+  private Optional<Todo> submit(Write write) {
+    return submitAll(Collections.singletonList(write)).get(0);
+  }
+
+  /**
+   * Hands the writes to the writer thread and waits until they have been written, and with
+   * {@link FsyncPolicy#ALWAYS} forced to disk.
+   */
+  private List<Optional<Todo>> submitAll(List<Write> writes) {
+    enqueue(writes);
+    List<Optional<Todo>> results = new ArrayList<>(writes.size());
+    try {
+      for (Write write : writes) {
+        results.add(write.result.join());
+      }
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+    return results;
+  }
+
+  /**
+   * Hands the commands to the writer thread, unless the log has been closed, in which case the writer thread may
+   * already have stopped, and would never take them.
+   */
+  private void enqueue(Collection<? extends Command> toEnqueue) {
+    synchronized (enqueueLock) {
+      if (closed) {
+        throw new IllegalStateException("The Todo log has been closed");
+      }
+      commands.addAll(toEnqueue);
+    }
+  }
+
+  private void writeLoop() {
+    List<Command> batch = new ArrayList<>(MAX_WRITE_BATCH);
+    boolean stopping = false;
+    while (!stopping) {
+      try {
+        batch.add(commands.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      commands.drainTo(batch, MAX_WRITE_BATCH - 1);
+      List<Write> writes = new ArrayList<>(batch.size());
+      for (Command command : batch) {
+        if (command == Command.STOP) {
+          stopping = true;
+        } else if (command instanceof Write) {
+          writes.add((Write) command);
+        }
+      }
+      if (!writes.isEmpty()) {
+        try {
+          writeBatch(writes);
+        } catch (RuntimeException e) {
+          failAll(writes, failure("writing to the Todo log", e));
+        }
+      }
+      for (Command command : batch) {
+        if (command instanceof Relocation) {
+          relocate((Relocation) command);
+        }
+      }
+      batch.clear();
+    }
+  }
+
+  /**
+   * Appends a record for each write with one write to the active segment, and only then updates the index and
+   * completes the writes. Writes later in the batch see the effect of earlier ones on the same Todo.
+   */
+  private void writeBatch(List<Write> writes) {
+    TodoLogSegment segment;
+    try {
+      segment = segmentWithSpace();
+    } catch (IOException e) {
+      failAll(writes, failure("starting a new log segment", e));
+      return;
+    }
+    Map<String, Location> updated = new HashMap<>();
+    Map<String, Todo> updatedTodos = new HashMap<>();
+    List<ByteBuffer> records = new ArrayList<>(writes.size());
+    List<Location> locations = new ArrayList<>(writes.size());
+    long offset = segment.size();
+    long batchStartSequence = nextSequence;
+    for (Write write : writes) {
+      Location current = updated.containsKey(write.id) ? updated.get(write.id) : index.get(write.id);
+      if (current != null && current.isTombstone()) {
+        current = null;
+      }
+      TodoLogRecord record;
+      if (write.todo == null) {
+        if (current == null) {
+          write.outcome = Optional.empty();
+          continue;
+        }
+        record = TodoLogRecord.delete(nextSequence++, write.id, current.version);
+        Todo removed = updatedTodos.containsKey(write.id) ? updatedTodos.get(write.id) : find(write.id).get();
+        write.outcome = Optional.of(removed);
+        updatedTodos.remove(write.id);
+      } else {
+        if (write.expectedVersion != null && (current == null || current.version != write.expectedVersion)) {
+          write.outcome = Optional.empty();
+          continue;
+        }
+        Todo todo = write.todo;
+        if (write.fields != null) {
+          // Only changes the fields of a saved Todo, rather than creating one
+          if (current == null) {
+            write.outcome = Optional.empty();
+            continue;
+          }
+          Todo existing = updatedTodos.containsKey(write.id) ? updatedTodos.get(write.id) : find(write.id).get();
+          todo = existing.withFieldsFrom(write.todo, write.fields);
+        }
+        long version = current == null ? 1L : current.version + 1;
+        Todo saved = Todo.of(write.id, todo.getTitle(), todo.getTodoContent(), version);
+        record = TodoLogRecord.put(nextSequence++, saved);
+        write.outcome = Optional.of(saved);
+        updatedTodos.put(write.id, saved);
+      }
+      ByteBuffer encoded = record.encode();
+      Location location = new Location(record, segment, offset, encoded.remaining());
+      offset += encoded.remaining();
+      records.add(encoded);
+      locations.add(location);
+      updated.put(write.id, location);
+    }
+
+    try {
+      if (!records.isEmpty()) {
+        segment.append(records.toArray(new ByteBuffer[records.size()]));
+        segment.includeSequence(batchStartSequence);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+          segment.force();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      nextSequence = batchStartSequence;
+      failAll(writes, failure("appending to the Todo log", e));
+      return;
+    }
+
+    for (Map.Entry<String, Location> entry : updated.entrySet()) {
+      Location location = entry.getValue();
+      Location previous = location.isTombstone() ? index.remove(entry.getKey()) : index.put(entry.getKey(), location);
+      if (previous != null) {
+        previous.segment.liveBytes().addAndGet(-previous.length);
+      }
+      if (previous == null && !location.isTombstone()) {
+        liveTodos.incrementAndGet();
+      } else if (previous != null && location.isTombstone()) {
+        liveTodos.decrementAndGet();
+      }
+      if (!location.isTombstone()) {
+        location.segment.liveBytes().addAndGet(location.length);
+      }
+    }
+    for (Write write : writes) {
+      write.result.complete(write.outcome);
+    }
+  }
+
+  private TodoLogSegment segmentWithSpace() throws IOException {
+    if (activeSegment.size() >= segmentSizeBytes) {
+      activeSegment.force();
+      activeSegment = newSegment();
+    }
+    return activeSegment;
+  }
+
+  /**
+   * Copies the live records of the segment, and any tombstones still needed to hide older records in other segments,
+   * to a new segment. The writer thread then points the index at the copies and deletes the old segment.
+   * <p>
+   * A tombstone is needed while any other segment holds a record older than it. That is not only the segments with
+   * lower IDs, as a segment made by compaction has a higher ID than the active segment yet holds the older records it
+   * copied.
+   */
+  private void compact(TodoLogSegment segment) throws IOException {
+    TodoLogSegment replacement = newSegment();
+    long oldestOtherSequence = segments.values().stream()
+            .filter(other -> other != segment && other != replacement)
+            .mapToLong(TodoLogSegment::minSequence).min().orElse(Long.MAX_VALUE);
+    List<ByteBuffer> copies = new ArrayList<>();
+    Map<String, Location[]> moves = new HashMap<>();
+    long[] offset = {0};
+    segment.scan((record, recordOffset, length, encoded) -> {
+      Location current = index.get(record.getId());
+      boolean live = record.isPut() && current != null && current.segment == segment
+              && current.offset == recordOffset;
+      boolean neededTombstone = !record.isPut() && oldestOtherSequence < record.getSequence()
+              && (current == null || current.sequence < record.getSequence());
+      if (live || neededTombstone) {
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        copy.put(encoded).flip();
+        copies.add(copy);
+        replacement.includeSequence(record.getSequence());
+        if (live) {
+          moves.put(record.getId(), new Location[]{current, new Location(record, replacement, offset[0], length)});
+        }
+        offset[0] += length;
+      }
+    });
+    if (copies.isEmpty()) {
+      segments.remove(replacement.getId());
+      replacement.delete();
+    } else {
+      replacement.append(copies.toArray(new ByteBuffer[copies.size()]));
+      replacement.force();
+    }
+
+    Relocation relocation = new Relocation(segment, moves);
+    enqueue(Collections.singletonList(relocation));
+    relocation.done.join();
+    LOG.info("Compacted log segment {} of {} bytes to segment {} of {} bytes", segment.getId(), segment.size(),
+            replacement.getId(), replacement.size());
+  }
+
+  private void relocate(Relocation relocation) {
+    for (Map.Entry<String, Location[]> move : relocation.moves.entrySet()) {
+      Location from = move.getValue()[0];
+      Location to = move.getValue()[1];
+      // Records saved again since being copied stay where they are
+      if (index.replace(move.getKey(), from, to)) {
+        to.segment.liveBytes().addAndGet(to.length);
+      }
+    }
+    segments.remove(relocation.compacted.getId());
+    try {
+      relocation.compacted.delete();
+      relocation.done.complete(null);
+    } catch (IOException e) {
+      relocation.done.completeExceptionally(e);
+    }
+  }
+
+  private void forceActiveSegment() {
+    try {
+      activeSegment.force();
+    } catch (IOException e) {
+      LOG.error("Failed to fsync the Todo log", e);
+    }
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Failed to compact the Todo log", e);
+    }
+  }
+
+  private static void failAll(List<Write> writes, RuntimeException failure) {
+    for (Write write : writes) {
+      write.result.completeExceptionally(failure);
+    }
+  }
+
+  private static DataAccessResourceFailureException failure(String action, Exception cause) {
+    return new DataAccessResourceFailureException(format("Failed %s", action), cause);
+  }
+
+  /**
+   * Where the latest record for a Todo is, and the version and sequence number it was written with.
+   */
+  private static final class Location {
+    private final long sequence;
+    private final long version;
+    private final boolean tombstone;
+    private final TodoLogSegment segment;
+    private final long offset;
+    private final int length;
+
+    Location(TodoLogRecord record, TodoLogSegment segment, long offset, int length) {
+      this.sequence = record.getSequence();
+      this.version = record.getTodo().getVersion();
+      this.tombstone = !record.isPut();
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    boolean isTombstone() {
+      return tombstone;
+    }
+  }
+
+  private static class Command {
+    static final Command STOP = new Command();
+  }
+
+  /**
+   * A save, or a delete if there is no Todo, optionally only of some fields of a saved Todo, and optionally only if the
+   * Todo is at the expected version.
+   */
+  private static final class Write extends Command {
+    private final String id;
+    private final Todo todo;
+    private final Set<TodoField> fields;
+    private final Long expectedVersion;
+    private final CompletableFuture<Optional<Todo>> result = new CompletableFuture<>();
+    private Optional<Todo> outcome;
+
+    Write(String id, Todo todo, Long expectedVersion) {
+      this(id, todo, null, expectedVersion);
+    }
+
+    /**
+     * @param fields the fields of the Todo to save, or null to save the whole Todo
+     */
+    Write(String id, Todo todo, Set<TodoField> fields, Long expectedVersion) {
+      this.id = id;
+      this.todo = todo;
+      this.fields = fields;
+      this.expectedVersion = expectedVersion;
+    }
+  }
+
+  private static final class Relocation extends Command {
+    private final TodoLogSegment compacted;
+    private final Map<String, Location[]> moves;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    Relocation(TodoLogSegment compacted, Map<String, Location[]> moves) {
+      this.compacted = compacted;
+      this.moves = moves;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Reads and writes every Todo to a file through a memory mapping. A snapshot is written to a temporary file and then
+ * moved over the previous one, so a crash part way through leaves the previous snapshot in place.
+ * <p>
+ * The file holds a header of a magic number, a format version and the number of Todos, followed by each Todo as its
+ * version and then its ID, title and content as length prefixed UTF-8, with a length of -1 for null. Since format
+ * version 2 the content is preceded by whether it is compressed, and compressed content is written as it is held,
+ * as the length of its UTF-8 before compression and then the length prefixed compressed bytes, so it is read back
+ * without being inflated.
+ */
+final class MappedTodoSnapshot {
+
+  private static final int MAGIC = 0x546f646f;
+  private static final int FORMAT_VERSION = 2;
+  private static final int UNCOMPRESSED_FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+  private static final int NULL_LENGTH = -1;
+  private static final byte UNCOMPRESSED = 0;
+  private static final byte COMPRESSED = 1;
+
+  private MappedTodoSnapshot() {
+  }
+
+  static void write(Path snapshotFile, Collection<Todo> todos) throws IOException {
+    List<byte[][]> encoded = new ArrayList<>(todos.size());
+    long size = HEADER_SIZE;
+    for (Todo todo : todos) {
+      TodoContent content = todo.getTodoContent();
+      boolean compressed = content != null && content.isCompressed();
+      byte[][] fields = {utf8(todo.getId()), utf8(todo.getTitle()), compressed ? null : utf8(todo.getContent())};
+      encoded.add(fields);
+      size += Long.BYTES + 1 + 3 * Integer.BYTES;
+      for (byte[] field : fields) {
+        size += field == null ? 0 : field.length;
+      }
+      if (compressed) {
+        size += Integer.BYTES + content.getCompressed().remaining();
+      }
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException(format("A snapshot of %d bytes is too large to map", size));
+    }
+
+    Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(encoded.size());
+      int index = 0;
+      for (Todo todo : todos) {
+        TodoContent content = todo.getTodoContent();
+        byte[][] fields = encoded.get(index++);
+        buffer.putLong(todo.getVersion() == null ? 0L : todo.getVersion());
+        putUtf8(buffer, fields[0]);
+        putUtf8(buffer, fields[1]);
+        if (content != null && content.isCompressed()) {
+          ByteBuffer compressed = content.getCompressed();
+          buffer.put(COMPRESSED).putInt(content.getUtf8Length()).putInt(compressed.remaining()).put(compressed);
+        } else {
+          buffer.put(UNCOMPRESSED);
+          putUtf8(buffer, fields[2]);
+        }
+      }
+      buffer.force();
+    }
+    Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * @return every Todo in the snapshot, or none if there is no snapshot yet
+   */
+  static List<Todo> read(Path snapshotFile) throws IOException {
+    if (!Files.exists(snapshotFile)) {
+      return new ArrayList<>();
+    }
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int formatVersion = buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ? -1 : buffer.getInt();
+      if (formatVersion != FORMAT_VERSION && formatVersion != UNCOMPRESSED_FORMAT_VERSION) {
+        throw new IOException(format("%s is not a Todo snapshot", snapshotFile));
+      }
+      int count = buffer.getInt();
+      List<Todo> todos = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        long version = buffer.getLong();
+        String id = readUtf8(buffer);
+        String title = readUtf8(buffer);
+        TodoContent content;
+        if (formatVersion != UNCOMPRESSED_FORMAT_VERSION && buffer.get() == COMPRESSED) {
+          int utf8Length = buffer.getInt();
+          byte[] compressed = new byte[buffer.getInt()];
+          buffer.get(compressed);
+          content = TodoContent.ofCompressed(compressed, utf8Length);
+        } else {
+          content = TodoContent.of(readUtf8(buffer));
+        }
+        todos.add(Todo.of(id, title, content, version));
+      }
+      return todos;
+    }
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void putUtf8(MappedByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(NULL_LENGTH);
+    } else {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+  }
+
+  private static String readUtf8(MappedByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,108 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * TodoRepository over the Todos in a single MongoDB database, for the partitions of a PartitionedTodoRepository, which
+ * each have a database of their own rather than the one Spring Data creates its repository for.
+ */
+class MongoDatabaseTodoRepository implements TodoRepository, DisposableBean {
+
+  private final MongoOperations mongoOperations;
+  private final TodoRepositoryImpl customOperations;
+
+  /**
+   * @param mongoOperations operations on the database, which must read Todos with a TodoDocumentReader
+   */
+  MongoDatabaseTodoRepository(MongoOperations mongoOperations, int compressContentAboveChars,
+                              long supersededGraceSeconds, long pendingSweepSeconds) {
+    this.mongoOperations = mongoOperations;
+    this.customOperations = new TodoRepositoryImpl(mongoOperations, compressContentAboveChars, supersededGraceSeconds,
+            pendingSweepSeconds);
+  }
+
+  @Override
+  public List<Todo> findAll() {
+    return mongoOperations.findAll(Todo.class);
+  }
+
+  @Override
+  public Optional<Todo> find(String id) {
+    return customOperations.find(id, TodoField.ALL);
+  }
+
+  @Override
+  public long count() {
+    return mongoOperations.count(new Query(), Todo.class);
+  }
+
+  @Override
+  public Todo save(Todo toBeSaved) {
+    return customOperations.save(toBeSaved);
+  }
+
+  @Override
+  public Optional<Todo> saveIfVersion(Todo toBeSaved, long expectedVersion) {
+    return customOperations.saveIfVersion(toBeSaved, expectedVersion);
+  }
+
+  @Override
+  public Optional<Todo> saveFields(Todo toBeSaved, Set<TodoField> fields) {
+    return customOperations.saveFields(toBeSaved, fields);
+  }
+
+  @Override
+  public Optional<Todo> saveFieldsIfVersion(Todo toBeSaved, Set<TodoField> fields, long expectedVersion) {
+    return customOperations.saveFieldsIfVersion(toBeSaved, fields, expectedVersion);
+  }
+
+  @Override
+  public Optional<Todo> find(String id, Set<TodoField> fields) {
+    return customOperations.find(id, fields);
+  }
+
+  @Override
+  public List<Todo> findPage(String afterId, int limit, Set<TodoField> fields) {
+    return customOperations.findPage(afterId, limit, fields);
+  }
+
+  @Override
+  public Stream<Todo> streamAll(Set<TodoField> fields) {
+    return customOperations.streamAll(fields);
+  }
+
+  @Override
+  public Optional<Todo> findAndRemove(String id) {
+    return customOperations.findAndRemove(id);
+  }
+
+  @Override
+  public List<Todo> saveAll(List<Todo> todosToSave) {
+    return customOperations.saveAll(todosToSave);
+  }
+
+  @Override
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    return customOperations.findAndRemoveAll(ids);
+  }
+
+  @Override
+  public String normaliseId(String id) {
+    return customOperations.normaliseId(id);
+  }
+
+  @Override
+  public void destroy() {
+    customOperations.destroy();
+  }
+}
@@ -0,0 +1,29 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.mongodb.DB;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.convert.CustomConversions;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * Reads Todos from MongoDB with a TodoDocumentReader, through the conversions Spring Boot configures the MongoDB
+ * converter with. The MongoDbFactory is only looked up once content is loaded, so the profiles that leave MongoDB out
+ * never need one.
+ */
+@Configuration
+class MongoTodoConfiguration {
+
+  @Bean
+  public CustomConversions customConversions(ObjectFactory<MongoDbFactory> mongoDbFactory) {
+    return todoConversions(() -> mongoDbFactory.getObject().getDb());
+  }
+
+  static CustomConversions todoConversions(Supplier<DB> database) {
+    return new CustomConversions(Collections.singletonList(new TodoDocumentReader(database)));
+  }
+}
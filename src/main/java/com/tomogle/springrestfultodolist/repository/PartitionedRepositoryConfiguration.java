@@ -0,0 +1,79 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.codahale.metrics.MetricRegistry;
+import com.mongodb.Mongo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
+import org.springframework.data.mongodb.core.convert.CustomConversions;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spreads the Todos across several partitions with a PartitionedTodoRepository. With the {@code partitioned} profile
+ * each partition is one of the MongoDB databases listed in {@code todo.partitioned.databases}, and with the
+ * {@code partitioned-inmemory} profile, for trying out partitioning locally, each of the
+ * {@code todo.partitioned.partitions} partitions is an InMemoryTodoRepository.
+ */
+@Configuration
+class PartitionedRepositoryConfiguration {
+
+  @Autowired
+  private MetricRegistry metricRegistry;
+
+  @Bean
+  @Profile("partitioned")
+  public TodoRepository partitionedMongoTodoRepository(
+          Mongo mongo, @Value("${todo.partitioned.databases}") String[] databases,
+          @Value("${todo.content.compressAboveChars:0}") int compressContentAboveChars,
+          @Value("${todo.content.supersededGraceSeconds:60}") long supersededGraceSeconds,
+          @Value("${todo.content.pendingSweepSeconds:600}") long pendingSweepSeconds) {
+    Map<String, TodoRepository> partitions = new LinkedHashMap<>();
+    for (String database : databases) {
+      partitions.put(database.trim(), new MongoDatabaseTodoRepository(todoTemplate(mongo, database.trim()),
+              compressContentAboveChars, supersededGraceSeconds, pendingSweepSeconds));
+    }
+    return new PartitionedTodoRepository(partitions, TodoRepositoryImpl.ID_ORDER, metricRegistry);
+  }
+
+  @Bean
+  @Profile("partitioned-inmemory")
+  public TodoRepository partitionedInMemoryTodoRepository(
+          @Value("${todo.partitioned.partitions:4}") int partitionCount,
+          @Value("${todo.content.compressAboveChars:0}") int compressContentAboveChars) throws IOException {
+    Map<String, TodoRepository> partitions = new LinkedHashMap<>();
+    for (int partition = 0; partition < partitionCount; partition++) {
+      partitions.put("partition" + partition, new InMemoryTodoRepository((Path) null, 0, compressContentAboveChars));
+    }
+    return new PartitionedTodoRepository(partitions, Comparator.naturalOrder(), metricRegistry);
+  }
+
+  /**
+   * @return a MongoTemplate over the database that reads Todos, and loads their content, from that database, as the
+   *     one Spring Boot configures only reads from the default database
+   */
+  private static MongoTemplate todoTemplate(Mongo mongo, String database) {
+    MongoDbFactory mongoDbFactory = new SimpleMongoDbFactory(mongo, database);
+    CustomConversions conversions = MongoTodoConfiguration.todoConversions(mongoDbFactory::getDb);
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter =
+            new MappingMongoConverter(new DefaultDbRefResolver(mongoDbFactory), mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return new MongoTemplate(mongoDbFactory, converter);
+  }
+}
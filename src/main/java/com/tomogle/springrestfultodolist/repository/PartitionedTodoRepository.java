@@ -0,0 +1,307 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoRepository spreading the Todos across several partitions, each a TodoRepository of its own, such as a MongoDB
+ * database or an in-memory stand-in for one. Each Todo is held by the partition its ID hashes to on a consistent hash
+ * ring, so Todos are spread evenly, and adding a partition only moves the Todos that hash to it. Moving those Todos is
+ * left to whoever adds the partition, as until then they cannot be found.
+ * <p>
+ * Reads of a single Todo and writes go to its partition alone. Reads of every Todo, pages and counts are sent to every
+ * partition at once on the repository's own threads, and their results merged in ID order, so the order is the same
+ * as that of a single partition, whichever partition answers first.
+ * <p>
+ * Each partition's calls are timed by method, as {@code todo.partition.<partition>.<method>}, and the calls that throw
+ * are counted, as {@code todo.partition.<partition>.<method>.errors}. The number of Todos each holds is the gauge
+ * {@code todo.partition.<partition>.todos}, which shows how evenly they are spread.
+ */
+public class PartitionedTodoRepository implements TodoRepository, DisposableBean {
+
+  static final String PREFIX = "todo.partition.";
+  private static final int POINTS_PER_PARTITION = 128;
+
+  private final List<Partition> partitions;
+  private final NavigableMap<Long, Partition> ring = new TreeMap<>();
+  private final Comparator<String> idOrder;
+  private final ExecutorService scatterExecutor;
+
+  /**
+   * @param partitions the TodoRepository of each partition by its name, which places it on the hash ring, so must stay
+   *     the same for as long as it holds Todos
+   * @param idOrder the order the partitions find pages of Todos in
+   */
+  public PartitionedTodoRepository(Map<String, TodoRepository> partitions, Comparator<String> idOrder,
+                                   MetricRegistry metricRegistry) {
+    this.partitions = partitions.entrySet().stream()
+            .map(partition -> new Partition(partition.getKey(), partition.getValue(), metricRegistry))
+            .collect(Collectors.toList());
+    for (Partition partition : this.partitions) {
+      for (int point = 0; point < POINTS_PER_PARTITION; point++) {
+        ring.put(hash(partition.name + "#" + point), partition);
+      }
+      metricRegistry.register(PREFIX + partition.name + ".todos", (Gauge<Long>) partition.repository::count);
+    }
+    this.idOrder = idOrder;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.scatterExecutor = Executors.newFixedThreadPool(partitions.size(), runnable -> {
+      Thread thread = new Thread(runnable, "todo-partition-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public List<Todo> findAll() {
+    return scatter(partitions, partition -> partition.call("findAll", TodoRepository::findAll)).stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(Todo::getId, idOrder))
+            .collect(Collectors.toList());
+  }
+
+  @Override
+  public Optional<Todo> find(String id) {
+    return partitionOf(id).call("find", repository -> repository.find(id));
+  }
+
+  @Override
+  public long count() {
+    return scatter(partitions, partition -> partition.call("count", TodoRepository::count)).stream()
+            .mapToLong(Long::longValue)
+            .sum();
+  }
+
+  @Override
+  public Todo save(Todo todoToSave) {
+    Todo todo = withId(todoToSave);
+    return partitionOf(todo.getId()).call("save", repository -> repository.save(todo));
+  }
+
+  @Override
+  public Optional<Todo> saveIfVersion(Todo todoToSave, long expectedVersion) {
+    return partitionOf(todoToSave.getId())
+            .call("saveIfVersion", repository -> repository.saveIfVersion(todoToSave, expectedVersion));
+  }
+
+  @Override
+  public Optional<Todo> saveFields(Todo todoToSave, Set<TodoField> fields) {
+    return partitionOf(todoToSave.getId()).call("saveFields", repository -> repository.saveFields(todoToSave, fields));
+  }
+
+  @Override
+  public Optional<Todo> saveFieldsIfVersion(Todo todoToSave, Set<TodoField> fields, long expectedVersion) {
+    return partitionOf(todoToSave.getId()).call("saveFieldsIfVersion",
+            repository -> repository.saveFieldsIfVersion(todoToSave, fields, expectedVersion));
+  }
+
+  @Override
+  public Optional<Todo> find(String id, Set<TodoField> fields) {
+    return partitionOf(id).call("find", repository -> repository.find(id, fields));
+  }
+
+  /**
+   * Finds the page in every partition and takes the first Todos of them all, as any partition may hold them all.
+   */
+  @Override
+  public List<Todo> findPage(String afterId, int limit, Set<TodoField> fields) {
+    return scatter(partitions, partition -> partition.call("findPage",
+            repository -> repository.findPage(afterId, limit, fields))).stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(Todo::getId, idOrder))
+            .limit(limit)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Streams the Todos of one partition after another, so only one partition's cursor is open at a time. The Todos are
+   * not in ID order.
+   */
+  @Override
+  public Stream<Todo> streamAll(Set<TodoField> fields) {
+    return partitions.stream()
+            .map(partition -> Stream.of(partition).flatMap(lazily -> lazily.stream(fields)))
+            .reduce(Stream.empty(), Stream::concat);
+  }
+
+  @Override
+  public Optional<Todo> findAndRemove(String id) {
+    return partitionOf(id).call("findAndRemove", repository -> repository.findAndRemove(id));
+  }
+
+  /**
+   * Saves each partition's Todos in a single bulk write, writing to every partition at once.
+   */
+  @Override
+  public List<Todo> saveAll(List<Todo> todosToSave) {
+    // The positions of each partition's Todos in the batch, so the Todos it saves can be put back in batch order
+    Map<Partition, List<Integer>> positionsByPartition = new LinkedHashMap<>();
+    List<Todo> todosWithIds = todosToSave.stream().map(this::withId).collect(Collectors.toList());
+    for (int position = 0; position < todosWithIds.size(); position++) {
+      Partition partition = partitionOf(todosWithIds.get(position).getId());
+      positionsByPartition.computeIfAbsent(partition, unused -> new ArrayList<>()).add(position);
+    }
+    List<Partition> targets = new ArrayList<>(positionsByPartition.keySet());
+    List<List<Todo>> savedByPartition = scatter(targets, partition -> partition.call("saveAll",
+            repository -> repository.saveAll(positionsByPartition.get(partition).stream()
+                    .map(todosWithIds::get)
+                    .collect(Collectors.toList()))));
+    Todo[] saved = new Todo[todosWithIds.size()];
+    for (int i = 0; i < targets.size(); i++) {
+      Iterator<Todo> savedTodos = savedByPartition.get(i).iterator();
+      positionsByPartition.get(targets.get(i)).forEach(position -> saved[position] = savedTodos.next());
+    }
+    return Arrays.asList(saved);
+  }
+
+  @Override
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    Map<Partition, List<String>> idsByPartition = ids.stream()
+            .collect(Collectors.groupingBy(this::partitionOf, LinkedHashMap::new, Collectors.toList()));
+    return scatter(idsByPartition.keySet(), partition -> partition.call("findAndRemoveAll",
+            repository -> repository.findAndRemoveAll(idsByPartition.get(partition)))).stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Every partition is the same kind of repository, so reads IDs the same way.
+   */
+  @Override
+  public String normaliseId(String id) {
+    return partitions.get(0).repository.normaliseId(id);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    scatterExecutor.shutdown();
+    for (Partition partition : partitions) {
+      if (partition.repository instanceof DisposableBean) {
+        ((DisposableBean) partition.repository).destroy();
+      }
+    }
+  }
+
+  /**
+   * @return the name of the partition holding the Todo with the given ID
+   */
+  String partitionNameOf(String id) {
+    return partitionOf(id).name;
+  }
+
+  private Partition partitionOf(String id) {
+    // Placed by the ID it is stored with, so IDs read as the same ID are always in the same partition
+    Map.Entry<Long, Partition> clockwise = ring.ceilingEntry(hash(normaliseId(id)));
+    return (clockwise != null ? clockwise : ring.firstEntry()).getValue();
+  }
+
+  /**
+   * Calls every given partition at once, and gathers their results in the same order once they have all answered. A
+   * single partition is called on the calling thread, as there is nothing to wait for at the same time.
+   */
+  private <T> List<T> scatter(Collection<Partition> targets, Function<Partition, T> call) {
+    if (targets.size() == 1) {
+      return Collections.singletonList(call.apply(targets.iterator().next()));
+    }
+    List<CompletableFuture<T>> results = targets.stream()
+            .map(partition -> CompletableFuture.supplyAsync(() -> call.apply(partition), scatterExecutor))
+            .collect(Collectors.toList());
+    try {
+      return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private Todo withId(Todo todo) {
+    if (todo.getId() != null) {
+      return todo;
+    }
+    return new Todo(new ObjectId().toHexString(), todo.getTitle(), todo.getContent());
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the key's UTF-8 bytes, with MurmurHash3's finalizer spreading it over the whole ring, as IDs
+   * differing only in their last characters would otherwise hash close together.
+   */
+  static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static class Partition {
+    private final String name;
+    private final TodoRepository repository;
+    private final MetricRegistry metricRegistry;
+
+    private Partition(String name, TodoRepository repository, MetricRegistry metricRegistry) {
+      this.name = name;
+      this.repository = repository;
+      this.metricRegistry = metricRegistry;
+    }
+
+    private <T> T call(String method, Function<TodoRepository, T> call) {
+      String metricName = PREFIX + name + "." + method;
+      try (Timer.Context ignored = metricRegistry.timer(metricName).time()) {
+        return call.apply(repository);
+      } catch (RuntimeException | Error e) {
+        metricRegistry.counter(metricName + ".errors").inc();
+        throw e;
+      }
+    }
+
+    /**
+     * Streams the partition's Todos, timed until the stream is closed, as that is when the partition has finished.
+     */
+    private Stream<Todo> stream(Set<TodoField> fields) {
+      String metricName = PREFIX + name + ".streamAll";
+      Timer.Context timing = metricRegistry.timer(metricName).time();
+      try {
+        return repository.streamAll(fields).onClose(timing::stop);
+      } catch (RuntimeException | Error e) {
+        metricRegistry.counter(metricName + ".errors").inc();
+        throw e;
+      }
+    }
+  }
+}
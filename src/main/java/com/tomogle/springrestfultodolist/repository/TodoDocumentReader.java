@@ -0,0 +1,66 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.convert.ReadingConverter;
+
+import java.util.function.Supplier;
+
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.CONTENT_COLLECTION;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.CONTENT_DATA_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.CONTENT_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.CONTENT_ID_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.CONTENT_UTF8_LENGTH_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.STORED_ID_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.TITLE_FIELD;
+import static com.tomogle.springrestfultodolist.repository.TodoRepositoryImpl.VERSION_FIELD;
+
+/**
+ * Reads a Todo from the document MongoDB stores it as, registered with Spring Data so every Todo read from MongoDB is
+ * read by it. Content stored as text is read as it is, and content stored compressed in the
+ * {@value TodoRepositoryImpl#CONTENT_COLLECTION} collection is only loaded once it is read, so a Todo read for anything
+ * else never fetches it.
+ */
+@ReadingConverter
+class TodoDocumentReader implements Converter<DBObject, Todo> {
+
+  private final Supplier<DB> database;
+
+  /**
+   * @param database the database the Todos are read from, which is only asked for once content is loaded
+   */
+  TodoDocumentReader(Supplier<DB> database) {
+    this.database = database;
+  }
+
+  @Override
+  public Todo convert(DBObject document) {
+    Object id = document.get(STORED_ID_FIELD);
+    Number version = (Number) document.get(VERSION_FIELD);
+    return Todo.of(id == null ? null : id.toString(), (String) document.get(TITLE_FIELD), readContent(document),
+            version == null ? null : version.longValue());
+  }
+
+  private TodoContent readContent(DBObject document) {
+    Object contentId = document.get(CONTENT_ID_FIELD);
+    if (contentId == null) {
+      return TodoContent.of((String) document.get(CONTENT_FIELD));
+    }
+    return TodoContent.lazy(() -> loadContent(contentId));
+  }
+
+  private TodoContent loadContent(Object contentId) {
+    DBObject stored = database.get().getCollection(CONTENT_COLLECTION).findOne(contentId);
+    if (stored == null) {
+      // Only dropped once it has been superseded for longer than the grace period
+      throw new DataRetrievalFailureException("The content " + contentId + " is no longer stored, as the Todo read "
+              + "has since been updated or deleted");
+    }
+    return TodoContent.ofCompressed((byte[]) stored.get(CONTENT_DATA_FIELD),
+            ((Number) stored.get(CONTENT_UTF8_LENGTH_FIELD)).intValue());
+  }
+}
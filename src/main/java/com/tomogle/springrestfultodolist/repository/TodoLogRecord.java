@@ -0,0 +1,148 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * A record in the Todo log: either a Todo as saved, or a tombstone recording that the Todo with an ID was deleted.
+ * <p>
+ * A record is its payload length, a CRC32 of the payload and then the payload: the record type, its sequence number,
+ * the Todo version and the ID, title and content as length prefixed UTF-8, with a length of -1 for null. Sequence
+ * numbers increase with every record written, so whichever record for an ID has the highest sequence number is the
+ * latest, wherever it is in the log.
+ * <p>
+ * A Todo whose content is compressed is recorded as a type of its own, with the content written as it is held: the
+ * length of its UTF-8 before compression and then the length prefixed compressed bytes, so it is read back without
+ * being inflated.
+ */
+final class TodoLogRecord {
+
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+  static final byte PUT_COMPRESSED = 3;
+  static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private static final int NULL_LENGTH = -1;
+
+  private final byte type;
+  private final long sequence;
+  private final Todo todo;
+
+  private TodoLogRecord(byte type, long sequence, Todo todo) {
+    this.type = type;
+    this.sequence = sequence;
+    this.todo = todo;
+  }
+
+  static TodoLogRecord put(long sequence, Todo todo) {
+    TodoContent content = todo.getTodoContent();
+    return new TodoLogRecord(content != null && content.isCompressed() ? PUT_COMPRESSED : PUT, sequence, todo);
+  }
+
+  static TodoLogRecord delete(long sequence, String id, long version) {
+    return new TodoLogRecord(DELETE, sequence, new Todo(id, null, null, version));
+  }
+
+  boolean isPut() {
+    return type == PUT || type == PUT_COMPRESSED;
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  String getId() {
+    return todo.getId();
+  }
+
+  /**
+   * @return the Todo saved, or for a tombstone just the ID and version of the Todo deleted
+   */
+  Todo getTodo() {
+    return todo;
+  }
+
+  /**
+   * @return the whole record, header included, ready to be written
+   */
+  ByteBuffer encode() {
+    byte[] id = utf8(todo.getId());
+    byte[] title = utf8(todo.getTitle());
+    ByteBuffer compressed = type == PUT_COMPRESSED ? todo.getTodoContent().getCompressed() : null;
+    byte[] content = compressed == null ? utf8(todo.getContent()) : null;
+    int payloadLength = 1 + 2 * Long.BYTES + 3 * Integer.BYTES + length(id) + length(title)
+            + (compressed == null ? length(content) : Integer.BYTES + compressed.remaining());
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+    buffer.position(HEADER_SIZE);
+    buffer.put(type).putLong(sequence).putLong(todo.getVersion() == null ? 0L : todo.getVersion());
+    putUtf8(buffer, id);
+    putUtf8(buffer, title);
+    if (compressed == null) {
+      putUtf8(buffer, content);
+    } else {
+      buffer.putInt(todo.getTodoContent().getUtf8Length()).putInt(compressed.remaining()).put(compressed);
+    }
+    buffer.putInt(0, payloadLength).putInt(Integer.BYTES, crc(buffer, HEADER_SIZE, payloadLength));
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @param payload the payload of a record, between its position and limit, whose CRC has been checked
+   */
+  static TodoLogRecord decode(ByteBuffer payload) {
+    byte type = payload.get();
+    long sequence = payload.getLong();
+    long version = payload.getLong();
+    String id = getUtf8(payload);
+    String title = getUtf8(payload);
+    TodoContent content;
+    if (type == PUT_COMPRESSED) {
+      int utf8Length = payload.getInt();
+      byte[] compressed = new byte[payload.getInt()];
+      payload.get(compressed);
+      content = TodoContent.ofCompressed(compressed, utf8Length);
+    } else {
+      content = TodoContent.of(getUtf8(payload));
+    }
+    return new TodoLogRecord(type, sequence, Todo.of(id, title, content, version));
+  }
+
+  static int crc(ByteBuffer buffer, int offset, int length) {
+    CRC32 crc = new CRC32();
+    ByteBuffer payload = buffer.duplicate();
+    payload.limit(offset + length).position(offset);
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int length(byte[] bytes) {
+    return bytes == null ? 0 : bytes.length;
+  }
+
+  private static void putUtf8(ByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(NULL_LENGTH);
+    } else {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+  }
+
+  private static String getUtf8(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,215 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * A file of the Todo log. Records are only ever appended to the end of a segment, and are read back by their offset.
+ * Once a segment is full a new one is started, and old segments are eventually replaced by compaction.
+ */
+final class TodoLogSegment implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TodoLogSegment.class);
+  private static final String FILE_PREFIX = "segment-";
+  private static final String FILE_SUFFIX = ".log";
+
+  /**
+   * Receives each record of a segment as it is scanned, along with where it is and the whole record as written.
+   */
+  interface RecordVisitor {
+    void visit(TodoLogRecord record, long offset, int length, ByteBuffer encoded) throws IOException;
+  }
+
+  private final int id;
+  private final Path file;
+  private final AtomicLong liveBytes = new AtomicLong();
+  private final AtomicLong minSequence = new AtomicLong(Long.MAX_VALUE);
+  private volatile FileChannel channel;
+  private volatile long size;
+  private volatile boolean deleted;
+
+  private TodoLogSegment(int id, Path file) throws IOException {
+    this.id = id;
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    this.size = channel.size();
+    channel.position(size);
+  }
+
+  static TodoLogSegment open(Path directory, int id) throws IOException {
+    return new TodoLogSegment(id, directory.resolve(format("%s%010d%s", FILE_PREFIX, id, FILE_SUFFIX)));
+  }
+
+  /**
+   * @return the ID of the segment file, or -1 if the file is not a segment
+   */
+  static int idOf(Path file) {
+    String name = file.getFileName().toString();
+    if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  int getId() {
+    return id;
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * @return how many bytes of the segment hold the latest record for a Todo, rather than ones since superseded
+   */
+  AtomicLong liveBytes() {
+    return liveBytes;
+  }
+
+  /**
+   * @return the lowest sequence number of any record in the segment, or {@link Long#MAX_VALUE} if it has none
+   */
+  long minSequence() {
+    return minSequence.get();
+  }
+
+  /**
+   * Notes that the segment holds a record with the sequence number, which compaction relies on to know whether a
+   * tombstone may still hide an older record here.
+   */
+  void includeSequence(long sequence) {
+    minSequence.accumulateAndGet(sequence, Math::min);
+  }
+
+  /**
+   * Appends the records with a single write. Only the log writer appends, so appends need no locking.
+   *
+   * @return the offset the first record was written at
+   */
+  long append(ByteBuffer[] records) throws IOException {
+    long offset = size;
+    try {
+      long remaining = 0;
+      for (ByteBuffer record : records) {
+        remaining += record.remaining();
+      }
+      while (remaining > 0) {
+        remaining -= channel.write(records);
+      }
+      size = channel.position();
+    } catch (IOException e) {
+      // Leaves no partial records behind to be read back at startup
+      channel.truncate(offset);
+      channel.position(offset);
+      throw e;
+    }
+    return offset;
+  }
+
+  void force() throws IOException {
+    channel.force(false);
+  }
+
+  /**
+   * Reads back the record written at the offset, reopening the file if another thread was interrupted while reading
+   * it, which closes the channel for every thread.
+   */
+  TodoLogRecord read(long offset, int length) throws IOException {
+    try {
+      return readFrom(channel, offset, length);
+    } catch (ClosedChannelException e) {
+      if (deleted) {
+        throw e;
+      }
+      return readFrom(reopen(), offset, length);
+    }
+  }
+
+  /**
+   * Reads every record in the segment through a memory mapping, in the order written. A record cut short or corrupted,
+   * as a crash while appending leaves, ends the segment: it and anything after it are truncated.
+   */
+  void scan(RecordVisitor visitor) throws IOException {
+    long mappedSize = channel.size();
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedSize);
+    while (buffer.remaining() >= TodoLogRecord.HEADER_SIZE) {
+      int offset = buffer.position();
+      int payloadLength = buffer.getInt();
+      int crc = buffer.getInt();
+      if (payloadLength <= 0 || payloadLength > buffer.remaining()
+              || TodoLogRecord.crc(buffer, buffer.position(), payloadLength) != crc) {
+        buffer.position(offset);
+        break;
+      }
+      ByteBuffer payload = buffer.slice();
+      payload.limit(payloadLength);
+      TodoLogRecord record = TodoLogRecord.decode(payload);
+      ByteBuffer encoded = buffer.duplicate();
+      encoded.limit(offset + TodoLogRecord.HEADER_SIZE + payloadLength).position(offset);
+      buffer.position(offset + TodoLogRecord.HEADER_SIZE + payloadLength);
+      visitor.visit(record, offset, TodoLogRecord.HEADER_SIZE + payloadLength, encoded.slice());
+    }
+    if (buffer.position() < mappedSize) {
+      LOG.warn("Truncating {} at {} of {} bytes, after the last complete record", file, buffer.position(), mappedSize);
+      channel.truncate(buffer.position());
+    }
+    size = buffer.position();
+    channel.position(size);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  void delete() throws IOException {
+    deleted = true;
+    close();
+    Files.deleteIfExists(file);
+  }
+
+  private synchronized FileChannel reopen() throws IOException {
+    if (!channel.isOpen()) {
+      FileChannel reopened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      reopened.position(size);
+      channel = reopened;
+    }
+    return channel;
+  }
+
+  private static TodoLogRecord readFrom(FileChannel channel, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException(format("The record at %d is past the end of the segment", offset));
+      }
+    }
+    buffer.flip();
+    int payloadLength = buffer.getInt();
+    int crc = buffer.getInt();
+    if (payloadLength != length - TodoLogRecord.HEADER_SIZE
+            || TodoLogRecord.crc(buffer, TodoLogRecord.HEADER_SIZE, payloadLength) != crc) {
+      throw new IOException(format("The record at %d is corrupt", offset));
+    }
+    return TodoLogRecord.decode(buffer);
+  }
+}
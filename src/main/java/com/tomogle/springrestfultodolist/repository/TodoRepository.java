@@ -1,7 +1,6 @@
 package com.tomogle.springrestfultodolist.repository;
 
 import com.tomogle.springrestfultodolist.domain.Todo;
-import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
 import org.springframework.data.repository.Repository;
 
 import java.util.List;
@@ -10,11 +9,14 @@ import java.util.Optional;
 /**
  * Interface providing persistence interactions for Todos.
  */
-public interface TodoRepository extends Repository<Todo, String> {
+public interface TodoRepository extends Repository<Todo, String>, TodoRepositoryCustom {
 
   List<Todo> findAll();
   Optional<Todo> find(String id);
-  Todo save(Todo toBeSaved);
-  void delete(Todo todoToDelete) throws TodoNotFoundException;
+
+  /**
+   * Counts every Todo without reading any of them.
+   */
+  long count();
 
 }
@@ -0,0 +1,100 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Persistence interactions for Todos that cannot be derived by Spring Data and are implemented directly against the
+ * data store.
+ */
+public interface TodoRepositoryCustom {
+
+  /**
+   * Saves the Todo, replacing any Todo with the same ID regardless of its version, and increments its version. An ID is
+   * generated if the Todo does not have one.
+   *
+   * @return the saved Todo with its new version
+   */
+  Todo save(Todo toBeSaved);
+
+  /**
+   * Saves the Todo and increments its version, but only if it is currently saved at the expected version.
+   *
+   * @return the saved Todo with its new version, or empty if the Todo does not exist or is at another version
+   */
+  Optional<Todo> saveIfVersion(Todo toBeSaved, long expectedVersion);
+
+  /**
+   * Saves only the given fields of the Todo, leaving the others as they are saved, and increments its version, in a
+   * single atomic operation. Only the title and content can be saved this way, and a field that is null is removed.
+   *
+   * @return the saved Todo with its new version, or empty if the Todo does not exist
+   */
+  Optional<Todo> saveFields(Todo toBeSaved, Set<TodoField> fields);
+
+  /**
+   * Saves only the given fields of the Todo as {@link #saveFields(Todo, Set)} does, but only if it is currently saved
+   * at the expected version.
+   *
+   * @return the saved Todo with its new version, or empty if the Todo does not exist or is at another version
+   */
+  Optional<Todo> saveFieldsIfVersion(Todo toBeSaved, Set<TodoField> fields, long expectedVersion);
+
+  /**
+   * Finds the Todo with the given ID, reading only the given fields from the data store and leaving the others null.
+   */
+  Optional<Todo> find(String id, Set<TodoField> fields);
+
+  /**
+   * Finds up to {@code limit} Todos ordered by ID, starting after the Todo with the given ID.
+   *
+   * @param afterId the ID to start after, or null to start from the first Todo
+   * @param limit the maximum number of Todos to return
+   * @param fields the fields to read, which must include the ID, with the others left null
+   */
+  List<Todo> findPage(String afterId, int limit, Set<TodoField> fields);
+
+  /**
+   * Streams every Todo from a data store cursor, so only the Todos currently being read are held in memory. The
+   * returned Stream must be closed to release the cursor.
+   *
+   * @param fields the fields to read, with the others left null
+   */
+  Stream<Todo> streamAll(Set<TodoField> fields);
+
+  /**
+   * Removes the Todo with the given ID in a single atomic operation.
+   *
+   * @return the removed Todo, or empty if there was no Todo with the ID
+   */
+  Optional<Todo> findAndRemove(String id);
+
+  /**
+   * Saves all of the Todos in a single bulk write, generating IDs for any Todos that do not have one.
+   *
+   * @return the saved Todos, in the same order they were given, each with the version its content was saved with
+   */
+  List<Todo> saveAll(List<Todo> todosToSave);
+
+  /**
+   * Removes every Todo with one of the given IDs in a single bulk operation.
+   *
+   * @return the Todos that were found and removed
+   */
+  List<Todo> findAndRemoveAll(Collection<String> ids);
+
+  /**
+   * Gives the ID that a Todo saved with the given ID is stored and returned with, so IDs that the data store reads as
+   * the same ID can be recognised as such. Unless the data store reads IDs differently, it is the given ID.
+   */
+  default String normaliseId(String id) {
+    return id;
+  }
+
+}
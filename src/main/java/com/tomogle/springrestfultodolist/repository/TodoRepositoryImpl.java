@@ -0,0 +1,546 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.bson.BSON;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.data.util.StreamUtils.createStreamFromIterator;
+
+/**
+ * MongoDB implementation of the custom Todo persistence interactions, picked up by Spring Data by naming convention.
+ * <p>
+ * Content longer than {@code todo.content.compressAboveChars} characters is stored compressed in a collection of its
+ * own, {@value #CONTENT_COLLECTION}, with the Todo referring to it, so reading a Todo without its content never reads
+ * it, and TodoDocumentReader only loads it once it is read. Every save of such content stores it afresh, and the
+ * content a save or delete replaces is marked superseded rather than deleted, so a read that found the Todo before
+ * can still load it. Superseded content is deleted by MongoDB {@code todo.content.supersededGraceSeconds} later.
+ * <p>
+ * Content is stored marked as pending before the Todo is written to refer to it, and the mark removed once it does,
+ * or the content superseded if the write fails. Content still pending {@code todo.content.pendingSweepSeconds} after
+ * it was stored, as the process stopped or the data store failed in between, is swept: kept if a Todo refers to it
+ * and superseded if none does.
+ * <p>
+ * Writes read the document they replace, rather than the Todo, so the content it referred to is known.
+ */
+class TodoRepositoryImpl implements TodoRepositoryCustom, DisposableBean {
+
+  static final String ID_FIELD = "id";
+  static final String STORED_ID_FIELD = "_id";
+  static final String TITLE_FIELD = "title";
+  static final String CONTENT_FIELD = "content";
+  static final String CONTENT_ID_FIELD = "contentId";
+  static final String VERSION_FIELD = "version";
+
+  static final String CONTENT_COLLECTION = "todoContent";
+  static final String CONTENT_DATA_FIELD = "data";
+  static final String CONTENT_UTF8_LENGTH_FIELD = "utf8Length";
+  static final String CONTENT_SUPERSEDED_AT_FIELD = "supersededAt";
+  static final String CONTENT_PENDING_SINCE_FIELD = "pendingSince";
+
+  private static final Logger LOG = LoggerFactory.getLogger(TodoRepositoryImpl.class);
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+  private static final int SWEEP_BATCH_SIZE = 1000;
+
+  /**
+   * The order MongoDB sorts IDs in, with client supplied IDs stored as strings before generated IDs stored as
+   * ObjectIds.
+   */
+  static final Comparator<String> ID_ORDER = Comparator.comparing(ObjectId::isValid)
+          .thenComparing(Comparator.naturalOrder());
+
+  private final MongoOperations mongoOperations;
+  private final String todoCollection;
+  private final int compressContentAboveChars;
+  private final long pendingSweepSeconds;
+  private final ScheduledExecutorService pendingSweeper;
+
+  /**
+   * @param compressContentAboveChars the length above which content is stored compressed in the content collection,
+   *     or 0 to store all content as text
+   * @param supersededGraceSeconds how long content is kept once it is superseded
+   * @param pendingSweepSeconds how often content still pending is swept, once it has been pending for as long, or 0
+   *     to never sweep it
+   */
+  @Autowired
+  public TodoRepositoryImpl(MongoOperations mongoOperations,
+                            @Value("${todo.content.compressAboveChars:0}") int compressContentAboveChars,
+                            @Value("${todo.content.supersededGraceSeconds:60}") long supersededGraceSeconds,
+                            @Value("${todo.content.pendingSweepSeconds:600}") long pendingSweepSeconds) {
+    this.mongoOperations = mongoOperations;
+    this.todoCollection = mongoOperations.getCollectionName(Todo.class);
+    this.compressContentAboveChars = compressContentAboveChars;
+    this.pendingSweepSeconds = pendingSweepSeconds;
+    mongoOperations.indexOps(CONTENT_COLLECTION).ensureIndex(
+            new Index().on(CONTENT_SUPERSEDED_AT_FIELD, Sort.Direction.ASC).expire(supersededGraceSeconds));
+    mongoOperations.indexOps(CONTENT_COLLECTION).ensureIndex(
+            new Index().on(CONTENT_PENDING_SINCE_FIELD, Sort.Direction.ASC).sparse());
+    // For the sweep to find the Todos referring to pending content
+    mongoOperations.indexOps(todoCollection).ensureIndex(new Index().on(CONTENT_ID_FIELD, Sort.Direction.ASC).sparse());
+    if (pendingSweepSeconds > 0) {
+      pendingSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-content-sweep");
+        thread.setDaemon(true);
+        return thread;
+      });
+      pendingSweeper.scheduleWithFixedDelay(this::sweepPendingContentQuietly, pendingSweepSeconds,
+              pendingSweepSeconds, TimeUnit.SECONDS);
+    } else {
+      pendingSweeper = null;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (pendingSweeper != null) {
+      pendingSweeper.shutdown();
+    }
+  }
+
+  @Override
+  public Todo save(Todo todoToSave) {
+    Todo todo = withId(todoToSave).withContentCompressedAbove(compressContentAboveChars);
+    ObjectId contentId = storeContent(todo);
+    FindAndModifyOptions upsert = new FindAndModifyOptions().upsert(true);
+    DBObject previous = mongoOperations.findAndModify(byId(todo.getId()),
+            contentUpdate(todo, contentId).inc(VERSION_FIELD, 1L), upsert, DBObject.class, todoCollection);
+    markReferenced(contentId);
+    if (previous != null) {
+      supersedeContent(previous.get(CONTENT_ID_FIELD));
+    }
+    return withVersion(todo, previous == null ? 1 : versionOf(previous) + 1);
+  }
+
+  @Override
+  public Optional<Todo> saveIfVersion(Todo todoToSave, long expectedVersion) {
+    Todo todo = todoToSave.withContentCompressedAbove(compressContentAboveChars);
+    ObjectId contentId = storeContent(todo);
+    Query byIdAndVersion = byId(todo.getId()).addCriteria(where(VERSION_FIELD).is(expectedVersion));
+    DBObject previous = mongoOperations.findAndModify(byIdAndVersion,
+            contentUpdate(todo, contentId).set(VERSION_FIELD, expectedVersion + 1), new FindAndModifyOptions(),
+            DBObject.class, todoCollection);
+    if (previous == null) {
+      supersedeContent(contentId);
+      return Optional.empty();
+    }
+    markReferenced(contentId);
+    supersedeContent(previous.get(CONTENT_ID_FIELD));
+    return Optional.of(withVersion(todo, expectedVersion + 1));
+  }
+
+  @Override
+  public Optional<Todo> saveFields(Todo todoToSave, Set<TodoField> fields) {
+    return saveFields(todoToSave, fields, byId(todoToSave.getId()));
+  }
+
+  @Override
+  public Optional<Todo> saveFieldsIfVersion(Todo todoToSave, Set<TodoField> fields, long expectedVersion) {
+    Query byIdAndVersion = byId(todoToSave.getId()).addCriteria(where(VERSION_FIELD).is(expectedVersion));
+    return saveFields(todoToSave, fields, byIdAndVersion);
+  }
+
+  private Optional<Todo> saveFields(Todo todoToSave, Set<TodoField> fields, Query query) {
+    Todo todo = todoToSave.withContentCompressedAbove(compressContentAboveChars);
+    boolean savesContent = fields.contains(TodoField.CONTENT);
+    ObjectId contentId = savesContent ? storeContent(todo) : null;
+    DBObject previous = mongoOperations.findAndModify(query, fieldsUpdate(todo, fields, contentId),
+            new FindAndModifyOptions(), DBObject.class, todoCollection);
+    if (previous == null) {
+      supersedeContent(contentId);
+      return Optional.empty();
+    }
+    markReferenced(contentId);
+    if (savesContent) {
+      supersedeContent(previous.get(CONTENT_ID_FIELD));
+    }
+    return Optional.of(withVersion(read(previous).withFieldsFrom(todo, fields), versionOf(previous) + 1));
+  }
+
+  @Override
+  public Optional<Todo> find(String id, Set<TodoField> fields) {
+    Query byId = withFields(query(where(ID_FIELD).is(id)), fields);
+    return Optional.ofNullable(mongoOperations.findOne(byId, Todo.class));
+  }
+
+  @Override
+  public List<Todo> findPage(String afterId, int limit, Set<TodoField> fields) {
+    Query query = withFields(new Query(), fields).with(new Sort(Sort.Direction.ASC, ID_FIELD)).limit(limit);
+    if (afterId != null) {
+      query.addCriteria(idGreaterThan(afterId));
+    }
+    return mongoOperations.find(query, Todo.class);
+  }
+
+  @Override
+  public Stream<Todo> streamAll(Set<TodoField> fields) {
+    return createStreamFromIterator(mongoOperations.stream(withFields(new Query(), fields), Todo.class));
+  }
+
+  @Override
+  public List<Todo> saveAll(List<Todo> todosToSave) {
+    List<Todo> todos = todosToSave.stream()
+            .map(todo -> withId(todo).withContentCompressedAbove(compressContentAboveChars))
+            .collect(Collectors.toList());
+    if (todos.isEmpty()) {
+      return todos;
+    }
+    // A bulk write does not return the documents it replaces, so they are read first, and each is only replaced if it
+    // is still at the version read. The version each Todo is saved with, and the content it replaces, are then known.
+    Map<Object, DBObject> previousById = findPrevious(todos);
+    List<Todo> savedTodos = new ArrayList<>(todos.size());
+    List<ObjectId> contentIds = new ArrayList<>(todos.size());
+    List<DBObject> contentDocuments = new ArrayList<>();
+    BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Todo.class);
+    for (Todo todo : todos) {
+      ObjectId contentId = null;
+      if (isStoredApart(todo.getTodoContent())) {
+        contentId = new ObjectId();
+        contentDocuments.add(contentDocument(contentId, todo.getTodoContent()));
+      }
+      contentIds.add(contentId);
+      DBObject previous = previousById.get(toStoredId(todo.getId()));
+      long version = previous == null ? 0 : versionOf(previous);
+      // Bulk operations are not run through the query mapper, so the stored field names and ID type are used directly
+      Query byIdAndVersion = byId(todo.getId()).addCriteria(hasVersion(version));
+      bulkOperations.upsert(byIdAndVersion, contentUpdate(todo, contentId).set(VERSION_FIELD, version + 1));
+      savedTodos.add(withVersion(todo, version + 1));
+    }
+    if (!contentDocuments.isEmpty()) {
+      contents().insert(contentDocuments);
+    }
+    Set<Integer> conflicting = executeUpserts(bulkOperations);
+    List<Object> referencedContentIds = new ArrayList<>();
+    List<Object> replacedContentIds = new ArrayList<>();
+    for (int i = 0; i < todos.size(); i++) {
+      Todo todo = todos.get(i);
+      if (conflicting.contains(i)) {
+        // Saved by another write since it was read, so saved again on its own, which returns the version it is given
+        supersedeContent(contentIds.get(i));
+        savedTodos.set(i, save(todo));
+      } else {
+        if (contentIds.get(i) != null) {
+          referencedContentIds.add(contentIds.get(i));
+        }
+        DBObject previous = previousById.get(toStoredId(todo.getId()));
+        if (previous != null && previous.get(CONTENT_ID_FIELD) != null) {
+          replacedContentIds.add(previous.get(CONTENT_ID_FIELD));
+        }
+      }
+    }
+    markReferenced(referencedContentIds);
+    supersedeContent(replacedContentIds);
+    return savedTodos;
+  }
+
+  @Override
+  public Optional<Todo> findAndRemove(String id) {
+    DBObject removed = mongoOperations.findAndRemove(byId(id), DBObject.class, todoCollection);
+    if (removed == null) {
+      return Optional.empty();
+    }
+    supersedeContent(removed.get(CONTENT_ID_FIELD));
+    return Optional.of(read(removed));
+  }
+
+  @Override
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    List<Object> storedIds = ids.stream().map(TodoRepositoryImpl::toStoredId).collect(Collectors.toList());
+    List<DBObject> removed = mongoOperations.findAllAndRemove(query(where(STORED_ID_FIELD).in(storedIds)),
+            DBObject.class, todoCollection);
+    supersedeContent(removed.stream()
+            .map(document -> document.get(CONTENT_ID_FIELD))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+    return removed.stream().map(this::read).collect(Collectors.toList());
+  }
+
+  /**
+   * IDs that are valid ObjectIds are stored as ObjectIds, so are returned in lower case whatever case they are given
+   * in.
+   */
+  @Override
+  public String normaliseId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id).toHexString() : id;
+  }
+
+  /**
+   * Projects the query onto the given fields, so the others are neither read nor sent by the data store.
+   */
+  private static Query withFields(Query query, Set<TodoField> fields) {
+    if (!fields.containsAll(TodoField.ALL)) {
+      fields.forEach(field -> query.fields().include(field.getFieldName()));
+      if (fields.contains(TodoField.CONTENT)) {
+        query.fields().include(CONTENT_ID_FIELD);
+      }
+    }
+    return query;
+  }
+
+  private Update contentUpdate(Todo todo, ObjectId contentId) {
+    Update update = new Update().set(TITLE_FIELD, todo.getTitle());
+    if (contentId == null) {
+      return update.set(CONTENT_FIELD, todo.getContent()).unset(CONTENT_ID_FIELD);
+    }
+    return update.set(CONTENT_ID_FIELD, contentId).unset(CONTENT_FIELD);
+  }
+
+  /**
+   * Sets only the given fields, so only they are sent to the data store and written to its oplog, and unsets those
+   * that are null, as they are not saved when a whole Todo is.
+   */
+  private Update fieldsUpdate(Todo todo, Set<TodoField> fields, ObjectId contentId) {
+    Update update = new Update().inc(VERSION_FIELD, 1L);
+    if (fields.contains(TodoField.TITLE)) {
+      setOrUnset(update, TITLE_FIELD, todo.getTitle());
+    }
+    if (fields.contains(TodoField.CONTENT) && contentId == null) {
+      setOrUnset(update, CONTENT_FIELD, todo.getContent());
+      update.unset(CONTENT_ID_FIELD);
+    } else if (fields.contains(TodoField.CONTENT)) {
+      update.set(CONTENT_ID_FIELD, contentId).unset(CONTENT_FIELD);
+    }
+    return update;
+  }
+
+  /**
+   * Content held compressed is stored apart from the Todo, and anything else inline as text.
+   */
+  private static boolean isStoredApart(TodoContent content) {
+    return content != null && content.isCompressed();
+  }
+
+  /**
+   * Stores the content of the Todo in the content collection if it is stored apart, before the Todo is written to
+   * refer to it, so a Todo never refers to content that is not stored. It is stored pending until the Todo does.
+   *
+   * @return the ID the content is stored with, or null if it is stored inline
+   */
+  private ObjectId storeContent(Todo todo) {
+    if (!isStoredApart(todo.getTodoContent())) {
+      return null;
+    }
+    ObjectId contentId = new ObjectId();
+    contents().insert(contentDocument(contentId, todo.getTodoContent()));
+    return contentId;
+  }
+
+  private static DBObject contentDocument(ObjectId contentId, TodoContent content) {
+    ByteBuffer compressed = content.getCompressed();
+    byte[] data = new byte[compressed.remaining()];
+    compressed.get(data);
+    return new BasicDBObject(STORED_ID_FIELD, contentId)
+            .append(CONTENT_DATA_FIELD, data)
+            .append(CONTENT_UTF8_LENGTH_FIELD, content.getUtf8Length())
+            .append(CONTENT_PENDING_SINCE_FIELD, new Date());
+  }
+
+  /**
+   * Reads the version of each stored Todo, and the content it refers to, keyed by stored ID.
+   */
+  private Map<Object, DBObject> findPrevious(List<Todo> todos) {
+    List<Object> storedIds = todos.stream().map(todo -> toStoredId(todo.getId())).collect(Collectors.toList());
+    Query byIds = query(where(STORED_ID_FIELD).in(storedIds));
+    byIds.fields().include(VERSION_FIELD).include(CONTENT_ID_FIELD);
+    return mongoOperations.find(byIds, DBObject.class, todoCollection).stream()
+            .collect(Collectors.toMap(document -> document.get(STORED_ID_FIELD), document -> document));
+  }
+
+  /**
+   * Matches a document at the given version, where Todos saved before they were versioned have none and are read as
+   * version 0.
+   */
+  private static Criteria hasVersion(long version) {
+    return version == 0 ? where(VERSION_FIELD).exists(false) : where(VERSION_FIELD).is(version);
+  }
+
+  /**
+   * Runs the upserts of a bulk write. An upsert whose document is no longer at the version it expects matches nothing,
+   * so MongoDB tries to insert the document and fails it as a duplicate key, leaving the others to be written.
+   *
+   * @return the indexes of the upserts that failed as their documents were no longer at the version they expect
+   */
+  private static Set<Integer> executeUpserts(BulkOperations bulkOperations) {
+    try {
+      bulkOperations.execute();
+      return Collections.emptySet();
+    } catch (BulkOperationException e) {
+      if (e.getErrors().isEmpty()) {
+        throw e;
+      }
+      Set<Integer> conflicting = new HashSet<>();
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+          throw e;
+        }
+        conflicting.add(error.getIndex());
+      }
+      return conflicting;
+    }
+  }
+
+  /**
+   * Marks the content superseded, so MongoDB deletes it once the grace period is over.
+   *
+   * @param contentId the ID of the content, or null if there is none
+   */
+  private void supersedeContent(Object contentId) {
+    if (contentId != null) {
+      supersedeContent(Collections.singletonList(contentId));
+    }
+  }
+
+  private void supersedeContent(List<Object> contentIds) {
+    updateContent(contentIds, new BasicDBObject("$set", new BasicDBObject(CONTENT_SUPERSEDED_AT_FIELD, new Date()))
+            .append("$unset", new BasicDBObject(CONTENT_PENDING_SINCE_FIELD, "")));
+  }
+
+  /**
+   * Removes the pending mark from content a Todo has been written to refer to, so it is kept for as long as the Todo
+   * does.
+   *
+   * @param contentId the ID of the content, or null if there is none
+   */
+  private void markReferenced(Object contentId) {
+    if (contentId != null) {
+      markReferenced(Collections.singletonList(contentId));
+    }
+  }
+
+  private void markReferenced(List<Object> contentIds) {
+    updateContent(contentIds, new BasicDBObject("$unset", new BasicDBObject(CONTENT_PENDING_SINCE_FIELD, "")));
+  }
+
+  private void updateContent(List<Object> contentIds, DBObject update) {
+    if (!contentIds.isEmpty()) {
+      contents().update(new BasicDBObject(STORED_ID_FIELD, new BasicDBObject("$in", contentIds)), update, false, true);
+    }
+  }
+
+  /**
+   * Sweeps the content pending for longer than the sweep interval, which its save failed or stopped before marking
+   * referenced or superseded. Content a Todo refers to is marked referenced, and the rest superseded. Content pending
+   * for so long is not expected to be referred to by a write still in progress.
+   */
+  void sweepPendingContent() {
+    Date storedBefore = new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(pendingSweepSeconds));
+    DBObject pendingBefore = new BasicDBObject(CONTENT_PENDING_SINCE_FIELD, new BasicDBObject("$lt", storedBefore));
+    List<Object> pendingIds = new ArrayList<>();
+    try (DBCursor pending = contents().find(pendingBefore, new BasicDBObject(STORED_ID_FIELD, 1))) {
+      pending.forEach(document -> pendingIds.add(document.get(STORED_ID_FIELD)));
+    }
+    for (int from = 0; from < pendingIds.size(); from += SWEEP_BATCH_SIZE) {
+      List<Object> batch = pendingIds.subList(from, Math.min(from + SWEEP_BATCH_SIZE, pendingIds.size()));
+      Query referringTodos = query(where(CONTENT_ID_FIELD).in(batch));
+      referringTodos.fields().include(CONTENT_ID_FIELD);
+      Set<Object> referenced = mongoOperations.find(referringTodos, DBObject.class, todoCollection).stream()
+              .map(document -> document.get(CONTENT_ID_FIELD))
+              .collect(Collectors.toSet());
+      markReferenced(new ArrayList<>(referenced));
+      supersedeContent(batch.stream().filter(id -> !referenced.contains(id)).collect(Collectors.toList()));
+    }
+    if (!pendingIds.isEmpty()) {
+      LOG.info("Swept {} content documents left pending", pendingIds.size());
+    }
+  }
+
+  private void sweepPendingContentQuietly() {
+    try {
+      sweepPendingContent();
+    } catch (RuntimeException e) {
+      // Caught whatever the failure, as one escaping would cancel every later sweep
+      LOG.error("Failed to sweep pending Todo content", e);
+    }
+  }
+
+  private DBCollection contents() {
+    return mongoOperations.getCollection(CONTENT_COLLECTION);
+  }
+
+  private Todo read(DBObject document) {
+    return mongoOperations.getConverter().read(Todo.class, document);
+  }
+
+  private static long versionOf(DBObject document) {
+    Number version = (Number) document.get(VERSION_FIELD);
+    return version == null ? 0 : version.longValue();
+  }
+
+  private static Todo withVersion(Todo todo, long version) {
+    return Todo.of(todo.getId(), todo.getTitle(), todo.getTodoContent(), version);
+  }
+
+  private static void setOrUnset(Update update, String field, Object value) {
+    if (value == null) {
+      update.unset(field);
+    } else {
+      update.set(field, value);
+    }
+  }
+
+  private Todo withId(Todo todo) {
+    if (todo.getId() != null) {
+      return todo;
+    }
+    return new Todo(new ObjectId().toHexString(), todo.getTitle(), todo.getContent());
+  }
+
+  /**
+   * Queries by the stored ID, as queries of documents rather than Todos are not mapped to the stored field names and
+   * ID type.
+   */
+  private static Query byId(String id) {
+    return query(where(STORED_ID_FIELD).is(toStoredId(id)));
+  }
+
+  private static Object toStoredId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+
+  private Criteria idGreaterThan(String afterId) {
+    if (ObjectId.isValid(afterId)) {
+      return where(ID_FIELD).gt(new ObjectId(afterId));
+    }
+    // Client supplied IDs are stored as strings, which sort before ObjectIds, so every ObjectId is after them
+    return new Criteria().orOperator(where(ID_FIELD).gt(afterId), where(ID_FIELD).type(BSON.OID));
+  }
+}
@@ -0,0 +1,209 @@
+package com.tomogle.springrestfultodolist.search;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index of the words in the title and content of every Todo, kept up to date as Todos are saved
+ * and deleted.
+ * <p>
+ * A search only reads the postings of the words searched for, never every Todo. Results are ranked by BM25, with words
+ * in the title counting for more than those in the content, and Todos matching any of the words are returned.
+ */
+@Component
+public class TodoSearchIndex {
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final int TITLE_WEIGHT = 3;
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+  private final Map<String, IndexedTodo> indexedTodos = new HashMap<>();
+  private long totalLength;
+
+  /**
+   * The IDs of the Todos on a page of search results, best first, and how many Todos matched in all.
+   */
+  public static class Hits {
+    private final List<String> ids;
+    private final int total;
+
+    Hits(List<String> ids, int total) {
+      this.ids = ids;
+      this.total = total;
+    }
+
+    public List<String> getIds() {
+      return ids;
+    }
+
+    public int getTotal() {
+      return total;
+    }
+  }
+
+  /**
+   * Adds the Todo to the index, replacing any earlier version of it. An older version than the one already indexed is
+   * ignored, so indexing every Todo at startup cannot undo a save made meanwhile.
+   */
+  public void index(Todo todo) {
+    Map<String, Integer> frequencies = new HashMap<>();
+    int length = addTerms(frequencies, todo.getTitle(), TITLE_WEIGHT) + addTerms(frequencies, todo.getContent(), 1);
+    long version = todo.getVersion() == null ? 0L : todo.getVersion();
+    lock.writeLock().lock();
+    try {
+      IndexedTodo existing = indexedTodos.get(todo.getId());
+      if (existing != null && existing.version > version) {
+        return;
+      }
+      removeLocked(todo.getId());
+      for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+        postings.computeIfAbsent(frequency.getKey(), term -> new HashMap<>()).put(todo.getId(), frequency.getValue());
+      }
+      indexedTodos.put(todo.getId(), new IndexedTodo(version, length, frequencies.keySet()));
+      totalLength += length;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(String id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @param offset how many of the best results to skip
+   * @param limit the most results to return
+   */
+  public Hits search(String query, int offset, int limit) {
+    Set<String> terms = new LinkedHashSet<>(tokenize(query));
+    lock.readLock().lock();
+    try {
+      if (indexedTodos.isEmpty()) {
+        return new Hits(Collections.emptyList(), 0);
+      }
+      double averageLength = Math.max(1.0, (double) totalLength / indexedTodos.size());
+      Map<String, Double> scores = new HashMap<>();
+      for (String term : terms) {
+        Map<String, Integer> termPostings = postings.get(term);
+        if (termPostings == null) {
+          continue;
+        }
+        double idf = Math.log(1 + (indexedTodos.size() - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+        for (Map.Entry<String, Integer> posting : termPostings.entrySet()) {
+          int frequency = posting.getValue();
+          double lengthNorm = 1 - B + B * indexedTodos.get(posting.getKey()).length / averageLength;
+          double score = idf * frequency * (K1 + 1) / (frequency + K1 * lengthNorm);
+          scores.merge(posting.getKey(), score, Double::sum);
+        }
+      }
+      return new Hits(best(scores, offset, limit), scores.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return indexedTodos.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Splits text into lower case words of letters and digits.
+   */
+  static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    for (String term : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Keeps only the best {@code offset + limit} scores while selecting, rather than sorting every match.
+   */
+  private static List<String> best(Map<String, Double> scores, int offset, int limit) {
+    int wanted = offset + limit;
+    // Ties are broken by ID so that pages are stable
+    Comparator<Map.Entry<String, Double>> byScore = Map.Entry.<String, Double>comparingByValue()
+            .thenComparing(Map.Entry.<String, Double>comparingByKey().reversed());
+    PriorityQueue<Map.Entry<String, Double>> top = new PriorityQueue<>(Math.max(1, wanted), byScore);
+    for (Map.Entry<String, Double> score : scores.entrySet()) {
+      top.offer(score);
+      if (top.size() > wanted) {
+        top.poll();
+      }
+    }
+    List<String> ids = new ArrayList<>(top.size());
+    while (!top.isEmpty()) {
+      ids.add(top.poll().getKey());
+    }
+    Collections.reverse(ids);
+    return offset >= ids.size() ? Collections.emptyList() : ids.subList(offset, ids.size());
+  }
+
+  private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+    List<String> terms = tokenize(text);
+    for (String term : terms) {
+      frequencies.merge(term, weight, Integer::sum);
+    }
+    return terms.size() * weight;
+  }
+
+  private void removeLocked(String id) {
+    IndexedTodo removed = indexedTodos.remove(id);
+    if (removed == null) {
+      return;
+    }
+    for (String term : removed.terms) {
+      Map<String, Integer> termPostings = postings.get(term);
+      termPostings.remove(id);
+      if (termPostings.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    totalLength -= removed.length;
+  }
+
+  private static final class IndexedTodo {
+    private final long version;
+    private final int length;
+    private final Set<String> terms;
+
+    IndexedTodo(long version, int length, Set<String> terms) {
+      this.version = version;
+      this.length = length;
+      this.terms = terms;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for interacting with domain Todos without blocking the caller. Each result completes exceptionally with the
+ * exception the equivalent TodoService method would throw, or with a TodoServiceBusyException if too many requests are
+ * already waiting.
+ */
+public interface AsyncTodoService {
+  CompletableFuture<List<TodoDTO>> findAll(Set<TodoField> fields);
+  CompletableFuture<TodoPageDTO> findPage(String cursor, int limit, Set<TodoField> fields);
+  CompletableFuture<TodoDTO> findById(String id);
+  CompletableFuture<TodoDTO> findById(String id, Set<TodoField> fields);
+  CompletableFuture<TodoDTO> create(TodoDTO todo);
+  CompletableFuture<TodoDTO> update(String id, TodoDTO todo);
+  CompletableFuture<TodoDTO> update(String id, TodoDTO todo, long expectedVersion);
+  CompletableFuture<TodoDTO> delete(String id);
+}
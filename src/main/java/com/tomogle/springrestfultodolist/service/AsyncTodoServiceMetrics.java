@@ -0,0 +1,36 @@
+package com.tomogle.springrestfultodolist.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Exposes how busy the ExecutorAsyncTodoService is through the actuator metrics endpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.async.enabled", havingValue = "true")
+class AsyncTodoServiceMetrics implements PublicMetrics {
+
+  private static final String PREFIX = "todo.async.";
+
+  private final ExecutorAsyncTodoService service;
+
+  @Autowired
+  public AsyncTodoServiceMetrics(ExecutorAsyncTodoService service) {
+    this.service = service;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+            new Metric<>(PREFIX + "queue.size", service.getQueueSize()),
+            new Metric<>(PREFIX + "queue.remainingCapacity", service.getQueueRemainingCapacity()),
+            new Metric<>(PREFIX + "activeThreads", service.getActiveThreads()),
+            new Metric<>(PREFIX + "rejected", service.getRejected()));
+  }
+}
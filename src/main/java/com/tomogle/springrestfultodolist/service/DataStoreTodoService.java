@@ -1,16 +1,42 @@
 package com.tomogle.springrestfultodolist.service;
 
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.cache.TodoCountCache;
+import com.tomogle.springrestfultodolist.changes.TodoChange;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
 import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoBatchResultDTO;
 import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPatchDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
 import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoBadPatchException;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
 import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoSearchNotReadyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
 import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
@@ -21,21 +47,132 @@ import static java.lang.String.format;
 class DataStoreTodoService implements TodoService {
 
   private final TodoRepository repository;
+  private final TodoCache cache;
+  private final TodoCountCache countCache;
+  private final TodoSearchIndex searchIndex;
+  private final TodoSearchIndexBuilder searchIndexBuilder;
+  private final Validator validator;
+  private final TodoChangeFeed changeFeed;
+  private final TodoIdempotencyStore idempotencyStore;
+  private final Optional<TodoWriteBehindBuffer> writeBehindBuffer;
 
+  /**
+   * @param writeBehindBuffer the buffer unconditional updates are saved through, or empty to save them straight away
+   */
   @Autowired
-  public DataStoreTodoService(TodoRepository repository) {
+  public DataStoreTodoService(TodoRepository repository, TodoCache cache, TodoCountCache countCache,
+                              TodoSearchIndex searchIndex, TodoSearchIndexBuilder searchIndexBuilder,
+                              Validator validator, TodoChangeFeed changeFeed, TodoIdempotencyStore idempotencyStore,
+                              Optional<TodoWriteBehindBuffer> writeBehindBuffer) {
     this.repository = repository;
+    this.cache = cache;
+    this.countCache = countCache;
+    this.searchIndex = searchIndex;
+    this.searchIndexBuilder = searchIndexBuilder;
+    this.validator = validator;
+    this.changeFeed = changeFeed;
+    this.idempotencyStore = idempotencyStore;
+    this.writeBehindBuffer = writeBehindBuffer;
   }
 
   @Override
   public List<TodoDTO> findAll() {
+    flushWriteBehindBuffer();
     List<Todo> todos = repository.findAll();
     return convertToDTOs(todos);
   }
 
+  @Override
+  public List<TodoDTO> findAll(Set<TodoField> fields) {
+    if (fields.containsAll(TodoField.ALL)) {
+      return findAll();
+    }
+    try (Stream<TodoDTO> todos = streamAll(fields)) {
+      return todos.collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public Stream<TodoDTO> streamAll(Set<TodoField> fields) {
+    flushWriteBehindBuffer();
+    return repository.streamAll(fields).map(this::convertTodoToDTO);
+  }
+
+  /**
+   * Counts the Todos, using the count cached by an earlier call unless Todos have since been added or removed.
+   */
+  @Override
+  public long count() {
+    flushWriteBehindBuffer();
+    OptionalLong cached = countCache.get();
+    if (cached.isPresent()) {
+      return cached.getAsLong();
+    }
+    long readToken = countCache.startRead();
+    long count = repository.count();
+    countCache.put(count, readToken);
+    return count;
+  }
+
+  @Override
+  public TodoPageDTO findPage(String cursor, int limit, Set<TodoField> fields) throws TodoBadCursorException {
+    String afterId = cursor == null ? null : decodeCursor(cursor);
+    flushWriteBehindBuffer();
+    List<Todo> todos = repository.findPage(afterId, limit + 1, fields);
+    if (todos.size() <= limit) {
+      return new TodoPageDTO(convertToDTOs(todos), null);
+    }
+    List<Todo> page = todos.subList(0, limit);
+    String nextCursor = encodeCursor(page.get(limit - 1).getId());
+    return new TodoPageDTO(convertToDTOs(page), nextCursor);
+  }
+
+  /**
+   * Returns a page of the Todos best matching the words in the query. The cursor is opaque to clients, but is the
+   * number of results already returned.
+   */
+  @Override
+  public TodoPageDTO search(String query, String cursor, int limit)
+          throws TodoBadCursorException, TodoSearchNotReadyException {
+    int offset = cursor == null ? 0 : decodeOffsetCursor(cursor);
+    if (!searchIndexBuilder.isBuilt()) {
+      throw new TodoSearchNotReadyException("The search index is still being built");
+    }
+    TodoSearchIndex.Hits hits = searchIndex.search(query, offset, limit);
+    List<Todo> todos = new ArrayList<>(hits.getIds().size());
+    for (String id : hits.getIds()) {
+      Optional<Todo> todo = findCachedTodo(id);
+      if (todo.isPresent()) {
+        todos.add(todo.get());
+      } else {
+        // Deleted while the index was being built at startup
+        searchIndex.remove(id);
+      }
+    }
+    int nextOffset = offset + hits.getIds().size();
+    String nextCursor = nextOffset < hits.getTotal() ? encodeCursor(Integer.toString(nextOffset)) : null;
+    return new TodoPageDTO(convertToDTOs(todos), nextCursor);
+  }
+
   @Override
   public TodoDTO findById(String id) throws TodoNotFoundException {
-    Todo todo = findTodoById(id);
+    // Not orElseThrow, as its lambda would be allocated on every read, not just the misses
+    Optional<Todo> todo = findCachedTodo(id);
+    if (!todo.isPresent()) {
+      throw todoNotFound(id);
+    }
+    return convertTodoToDTO(todo.get());
+  }
+
+  @Override
+  public TodoDTO findById(String id, Set<TodoField> fields) throws TodoNotFoundException {
+    if (fields.containsAll(TodoField.ALL)) {
+      return findById(id);
+    }
+    Optional<Todo> cached = findBufferedOrCachedTodo(id);
+    Todo todo = cached.isPresent()
+            ? cached.get().withOnly(fields)
+            : repository.find(id, fields).orElseThrow(() -> todoNotFound(id));
     return convertTodoToDTO(todo);
   }
 
@@ -43,27 +180,304 @@ class DataStoreTodoService implements TodoService {
   public TodoDTO create(TodoDTO todoDTO) {
     Todo todoToSave = convertTodoDTOToToDo(todoDTO);
     Todo todoWasSaved = repository.save(todoToSave);
-    return convertTodoToDTO(todoWasSaved);
+    countCache.invalidate();
+    cache.put(todoWasSaved);
+    searchIndex.index(todoWasSaved);
+    return published(TodoChange.Type.CREATED, convertTodoToDTO(todoWasSaved));
+  }
+
+  /**
+   * Creates the Todo only the first time the idempotency key is given, and otherwise returns the Todo created then
+   * without saving it again, so a client can safely retry a create it did not see the result of.
+   */
+  @Override
+  public TodoDTO create(TodoDTO todoDTO, String idempotencyKey) throws TodoIdempotencyKeyReusedException {
+    return idempotencyStore.createOnce(idempotencyKey, todoDTO, () -> create(todoDTO));
   }
 
+  /**
+   * Updates the Todo regardless of its version. With a write-behind buffer the update is only buffered, so the Todo
+   * returned has no version as it is not known until the buffer is flushed.
+   */
   @Override
   public TodoDTO update(String id, TodoDTO todoDTO) throws TodoBadIDException {
     verifyIdOrThrow(id, todoDTO.getId());
     Todo todoToUpdate = convertTodoDTOToToDo(createDTOWithCorrectId(id, todoDTO));
+    if (writeBehindBuffer.isPresent()) {
+      if (!findBufferedOrCachedTodo(id).isPresent()) {
+        // May create the Todo once flushed, which counting flushes the buffer for
+        countCache.invalidate();
+      }
+      writeBehindBuffer.get().write(todoToUpdate);
+      return published(TodoChange.Type.UPDATED, convertTodoToDTO(todoToUpdate));
+    }
     Todo updatedTodo = repository.save(todoToUpdate);
-    return convertTodoToDTO(updatedTodo);
+    if (Long.valueOf(1L).equals(updatedTodo.getVersion())) {
+      // The first version, so there was no Todo with the ID and it was created
+      countCache.invalidate();
+    }
+    cache.put(updatedTodo);
+    searchIndex.index(updatedTodo);
+    return published(TodoChange.Type.UPDATED, convertTodoToDTO(updatedTodo));
   }
 
+  @Override
+  public TodoDTO update(String id, TodoDTO todoDTO, long expectedVersion)
+          throws TodoBadIDException, TodoVersionConflictException {
+    verifyIdOrThrow(id, todoDTO.getId());
+    Todo todoToUpdate = convertTodoDTOToToDo(createDTOWithCorrectId(id, todoDTO));
+    flushWriteBehindBuffer();
+    Optional<Todo> updatedTodo = repository.saveIfVersion(todoToUpdate, expectedVersion);
+    if (!updatedTodo.isPresent()) {
+      cache.invalidate(id);
+      throw new TodoVersionConflictException(format("Todo with ID %s is not at version %d", id, expectedVersion));
+    }
+    cache.put(updatedTodo.get());
+    searchIndex.index(updatedTodo.get());
+    return published(TodoChange.Type.UPDATED, convertTodoToDTO(updatedTodo.get()));
+  }
+
+  /**
+   * Changes only the fields in the patch, validating and saving only those, so a change to the title neither checks
+   * nor rewrites the content. An empty patch changes nothing, and returns the Todo as it is. Any update waiting in the
+   * write-behind buffer is saved first, as it would otherwise overwrite the patch when flushed.
+   */
+  @Override
+  public TodoDTO patch(String id, TodoPatchDTO patch)
+          throws TodoBadIDException, TodoBadPatchException, TodoNotFoundException {
+    verifyPatchOrThrow(id, patch);
+    if (patch.getFields().isEmpty()) {
+      return findById(id);
+    }
+    flushWriteBehindBuffer();
+    Optional<Todo> patchedTodo = repository.saveFields(convertPatchToTodo(id, patch), patch.getFields());
+    if (!patchedTodo.isPresent()) {
+      cache.invalidate(id);
+      throw todoNotFound(id);
+    }
+    return patched(patchedTodo.get());
+  }
+
+  @Override
+  public TodoDTO patch(String id, TodoPatchDTO patch, long expectedVersion)
+          throws TodoBadIDException, TodoBadPatchException, TodoVersionConflictException {
+    verifyPatchOrThrow(id, patch);
+    flushWriteBehindBuffer();
+    Optional<Todo> patchedTodo = patch.getFields().isEmpty()
+            ? repository.find(id).filter(todo -> Long.valueOf(expectedVersion).equals(todo.getVersion()))
+            : repository.saveFieldsIfVersion(convertPatchToTodo(id, patch), patch.getFields(), expectedVersion);
+    if (!patchedTodo.isPresent()) {
+      cache.invalidate(id);
+      throw new TodoVersionConflictException(format("Todo with ID %s is not at version %d", id, expectedVersion));
+    }
+    return patch.getFields().isEmpty() ? convertTodoToDTO(patchedTodo.get()) : patched(patchedTodo.get());
+  }
+
+  /**
+   * Deletes the Todo along with any update of it waiting in the write-behind buffer, so the update cannot recreate
+   * the Todo once flushed.
+   */
   @Override
   public TodoDTO delete(String id) throws TodoNotFoundException {
-    Todo todoToDelete = findTodoById(id);
-    repository.delete(todoToDelete);
-    return convertTodoToDTO(todoToDelete);
+    Optional<Todo> removed = writeBehindBuffer.isPresent()
+            ? writeBehindBuffer.get().findAndRemove(id)
+            : repository.findAndRemove(id);
+    Todo deletedTodo = removed.orElseThrow(() -> todoNotFound(id));
+    countCache.invalidate();
+    cache.invalidate(id);
+    searchIndex.remove(id);
+    return published(TodoChange.Type.DELETED, convertTodoToDTO(deletedTodo));
+  }
+
+  @Override
+  public List<TodoBatchResultDTO> createAll(List<TodoDTO> todoDTOs) {
+    return saveAll(todoDTOs, false, HttpStatus.CREATED);
   }
 
-  private Todo findTodoById(String id) throws TodoNotFoundException {
+  @Override
+  public List<TodoBatchResultDTO> updateAll(List<TodoDTO> todoDTOs) {
+    return saveAll(todoDTOs, true, HttpStatus.OK);
+  }
+
+  @Override
+  public List<TodoBatchResultDTO> deleteAll(List<String> ids) {
+    List<TodoBatchResultDTO> results = new ArrayList<>(ids.size());
+    List<String> idsToDelete = new ArrayList<>();
+    Set<String> storedIds = new HashSet<>();
+    for (String id : ids) {
+      String problem = notEmpty(id) ? findRepeatedIdProblem(id, storedIds) : "An ID must be provided";
+      if (problem == null) {
+        idsToDelete.add(id);
+      }
+      results.add(problem == null ? null : failedResult(HttpStatus.BAD_REQUEST, problem));
+    }
+    List<Todo> removed = writeBehindBuffer.isPresent()
+            ? writeBehindBuffer.get().findAndRemoveAll(idsToDelete)
+            : repository.findAndRemoveAll(idsToDelete);
+    // Matched by the ID each Todo is stored with, which the data store returns rather than the ID given
+    Map<String, Todo> deletedById = removed.stream()
+            .collect(Collectors.toMap(Todo::getId, todo -> todo));
+    countCache.invalidate();
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i) != null) {
+        continue;
+      }
+      String id = ids.get(i);
+      Todo deleted = deletedById.get(repository.normaliseId(id));
+      if (deleted == null) {
+        results.set(i, failedResult(HttpStatus.NOT_FOUND, format("Could not find Todo with ID %s", id)));
+      } else {
+        cache.invalidate(deleted.getId());
+        searchIndex.remove(deleted.getId());
+        TodoDTO deletedDTO = published(TodoChange.Type.DELETED, convertTodoToDTO(deleted));
+        results.set(i, new TodoBatchResultDTO(HttpStatus.OK.value(), deletedDTO, null));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Validates every TodoDTO, then saves the valid ones together in a single bulk write. Results are given in the same
+   * order as the TodoDTOs, with the invalid ones, and those repeating the ID of one before, failed rather than saved.
+   */
+  private List<TodoBatchResultDTO> saveAll(List<TodoDTO> todoDTOs, boolean idRequired, HttpStatus savedStatus) {
+    List<TodoBatchResultDTO> results = new ArrayList<>(todoDTOs.size());
+    List<Todo> todosToSave = new ArrayList<>();
+    Set<String> storedIds = new HashSet<>();
+    for (TodoDTO todoDTO : todoDTOs) {
+      String problem = findProblem(todoDTO, idRequired);
+      if (problem == null && notEmpty(todoDTO.getId())) {
+        problem = findRepeatedIdProblem(todoDTO.getId(), storedIds);
+      }
+      if (problem == null) {
+        todosToSave.add(convertTodoDTOToToDo(todoDTO));
+      }
+      results.add(problem == null ? null : failedResult(HttpStatus.BAD_REQUEST, problem));
+    }
+    flushWriteBehindBuffer();
+    Iterator<Todo> savedTodos = repository.saveAll(todosToSave).iterator();
+    countCache.invalidate();
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i) == null) {
+        Todo savedTodo = savedTodos.next();
+        cache.put(savedTodo);
+        searchIndex.index(savedTodo);
+        TodoDTO savedDTO = published(idRequired ? TodoChange.Type.UPDATED : TodoChange.Type.CREATED,
+                convertTodoToDTO(savedTodo));
+        results.set(i, new TodoBatchResultDTO(savedStatus.value(), savedDTO, null));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Finds whether an ID of a batch repeats one before it, as the data store reads it, as the Todo would then be
+   * written twice.
+   *
+   * @param storedIds the IDs before it in the batch, as the data store reads them, which it is added to
+   */
+  private String findRepeatedIdProblem(String id, Set<String> storedIds) {
+    return storedIds.add(repository.normaliseId(id)) ? null : format("The ID %s is given more than once", id);
+  }
+
+  private String findProblem(TodoDTO todoDTO, boolean idRequired) {
+    if (todoDTO == null) {
+      return "A Todo must be provided";
+    }
+    if (idRequired && !notEmpty(todoDTO.getId())) {
+      return "An ID must be provided";
+    }
+    Set<ConstraintViolation<TodoDTO>> violations = validator.validate(todoDTO);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Validates only the fields the patch changes, against the same constraints as a whole TodoDTO.
+   */
+  private void verifyPatchOrThrow(String id, TodoPatchDTO patch) throws TodoBadIDException, TodoBadPatchException {
+    verifyIdOrThrow(id, patch.getId());
+    if (!patch.getUnknownMembers().isEmpty()) {
+      throw new TodoBadPatchException(format("A Todo has no %s that can be patched",
+              String.join(", ", patch.getUnknownMembers())));
+    }
+    List<String> problems = new ArrayList<>();
+    for (TodoField field : patch.getFields()) {
+      Object value = field == TodoField.TITLE ? patch.getTitle() : patch.getContent();
+      Set<ConstraintViolation<TodoDTO>> violations = validator.validateValue(TodoDTO.class, field.getFieldName(),
+              value);
+      for (ConstraintViolation<TodoDTO> violation : violations) {
+        problems.add(violation.getPropertyPath() + " " + violation.getMessage());
+      }
+    }
+    if (!problems.isEmpty()) {
+      problems.sort(null);
+      throw new TodoBadPatchException(String.join(", ", problems));
+    }
+  }
+
+  private TodoDTO patched(Todo patchedTodo) {
+    cache.put(patchedTodo);
+    searchIndex.index(patchedTodo);
+    return published(TodoChange.Type.UPDATED, convertTodoToDTO(patchedTodo));
+  }
+
+  /**
+   * Publishes the change to the Todo to the change feed, once it has been made.
+   */
+  private TodoDTO published(TodoChange.Type type, TodoDTO todo) {
+    changeFeed.publish(type, todo);
+    return todo;
+  }
+
+  private TodoBatchResultDTO failedResult(HttpStatus status, String error) {
+    return new TodoBatchResultDTO(status.value(), null, error);
+  }
+
+  private Optional<Todo> findCachedTodo(String id) {
+    Optional<Todo> cached = findBufferedOrCachedTodo(id);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    long readToken = cache.startRead();
     Optional<Todo> todo = repository.find(id);
-    return todo.orElseThrow(() -> new TodoNotFoundException(format("Could not find Todo with ID %s", id)));
+    if (todo.isPresent()) {
+      cache.putIfAbsent(todo.get(), readToken);
+    }
+    return todo;
+  }
+
+  /**
+   * Finds the Todo waiting in the write-behind buffer, which is newer than any cached or saved, or else in the cache.
+   */
+  private Optional<Todo> findBufferedOrCachedTodo(String id) {
+    if (writeBehindBuffer.isPresent()) {
+      Optional<Todo> buffered = writeBehindBuffer.get().get(id);
+      if (buffered.isPresent()) {
+        return buffered;
+      }
+    }
+    return cache.get(id);
+  }
+
+  /**
+   * Saves any updates waiting in the write-behind buffer, before reads that go straight to the data store and writes
+   * that must be ordered after them.
+   */
+  private void flushWriteBehindBuffer() {
+    if (writeBehindBuffer.isPresent() && !writeBehindBuffer.get().isEmpty()) {
+      writeBehindBuffer.get().flush();
+    }
+  }
+
+  private TodoNotFoundException todoNotFound(String id) {
+    // Its message is only built when logged, as a miss is a common request
+    return TodoNotFoundException.forId(id);
   }
 
   private TodoDTO createDTOWithCorrectId(String id, TodoDTO todoDTO) {
@@ -76,12 +490,41 @@ class DataStoreTodoService implements TodoService {
     }
   }
 
+  private String encodeCursor(String lastId) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String decodeCursor(String cursor) throws TodoBadCursorException {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new TodoBadCursorException(format("The provided cursor ( %s ) is not valid", cursor));
+    }
+  }
+
+  private int decodeOffsetCursor(String cursor) throws TodoBadCursorException {
+    try {
+      int offset = Integer.parseInt(decodeCursor(cursor));
+      if (offset >= 0) {
+        return offset;
+      }
+    } catch (NumberFormatException e) {
+      // Fall through to the bad cursor below
+    }
+    throw new TodoBadCursorException(format("The provided cursor ( %s ) is not valid", cursor));
+  }
+
   private boolean notEmpty(String idFromDTO) {
     return idFromDTO != null && !idFromDTO.isEmpty();
   }
 
   private TodoDTO convertTodoToDTO(Todo todoToConvert) {
-    return new TodoDTO(todoToConvert.getId(), todoToConvert.getTitle(), todoToConvert.getContent());
+    return new TodoDTO(todoToConvert.getId(), todoToConvert.getTitle(), todoToConvert.getContent(),
+            todoToConvert.getVersion());
+  }
+
+  private Todo convertPatchToTodo(String id, TodoPatchDTO patch) {
+    return new Todo(id, patch.getTitle(), patch.getContent());
   }
 
   private Todo convertTodoDTOToToDo(TodoDTO todoDTO) {
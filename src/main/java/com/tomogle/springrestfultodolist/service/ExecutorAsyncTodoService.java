@@ -0,0 +1,192 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.exception.TodoServiceBusyException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Implementation of AsyncTodoService running a TodoService on a bounded pool of threads. Once the queue of waiting
+ * requests is full further requests are turned away straight away rather than queued, so a slow data store cannot
+ * build up an unbounded backlog.
+ * <p>
+ * On shutdown the requests already accepted are given {@code todo.async.shutdownTimeoutSeconds} to finish. Any left
+ * after that are turned away as busy, with those still running interrupted, so every result is completed rather than
+ * left for its caller to wait on.
+ */
+@Service
+@ConditionalOnProperty(name = "todo.async.enabled", havingValue = "true")
+class ExecutorAsyncTodoService implements AsyncTodoService, DisposableBean {
+
+  private final TodoService todoService;
+  private final ThreadPoolExecutor executor;
+  private final long shutdownTimeoutSeconds;
+  private final AtomicLong rejected = new AtomicLong();
+  private final Set<Request<?>> running = ConcurrentHashMap.newKeySet();
+
+  public ExecutorAsyncTodoService(TodoService todoService, int threads, int queueCapacity) {
+    this(todoService, threads, queueCapacity, 10);
+  }
+
+  @Autowired
+  public ExecutorAsyncTodoService(TodoService todoService,
+                                  @Value("${todo.async.threads:16}") int threads,
+                                  @Value("${todo.async.queueCapacity:1000}") int queueCapacity,
+                                  @Value("${todo.async.shutdownTimeoutSeconds:10}") long shutdownTimeoutSeconds) {
+    this.todoService = todoService;
+    this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public CompletableFuture<List<TodoDTO>> findAll(Set<TodoField> fields) {
+    return submit(() -> fields.containsAll(TodoField.ALL) ? todoService.findAll() : todoService.findAll(fields));
+  }
+
+  @Override
+  public CompletableFuture<TodoPageDTO> findPage(String cursor, int limit, Set<TodoField> fields) {
+    return submit(() -> todoService.findPage(cursor, limit, fields));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> findById(String id) {
+    return submit(() -> todoService.findById(id));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> findById(String id, Set<TodoField> fields) {
+    return submit(() -> todoService.findById(id, fields));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> create(TodoDTO todo) {
+    return submit(() -> todoService.create(todo));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> update(String id, TodoDTO todo) {
+    return submit(() -> todoService.update(id, todo));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> update(String id, TodoDTO todo, long expectedVersion) {
+    return submit(() -> todoService.update(id, todo, expectedVersion));
+  }
+
+  @Override
+  public CompletableFuture<TodoDTO> delete(String id) {
+    return submit(() -> todoService.delete(id));
+  }
+
+  int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  int getQueueRemainingCapacity() {
+    return executor.getQueue().remainingCapacity();
+  }
+
+  int getActiveThreads() {
+    return executor.getActiveCount();
+  }
+
+  long getRejected() {
+    return rejected.get();
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+    try {
+      if (executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<Runnable> waiting = executor.shutdownNow();
+    waiting.forEach(request -> ((Request<?>) request).turnAway());
+    running.forEach(Request::turnAway);
+  }
+
+  /**
+   * Runs the call on the executor, completing the result with whatever it returns or throws. The result is completed
+   * with the exception itself rather than wrapped, so callers can handle it by type.
+   */
+  private <T> CompletableFuture<T> submit(Callable<T> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    try {
+      executor.execute(new Request<>(call, result));
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      result.completeExceptionally(new TodoServiceBusyException(
+              format("%d requests are already waiting to be handled", executor.getQueue().size())));
+    }
+    return result;
+  }
+
+  /**
+   * A call waiting for or running on the executor, along with the result it completes, so the result of one left at
+   * shutdown can be completed too.
+   */
+  private class Request<T> implements Runnable {
+
+    private final Callable<T> call;
+    private final CompletableFuture<T> result;
+
+    private Request(Callable<T> call, CompletableFuture<T> result) {
+      this.call = call;
+      this.result = result;
+    }
+
+    @Override
+    public void run() {
+      running.add(this);
+      try {
+        result.complete(call.call());
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+      } finally {
+        running.remove(this);
+      }
+    }
+
+    private void turnAway() {
+      result.completeExceptionally(
+              new TodoServiceBusyException("The service shut down before the request was handled"));
+    }
+  }
+
+  private static class NamedThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "todo-async-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
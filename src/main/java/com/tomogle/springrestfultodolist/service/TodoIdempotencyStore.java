@@ -0,0 +1,130 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Size bounded, in-process store of the Todos created with each idempotency key, so a client retrying a create with
+ * the same key is given the Todo created the first time rather than creating another. Keys are forgotten
+ * {@code todo.idempotency.ttlSeconds} after they were first used, or once {@code todo.idempotency.maxKeys} newer keys
+ * have been used, so a client should retry well within that.
+ * <p>
+ * Creates with the same key that arrive while the first is still in progress wait for it and are given its Todo, and
+ * should it fail the key is forgotten, so it can be retried.
+ */
+@Component
+class TodoIdempotencyStore {
+
+  private final int maxKeys;
+  private final long ttlNanos;
+  private final LongSupplier nanoClock;
+  private final Map<String, Entry> entries;
+
+  /**
+   * @param maxKeys the maximum number of keys to remember
+   * @param ttlSeconds how long a key is remembered for
+   */
+  @Autowired
+  public TodoIdempotencyStore(@Value("${todo.idempotency.maxKeys:10000}") int maxKeys,
+                              @Value("${todo.idempotency.ttlSeconds:86400}") long ttlSeconds) {
+    this(maxKeys, ttlSeconds, System::nanoTime);
+  }
+
+  TodoIdempotencyStore(int maxKeys, long ttlSeconds, LongSupplier nanoClock) {
+    this.maxKeys = maxKeys;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.nanoClock = nanoClock;
+    // In the order keys were first used, which is the order they expire in
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, false) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > TodoIdempotencyStore.this.maxKeys || isExpired(eldest.getValue());
+      }
+    };
+  }
+
+  /**
+   * Creates the Todo once for the key, however many times it is called with it.
+   *
+   * @param key the idempotency key given by the client
+   * @param todo the Todo to create, which must be the same each time the key is given
+   * @param create creates the Todo and returns it as created
+   * @return the Todo created the first time the key was given
+   * @throws TodoIdempotencyKeyReusedException if the key was first given for a different Todo
+   */
+  TodoDTO createOnce(String key, TodoDTO todo, Supplier<TodoDTO> create) throws TodoIdempotencyKeyReusedException {
+    Entry entry = new Entry(todo, nanoClock.getAsLong());
+    Entry existing;
+    synchronized (entries) {
+      existing = entries.get(key);
+      if (existing == null || isExpired(existing)) {
+        entries.remove(key);
+        entries.put(key, entry);
+        existing = null;
+      }
+    }
+    if (existing != null) {
+      return createdBy(key, existing, todo);
+    }
+    try {
+      TodoDTO created = create.get();
+      entry.created.complete(created);
+      return created;
+    } catch (RuntimeException | Error e) {
+      synchronized (entries) {
+        entries.remove(key, entry);
+      }
+      entry.created.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static TodoDTO createdBy(String key, Entry entry, TodoDTO todo) throws TodoIdempotencyKeyReusedException {
+    if (!entry.todo.equals(todo)) {
+      throw new TodoIdempotencyKeyReusedException(
+              format("Idempotency key %s was already used to create a different Todo", key));
+    }
+    try {
+      return entry.created.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private boolean isExpired(Entry entry) {
+    return nanoClock.getAsLong() - entry.firstUsedAtNanos >= ttlNanos;
+  }
+
+  private static class Entry {
+    private final TodoDTO todo;
+    private final long firstUsedAtNanos;
+    private final CompletableFuture<TodoDTO> created = new CompletableFuture<>();
+
+    private Entry(TodoDTO todo, long firstUsedAtNanos) {
+      this.todo = todo;
+      this.firstUsedAtNanos = firstUsedAtNanos;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Builds the search index from every Todo already in the data store, in the background so the application serves
+ * requests meanwhile. From then on the index is kept up to date as Todos are saved and deleted.
+ * <p>
+ * The index is built once the application is ready, unless {@code todo.search.buildIndexOnStartup} is false, in which
+ * case it is built on the first search. Searches made before it is built are turned away rather than answered from a
+ * partial index. The data store is only looked up once the build starts, so with the index built on the first search
+ * it is not created at startup for the index's sake.
+ */
+@Component
+class TodoSearchIndexBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TodoSearchIndexBuilder.class);
+
+  private final ObjectFactory<TodoRepository> repository;
+  private final TodoSearchIndex searchIndex;
+  private final ApplicationContext applicationContext;
+  private final boolean buildOnStartup;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile boolean built;
+
+  @Autowired
+  public TodoSearchIndexBuilder(ObjectFactory<TodoRepository> repository, TodoSearchIndex searchIndex,
+                                ApplicationContext applicationContext,
+                                @Value("${todo.search.buildIndexOnStartup:true}") boolean buildOnStartup) {
+    this.repository = repository;
+    this.searchIndex = searchIndex;
+    this.applicationContext = applicationContext;
+    this.buildOnStartup = buildOnStartup;
+  }
+
+  TodoSearchIndexBuilder(ObjectFactory<TodoRepository> repository, TodoSearchIndex searchIndex) {
+    this(repository, searchIndex, null, false);
+  }
+
+  /**
+   * Starts building the index once this application is ready, ignoring the events of any other context, such as a
+   * child context for the management endpoints.
+   */
+  @EventListener
+  public void onApplicationReady(ApplicationReadyEvent event) {
+    if (buildOnStartup && event.getApplicationContext() == applicationContext) {
+      start();
+    }
+  }
+
+  /**
+   * @return whether the index has been built, starting to build it if it has not
+   */
+  public boolean isBuilt() {
+    if (!built) {
+      start();
+    }
+    return built;
+  }
+
+  private void start() {
+    if (started.compareAndSet(false, true)) {
+      Thread builder = new Thread(this::buildQuietly, "todo-search-index-builder");
+      builder.setDaemon(true);
+      builder.start();
+    }
+  }
+
+  /**
+   * Indexes every Todo in the data store. An older version of a Todo than the one already indexed is ignored, so
+   * saves made meanwhile are not undone.
+   */
+  void build() {
+    long startedAt = System.nanoTime();
+    try (Stream<Todo> todos = repository.getObject().streamAll(TodoField.ALL)) {
+      todos.forEach(searchIndex::index);
+    }
+    built = true;
+    LOG.info("Built the search index of {} Todos in {} ms", searchIndex.size(),
+            (System.nanoTime() - startedAt) / 1_000_000);
+  }
+
+  private void buildQuietly() {
+    try {
+      build();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to build the search index, will retry on the next search", e);
+      started.set(false);
+    }
+  }
+}
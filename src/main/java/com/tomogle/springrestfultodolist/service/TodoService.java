@@ -1,18 +1,46 @@
 package com.tomogle.springrestfultodolist.service;
 
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoBatchResultDTO;
 import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPatchDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
 import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoBadPatchException;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
 import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoSearchNotReadyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service for interacting with domain Todos and exposing TodoDTOs.
  */
 public interface TodoService {
   List<TodoDTO> findAll();
+  List<TodoDTO> findAll(Set<TodoField> fields);
+  Stream<TodoDTO> streamAll(Set<TodoField> fields);
+  long count();
+  TodoPageDTO findPage(String cursor, int limit, Set<TodoField> fields) throws TodoBadCursorException;
+  TodoPageDTO search(String query, String cursor, int limit)
+          throws TodoBadCursorException, TodoSearchNotReadyException;
   TodoDTO findById(String id) throws TodoNotFoundException;
+  TodoDTO findById(String id, Set<TodoField> fields) throws TodoNotFoundException;
   TodoDTO create(TodoDTO todo);
+  TodoDTO create(TodoDTO todo, String idempotencyKey) throws TodoIdempotencyKeyReusedException;
   TodoDTO update(String id, TodoDTO todo) throws TodoBadIDException;
-  TodoDTO delete(String id) throws TodoNotFoundException;;
+  TodoDTO update(String id, TodoDTO todo, long expectedVersion)
+          throws TodoBadIDException, TodoVersionConflictException;
+  TodoDTO patch(String id, TodoPatchDTO patch)
+          throws TodoBadIDException, TodoBadPatchException, TodoNotFoundException;
+  TodoDTO patch(String id, TodoPatchDTO patch, long expectedVersion)
+          throws TodoBadIDException, TodoBadPatchException, TodoVersionConflictException;
+  TodoDTO delete(String id) throws TodoNotFoundException;
+  List<TodoBatchResultDTO> createAll(List<TodoDTO> todos);
+  List<TodoBatchResultDTO> updateAll(List<TodoDTO> todos);
+  List<TodoBatchResultDTO> deleteAll(List<String> ids);
 }
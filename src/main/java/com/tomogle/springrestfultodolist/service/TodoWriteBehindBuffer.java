@@ -0,0 +1,206 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers unconditional saves of Todos and writes them to the data store in bulk, so a burst of saves of the same
+ * Todo costs a single write. A save replaces any save of the same Todo still waiting in the buffer, and the buffer is
+ * flushed every {@code todo.writeBehind.maxDelayMillis} or as soon as it holds {@code todo.writeBehind.batchSize}
+ * Todos, whichever comes first.
+ * <p>
+ * A saved Todo is acknowledged before it is durable, so a crash loses at most the saves made in the last
+ * {@code maxDelayMillis}, plus however long a flush takes. Should flushing fail the Todos are kept and retried, and
+ * once {@code todo.writeBehind.maxPending} Todos are waiting the callers saving them flush the buffer themselves, so
+ * they see the failure rather than the buffer growing without bound.
+ * <p>
+ * A Todo is indexed for search as soon as it is buffered, so searches match what reads by ID already see. Deletes go
+ * through the buffer too, so a save buffered while a delete is being made cannot bring the Todo back when flushed.
+ * <p>
+ * Flush latency is timed as {@code todo.writeBehind.flush}, and the number of Todos waiting is the gauge
+ * {@code todo.writeBehind.pending}.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.writeBehind.enabled", havingValue = "true")
+class TodoWriteBehindBuffer implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TodoWriteBehindBuffer.class);
+  static final String PREFIX = "todo.writeBehind.";
+
+  private final TodoRepository repository;
+  private final TodoCache cache;
+  private final TodoSearchIndex searchIndex;
+  private final int batchSize;
+  private final int maxPending;
+  private final Map<String, Todo> pending = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final ScheduledExecutorService flusher;
+
+  private final Timer flushTimer;
+  private final Counter coalesced;
+  private final Counter flushErrors;
+
+  @Autowired
+  public TodoWriteBehindBuffer(TodoRepository repository, TodoCache cache, TodoSearchIndex searchIndex,
+                               MetricRegistry metricRegistry,
+                               @Value("${todo.writeBehind.batchSize:500}") int batchSize,
+                               @Value("${todo.writeBehind.maxPending:10000}") int maxPending,
+                               @Value("${todo.writeBehind.maxDelayMillis:100}") long maxDelayMillis) {
+    this.repository = repository;
+    this.cache = cache;
+    this.searchIndex = searchIndex;
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.flushTimer = metricRegistry.timer(PREFIX + "flush");
+    this.coalesced = metricRegistry.counter(PREFIX + "coalesced");
+    this.flushErrors = metricRegistry.counter(PREFIX + "flush.errors");
+    metricRegistry.register(PREFIX + "pending", (Gauge<Integer>) pending::size);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "todo-write-behind");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffers the Todo to be saved, replacing any save of the same Todo that is still waiting, and indexes it for search.
+   *
+   * @param todo the Todo to save, which must have an ID
+   */
+  public void write(Todo todo) {
+    if (pending.put(todo.getId(), todo) != null) {
+      coalesced.inc();
+    }
+    searchIndex.index(todo);
+    int size = pending.size();
+    if (size >= maxPending) {
+      flush();
+    } else if (size >= batchSize && flushRequested.compareAndSet(false, true)) {
+      flusher.execute(this::flushQuietly);
+    }
+  }
+
+  /**
+   * @return the Todo with the given ID that is waiting to be saved, or empty if there is none
+   */
+  public Optional<Todo> get(String id) {
+    return Optional.ofNullable(pending.get(id));
+  }
+
+  public boolean isEmpty() {
+    return pending.isEmpty();
+  }
+
+  public int size() {
+    return pending.size();
+  }
+
+  /**
+   * Flushes the waiting Todos then deletes the Todo from the data store, dropping any save of it buffered while the
+   * delete was being made, as that save came before the delete. No flush can run in between, so none can save the
+   * Todo again after it is deleted.
+   *
+   * @return the deleted Todo, or empty if there was none to delete
+   */
+  public Optional<Todo> findAndRemove(String id) {
+    synchronized (flushLock) {
+      flush();
+      Optional<Todo> removed = repository.findAndRemove(id);
+      if (removed.isPresent()) {
+        pending.remove(id);
+      }
+      return removed;
+    }
+  }
+
+  /**
+   * Deletes the Todos in the same way as {@link #findAndRemove(String)}, with a single bulk delete.
+   *
+   * @return the deleted Todos, leaving out any there was none to delete
+   */
+  public List<Todo> findAndRemoveAll(Collection<String> ids) {
+    synchronized (flushLock) {
+      flush();
+      List<Todo> removed = repository.findAndRemoveAll(ids);
+      for (Todo todo : removed) {
+        pending.remove(todo.getId());
+      }
+      return removed;
+    }
+  }
+
+  /**
+   * Saves every waiting Todo in a single bulk write, caching them once they are saved. A Todo stays in the buffer,
+   * where reads still find it, until it has been saved and cached.
+   *
+   * @throws RuntimeException whatever the data store throws, in which case the Todos are left waiting
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      flushRequested.set(false);
+      if (pending.isEmpty()) {
+        return;
+      }
+      List<Todo> todosToSave = new ArrayList<>(pending.values());
+      List<Todo> savedTodos;
+      try (Timer.Context ignored = flushTimer.time()) {
+        savedTodos = repository.saveAll(todosToSave);
+      } catch (RuntimeException e) {
+        flushErrors.inc();
+        throw e;
+      }
+      Iterator<Todo> toSave = todosToSave.iterator();
+      for (Todo savedTodo : savedTodos) {
+        cache.put(savedTodo);
+        // Only removed if it was not replaced by a newer save while this one was being written
+        pending.remove(savedTodo.getId(), toSave.next());
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    flusher.shutdown();
+    try {
+      flusher.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      LOG.warn("Could not flush {} buffered Todos, will retry", pending.size(), e);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.tomogle.springrestfultodolist.startup;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Starts the application faster with the {@code faststart} profile, for instances started to absorb a spike in
+ * traffic. Every application bean is created when it is first used rather than at startup, so beans such as the
+ * actuator endpoints and the validator are only created once a request needs them, and those never needed are never
+ * created. That includes the data store: the search index is built on the first search rather than once started, so
+ * nothing reads the Todos, or connects to MongoDB, until a request does. The first requests are slower for it, as
+ * they create the beans they use.
+ */
+@Configuration
+@Profile("faststart")
+class FastStartConfiguration {
+
+  /**
+   * Static, as a BeanFactoryPostProcessor must be created before any other bean in the configuration.
+   */
+  @Bean
+  public static BeanFactoryPostProcessor lazyInitializationBeanFactoryPostProcessor() {
+    return new LazyInitializationBeanFactoryPostProcessor();
+  }
+
+  private static class LazyInitializationBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+      for (String beanName : beanFactory.getBeanDefinitionNames()) {
+        BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+        // Infrastructure beans are left alone, as the container relies on them being created up front
+        if (beanDefinition.getRole() == BeanDefinition.ROLE_APPLICATION) {
+          beanDefinition.setLazyInit(true);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package com.tomogle.springrestfultodolist.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tomogle.springrestfultodolist.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the Application takes from its JVM being launched to its first successful {@code GET /api/todo},
+ * with and without the {@code faststart} profile, and with a class data sharing archive if one has been built. Each
+ * start is in a fresh JVM, and the modes take turns so any drift in the machine's speed affects them alike. The
+ * fastest, median and slowest times of each mode are printed and written to {@code startup.txt} and
+ * {@code startup.json} in the report directory.
+ * <p>
+ * Options are given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code runs} - starts measured for each mode (default 5)</li>
+ *   <li>{@code profiles} - profiles every start has, as well as {@code faststart} for that mode (default inmemory)</li>
+ *   <li>{@code cdsArchive} - class data sharing archive to also measure the {@code faststart} profile with, if it
+ *   exists (default build/cds/todo.jsa)</li>
+ *   <li>{@code train} - file to write the classes loaded by a single start with the {@code faststart} profile to,
+ *   from which a class data sharing archive is built, rather than measuring anything (default none)</li>
+ *   <li>{@code timeout} - seconds to wait for a start before failing (default 120)</li>
+ *   <li>{@code report} - directory to write the reports, and the output of each start, to (default
+ *   build/reports/startup)</li>
+ * </ul>
+ */
+public class StartupBenchmark {
+
+  private static final String FAST_START_PROFILE = "faststart";
+  private static final long POLL_INTERVAL_MILLIS = 5;
+
+  private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+  static {
+    DEFAULT_OPTIONS.put("runs", "5");
+    DEFAULT_OPTIONS.put("profiles", "inmemory");
+    DEFAULT_OPTIONS.put("cdsArchive", "build/cds/todo.jsa");
+    DEFAULT_OPTIONS.put("train", "");
+    DEFAULT_OPTIONS.put("timeout", "120");
+    DEFAULT_OPTIONS.put("report", "build/reports/startup");
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseOptions(args);
+    String profiles = options.get("profiles");
+    String fastStartProfiles = profiles.isEmpty() ? FAST_START_PROFILE : profiles + "," + FAST_START_PROFILE;
+    long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout")));
+    Path reportDirectory = Paths.get(options.get("report"));
+    Files.createDirectories(reportDirectory.resolve("logs"));
+
+    if (!options.get("train").isEmpty()) {
+      Path classList = Paths.get(options.get("train")).toAbsolutePath();
+      Files.createDirectories(classList.getParent());
+      long nanos = timeToFirstGet(fastStartProfiles,
+              Collections.singletonList("-XX:DumpLoadedClassList=" + classList), timeoutNanos,
+              reportDirectory.resolve("logs/train.log"));
+      System.out.printf(Locale.ROOT, "Started in %.0f ms, writing the classes loaded to %s%n", millis(nanos),
+              classList);
+      return;
+    }
+
+    Map<String, Mode> modes = new LinkedHashMap<>();
+    modes.put("default", new Mode(profiles, Collections.emptyList()));
+    modes.put(FAST_START_PROFILE, new Mode(fastStartProfiles, Collections.emptyList()));
+    Path cdsArchive = Paths.get(options.get("cdsArchive")).toAbsolutePath();
+    if (Files.exists(cdsArchive)) {
+      modes.put(FAST_START_PROFILE + "+cds", new Mode(fastStartProfiles, Arrays.asList("-Xshare:on",
+              "-XX:+UnlockDiagnosticVMOptions", "-XX:SharedArchiveFile=" + cdsArchive)));
+    } else {
+      System.out.println("No class data sharing archive at " + cdsArchive + ", so it is not measured");
+    }
+
+    int runs = Integer.parseInt(options.get("runs"));
+    for (int run = 1; run <= runs; run++) {
+      for (Map.Entry<String, Mode> mode : modes.entrySet()) {
+        Path log = reportDirectory.resolve("logs/" + mode.getKey() + "-" + run + ".log");
+        long nanos = timeToFirstGet(mode.getValue().profiles, mode.getValue().jvmArgs, timeoutNanos, log);
+        mode.getValue().startNanos.add(nanos);
+        System.out.printf(Locale.ROOT, "Run %d %-14s %8.0f ms%n", run, mode.getKey(), millis(nanos));
+      }
+    }
+    writeReports(reportDirectory, options, modes);
+  }
+
+  /**
+   * Launches the Application in a JVM of its own, with the classpath of this one, and times it until it first
+   * successfully answers {@code GET /api/todo}, after which it is stopped.
+   */
+  private static long timeToFirstGet(String profiles, List<String> jvmArgs, long timeoutNanos, Path log)
+          throws IOException, InterruptedException {
+    int port = freePort();
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArgs);
+    // As a system property, as an empty value cannot be given as an argument, so each start begins with no Todos
+    command.add("-Dtodo.inmemory.snapshotFile=");
+    command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Application.class.getName(),
+            "--spring.profiles.active=" + profiles, "--server.port=" + port));
+    URL url = new URL("http://localhost:" + port + "/api/todo");
+
+    long start = System.nanoTime();
+    Process application = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+    try {
+      while (!isSuccessful(url)) {
+        if (!application.isAlive()) {
+          throw new IllegalStateException("The application exited with " + application.exitValue() + ", see " + log);
+        }
+        if (System.nanoTime() - start > timeoutNanos) {
+          throw new IllegalStateException("The application did not start in time, see " + log);
+        }
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      }
+      return System.nanoTime() - start;
+    } finally {
+      // Stopped gracefully, so a training run writes out the classes it loaded
+      application.destroy();
+      if (!application.waitFor(30, TimeUnit.SECONDS)) {
+        application.destroyForcibly();
+      }
+    }
+  }
+
+  private static boolean isSuccessful(URL url) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(1000);
+      connection.setReadTimeout(10_000);
+      try {
+        return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+      } finally {
+        connection.disconnect();
+      }
+    } catch (IOException notListeningYet) {
+      return false;
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static void writeReports(Path reportDirectory, Map<String, String> options, Map<String, Mode> modes)
+          throws IOException {
+    StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-14s %5s %9s %9s %9s%n",
+            "mode", "runs", "min ms", "median ms", "max ms"));
+    Map<String, Object> results = new LinkedHashMap<>();
+    modes.forEach((name, mode) -> {
+      List<Long> sorted = new ArrayList<>(mode.startNanos);
+      Collections.sort(sorted);
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("profiles", mode.profiles);
+      result.put("jvmArgs", mode.jvmArgs);
+      result.put("minMillis", millis(sorted.get(0)));
+      result.put("medianMillis", millis(sorted.get(sorted.size() / 2)));
+      result.put("maxMillis", millis(sorted.get(sorted.size() - 1)));
+      result.put("runMillis", mode.startNanos.stream().map(StartupBenchmark::millis).toArray());
+      results.put(name, result);
+      text.append(String.format(Locale.ROOT, "%-14s %5d %9.0f %9.0f %9.0f%n", name, sorted.size(),
+              result.get("minMillis"), result.get("medianMillis"), result.get("maxMillis")));
+    });
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("options", new LinkedHashMap<>(options));
+    report.put("javaVersion", System.getProperty("java.version"));
+    report.put("modes", results);
+
+    System.out.print(text);
+    Files.write(reportDirectory.resolve("startup.txt"), text.toString().getBytes(StandardCharsets.UTF_8));
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(reportDirectory.resolve("startup.json").toFile(), report);
+    System.out.println("Reports written to " + reportDirectory.toAbsolutePath());
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+      if (name == null || !DEFAULT_OPTIONS.containsKey(name)) {
+        throw new IllegalArgumentException("Unknown option " + arg + ", expected one of --" +
+                String.join("=, --", DEFAULT_OPTIONS.keySet()) + "=");
+      }
+      options.put(name, arg.substring(equals + 1));
+    }
+    return options;
+  }
+
+  private static class Mode {
+    private final String profiles;
+    private final List<String> jvmArgs;
+    private final List<Long> startNanos = new ArrayList<>();
+
+    private Mode(String profiles, List<String> jvmArgs) {
+      this.profiles = profiles;
+      this.jvmArgs = jvmArgs;
+    }
+  }
+}
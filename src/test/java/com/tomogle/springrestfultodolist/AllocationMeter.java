@@ -0,0 +1,51 @@
+package com.tomogle.springrestfultodolist;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated on the heap by repeatedly calling some code, for tests that keep the allocation of the
+ * busiest paths within a budget, as the garbage collections it causes are felt in the slowest responses.
+ */
+public final class AllocationMeter {
+
+  private static final int WARMUP_CALLS = 20_000;
+  private static final int MEASURED_CALLS = 10_000;
+
+  @FunctionalInterface
+  public interface Call {
+    void call() throws Exception;
+  }
+
+  private AllocationMeter() {
+  }
+
+  /**
+   * @return whether the JVM can count the bytes each thread allocates, without which allocation cannot be measured
+   */
+  public static boolean isSupported() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled();
+  }
+
+  /**
+   * Calls the code until the JIT compiler has had a chance to compile it, as the interpreter allocates objects that
+   * compiled code would not, and then measures the bytes each further call allocates on the calling thread.
+   *
+   * @return the mean number of bytes allocated by each measured call
+   */
+  public static long bytesPerCall(Call call) throws Exception {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    for (int i = 0; i < WARMUP_CALLS; i++) {
+      call.call();
+    }
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_CALLS; i++) {
+      call.call();
+    }
+    return (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_CALLS;
+  }
+}
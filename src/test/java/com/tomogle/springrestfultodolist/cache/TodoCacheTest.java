@@ -0,0 +1,150 @@
+package com.tomogle.springrestfultodolist.cache;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TodoCacheTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  public void getGivenCachedTodoShouldReturnItAndCountAHit() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    Todo todo = new Todo("1", "title", "content");
+    cacheUnderTest.put(todo);
+
+    assertEquals(Optional.of(todo), cacheUnderTest.get("1"));
+    assertEquals(1, cacheUnderTest.getHits());
+    assertEquals(0, cacheUnderTest.getMisses());
+  }
+
+  @Test
+  public void putGivenCompressedContentShouldCacheItAsText() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    Todo todo = new Todo("1", "title", String.join(" ", Collections.nCopies(100, "Buy milk, eggs and bread")))
+            .withContentCompressedAbove(100);
+    cacheUnderTest.put(todo);
+
+    Todo cached = cacheUnderTest.get("1").get();
+    assertFalse(cached.getTodoContent().isCompressed());
+    assertEquals(todo, cached);
+  }
+
+  @Test
+  public void putGivenContentLongerThanTheCompressionThresholdShouldCacheItCompressed() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, 100, nanoTime::get);
+    Todo todo = new Todo("1", "title", String.join(" ", Collections.nCopies(100, "Buy milk, eggs and bread")));
+    cacheUnderTest.put(todo);
+    cacheUnderTest.put(new Todo("2", "title", "short"));
+
+    Todo cached = cacheUnderTest.get("1").get();
+    assertTrue(cached.getTodoContent().isCompressed());
+    assertEquals(todo, cached);
+    assertFalse(cacheUnderTest.get("2").get().getTodoContent().isCompressed());
+  }
+
+  @Test
+  public void putGivenContentNotYetLoadedShouldLoadItBeforeCachingIt() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, 100, nanoTime::get);
+    TodoContent stored = TodoContent.compress(String.join(" ", Collections.nCopies(100, "Buy milk, eggs and bread")));
+    AtomicInteger loads = new AtomicInteger();
+    cacheUnderTest.put(Todo.of("1", "title", TodoContent.lazy(() -> {
+      loads.incrementAndGet();
+      return stored;
+    }), 1L));
+
+    assertEquals(1, loads.get());
+    assertSame(stored, cacheUnderTest.get("1").get().getTodoContent());
+  }
+
+  @Test
+  public void getGivenTodoNotCachedShouldReturnEmptyAndCountAMiss() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+
+    assertFalse(cacheUnderTest.get("1").isPresent());
+    assertEquals(0, cacheUnderTest.getHits());
+    assertEquals(1, cacheUnderTest.getMisses());
+  }
+
+  @Test
+  public void putWhenFullShouldEvictTheLeastRecentlyUsedTodo() {
+    TodoCache cacheUnderTest = new TodoCache(2, 0, nanoTime::get);
+    cacheUnderTest.put(new Todo("1", "title 1", "content 1"));
+    cacheUnderTest.put(new Todo("2", "title 2", "content 2"));
+    cacheUnderTest.get("1");
+
+    cacheUnderTest.put(new Todo("3", "title 3", "content 3"));
+    assertEquals(2, cacheUnderTest.size());
+    assertEquals(1, cacheUnderTest.getEvictions());
+    assertFalse("The least recently used Todo was not evicted", cacheUnderTest.get("2").isPresent());
+  }
+
+  @Test
+  public void getGivenTodoCachedForLongerThanTheTimeToLiveShouldExpireIt() {
+    TodoCache cacheUnderTest = new TodoCache(10, 60, nanoTime::get);
+    cacheUnderTest.put(new Todo("1", "title", "content"));
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    assertFalse(cacheUnderTest.get("1").isPresent());
+    assertEquals(1, cacheUnderTest.getExpirations());
+    assertEquals(0, cacheUnderTest.size());
+  }
+
+  @Test
+  public void putGivenAnOlderVersionThanTheCachedTodoShouldKeepTheCachedTodo() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    Todo newer = new Todo("1", "newer title", "content", 3L);
+    cacheUnderTest.put(newer);
+
+    cacheUnderTest.put(new Todo("1", "older title", "content", 2L));
+    assertEquals(Optional.of(newer), cacheUnderTest.get("1"));
+
+    Todo newest = new Todo("1", "newest title", "content", 4L);
+    cacheUnderTest.put(newest);
+    assertEquals(Optional.of(newest), cacheUnderTest.get("1"));
+  }
+
+  @Test
+  public void putIfAbsentGivenTodoAlreadyCachedShouldKeepTheCachedTodo() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    Todo cached = new Todo("1", "newer title", "content");
+    cacheUnderTest.put(cached);
+
+    cacheUnderTest.putIfAbsent(new Todo("1", "older title", "content"), cacheUnderTest.startRead());
+    assertEquals(Optional.of(cached), cacheUnderTest.get("1"));
+  }
+
+  @Test
+  public void putIfAbsentGivenAnInvalidationSinceTheReadStartedShouldNotCacheTheTodo() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    long readToken = cacheUnderTest.startRead();
+    cacheUnderTest.invalidate("1");
+
+    cacheUnderTest.putIfAbsent(new Todo("1", "deleted title", "content"), readToken);
+    assertFalse(cacheUnderTest.get("1").isPresent());
+
+    cacheUnderTest.putIfAbsent(new Todo("1", "title", "content"), cacheUnderTest.startRead());
+    assertTrue(cacheUnderTest.get("1").isPresent());
+  }
+
+  @Test
+  public void invalidateShouldRemoveTheCachedTodo() {
+    TodoCache cacheUnderTest = new TodoCache(10, 0, nanoTime::get);
+    cacheUnderTest.put(new Todo("1", "title", "content"));
+
+    cacheUnderTest.invalidate("1");
+    assertFalse(cacheUnderTest.get("1").isPresent());
+  }
+}
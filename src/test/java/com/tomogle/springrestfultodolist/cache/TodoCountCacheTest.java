@@ -0,0 +1,56 @@
+package com.tomogle.springrestfultodolist.cache;
+
+import org.junit.Test;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TodoCountCacheTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  public void getShouldReturnTheCachedCountUntilItIsTooOld() {
+    TodoCountCache cacheUnderTest = new TodoCountCache(1000, nanoTime::get);
+    cacheUnderTest.put(42, cacheUnderTest.startRead());
+
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    assertEquals(OptionalLong.of(42), cacheUnderTest.get());
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertFalse(cacheUnderTest.get().isPresent());
+  }
+
+  @Test
+  public void invalidateShouldRemoveTheCachedCount() {
+    TodoCountCache cacheUnderTest = new TodoCountCache(1000, nanoTime::get);
+    cacheUnderTest.put(42, cacheUnderTest.startRead());
+
+    cacheUnderTest.invalidate();
+
+    assertFalse(cacheUnderTest.get().isPresent());
+  }
+
+  @Test
+  public void putShouldNotCacheACountReadWhileTheCacheWasInvalidated() {
+    TodoCountCache cacheUnderTest = new TodoCountCache(1000, nanoTime::get);
+    long readToken = cacheUnderTest.startRead();
+
+    cacheUnderTest.invalidate();
+    cacheUnderTest.put(42, readToken);
+
+    assertFalse(cacheUnderTest.get().isPresent());
+  }
+
+  @Test
+  public void putGivenNoMaxAgeShouldNotCacheTheCount() {
+    TodoCountCache cacheUnderTest = new TodoCountCache(0, nanoTime::get);
+
+    cacheUnderTest.put(42, cacheUnderTest.startRead());
+
+    assertFalse(cacheUnderTest.get().isPresent());
+  }
+}
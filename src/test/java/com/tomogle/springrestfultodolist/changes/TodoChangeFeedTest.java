@@ -0,0 +1,226 @@
+package com.tomogle.springrestfultodolist.changes;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TodoChangeFeedTest {
+
+  private static final String MISSED = "missed";
+  private static final String DROPPED = "dropped";
+
+  private TodoChangeFeed feedUnderTest;
+
+  @Before
+  public void setUp() {
+    feedUnderTest = new TodoChangeFeed(3);
+  }
+
+  @After
+  public void tearDown() {
+    feedUnderTest.destroy();
+  }
+
+  @Test
+  public void subscriberShouldBeSentChangesPublishedAfterItSubscribedInOrder() throws Exception {
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("before"));
+    RecordingListener listener = new RecordingListener();
+    feedUnderTest.subscribe(null, listener);
+
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+    feedUnderTest.publish(TodoChange.Type.UPDATED, todo("a"));
+    feedUnderTest.publish(TodoChange.Type.DELETED, todo("a"));
+
+    assertEquals("CREATED a", listener.next());
+    assertEquals("UPDATED a", listener.next());
+    assertEquals("DELETED a", listener.next());
+    assertNull(listener.poll());
+  }
+
+  @Test
+  public void subscriberResumingFromAChangeShouldFirstBeSentTheChangesAfterIt() throws Exception {
+    RecordingListener first = new RecordingListener();
+    feedUnderTest.subscribe(null, first);
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("b"));
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("c"));
+    first.next();
+    first.next();
+    first.next();
+
+    RecordingListener resumed = new RecordingListener();
+    feedUnderTest.subscribe(first.changeIds.get(0), resumed);
+
+    assertEquals("CREATED b", resumed.next());
+    assertEquals("CREATED c", resumed.next());
+    assertNull(resumed.poll());
+  }
+
+  @Test
+  public void subscriberResumingFromAChangeNoLongerHeldShouldBeToldItMissedChanges() throws Exception {
+    RecordingListener first = new RecordingListener();
+    feedUnderTest.subscribe(null, first);
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+    first.next();
+    for (String id : new String[]{"b", "c", "d", "e"}) {
+      feedUnderTest.publish(TodoChange.Type.CREATED, todo(id));
+    }
+
+    RecordingListener resumed = new RecordingListener();
+    feedUnderTest.subscribe(first.changeIds.get(0), resumed);
+
+    assertEquals(MISSED, resumed.next());
+    assertEquals("CREATED c", resumed.next());
+    assertEquals("CREATED d", resumed.next());
+    assertEquals("CREATED e", resumed.next());
+  }
+
+  @Test
+  public void subscriberResumingFromAChangeBeforeARestartShouldBeToldItMissedChanges() throws Exception {
+    RecordingListener resumed = new RecordingListener();
+    feedUnderTest.subscribe("earlier-5", resumed);
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+
+    assertEquals(MISSED, resumed.next());
+    assertEquals("CREATED a", resumed.next());
+  }
+
+  @Test
+  public void closedOrFailingSubscriptionsShouldBeSentNoMoreChanges() throws Exception {
+    RecordingListener closed = new RecordingListener();
+    feedUnderTest.subscribe(null, closed).close();
+    feedUnderTest.subscribe(null, new RecordingListener() {
+      @Override
+      public void onChange(TodoChange change) throws IOException {
+        throw new IOException("Client went away");
+      }
+    });
+    RecordingListener open = new RecordingListener();
+    feedUnderTest.subscribe(null, open);
+
+    feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+
+    assertEquals("CREATED a", open.next());
+    assertNull(closed.poll());
+    assertEquals(1, feedUnderTest.getSubscriberCount());
+  }
+
+  @Test
+  public void stalledSubscriberShouldNotHoldUpTheOthers() throws Exception {
+    CountDownLatch stalled = new CountDownLatch(1);
+    feedUnderTest.subscribe(null, new RecordingListener() {
+      @Override
+      public void onChange(TodoChange change) throws IOException {
+        try {
+          stalled.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    RecordingListener open = new RecordingListener();
+    feedUnderTest.subscribe(null, open);
+
+    try {
+      feedUnderTest.publish(TodoChange.Type.CREATED, todo("a"));
+      feedUnderTest.publish(TodoChange.Type.CREATED, todo("b"));
+
+      assertEquals("CREATED a", open.next());
+      assertEquals("CREATED b", open.next());
+    } finally {
+      stalled.countDown();
+    }
+  }
+
+  @Test
+  public void subscriberStalledForLongerThanTheStallTimeoutShouldBeDroppedWhenTheNextChangeIsPublished()
+          throws Exception {
+    TodoChangeFeed feed = new TodoChangeFeed(3, 1, 50);
+    CountDownLatch stalled = new CountDownLatch(1);
+    CountDownLatch sending = new CountDownLatch(1);
+    RecordingListener stalledListener = new RecordingListener() {
+      @Override
+      public void onChange(TodoChange change) throws IOException {
+        super.onChange(change);
+        sending.countDown();
+        try {
+          stalled.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    try {
+      feed.subscribe(null, stalledListener);
+      feed.publish(TodoChange.Type.CREATED, todo("a"));
+      assertTrue(sending.await(5, TimeUnit.SECONDS));
+      Thread.sleep(100);
+
+      feed.publish(TodoChange.Type.CREATED, todo("b"));
+      assertEquals(0, feed.getSubscriberCount());
+
+      stalled.countDown();
+      assertEquals("CREATED a", stalledListener.next());
+      assertEquals(DROPPED, stalledListener.next());
+      assertNull(stalledListener.poll());
+
+      RecordingListener open = new RecordingListener();
+      feed.subscribe(null, open);
+      feed.publish(TodoChange.Type.CREATED, todo("c"));
+      assertEquals("The thread sending to the dropped subscriber was not given back", "CREATED c", open.next());
+    } finally {
+      stalled.countDown();
+      feed.destroy();
+    }
+  }
+
+  private static TodoDTO todo(String id) {
+    return new TodoDTO(id, "title", "content", 1L);
+  }
+
+  private static class RecordingListener implements TodoChangeFeed.Listener {
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final List<String> changeIds = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void onChange(TodoChange change) throws IOException {
+      changeIds.add(change.getId());
+      received.add(change.getType() + " " + change.getTodo().getId());
+    }
+
+    @Override
+    public void onMissedChanges() {
+      received.add(MISSED);
+    }
+
+    @Override
+    public void onDropped() {
+      received.add(DROPPED);
+    }
+
+    String next() throws InterruptedException {
+      String next = received.poll(5, TimeUnit.SECONDS);
+      if (next == null) {
+        throw new AssertionError("No change was sent");
+      }
+      return next;
+    }
+
+    String poll() throws InterruptedException {
+      return received.poll(50, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package com.tomogle.springrestfultodolist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoServiceBusyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
+import com.tomogle.springrestfultodolist.service.AsyncTodoService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.servlet.AsyncListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncTodoControllerTest {
+
+  private final String todoResourceBasePath = AsyncTodoController.ASYNC_TODO_RESOURCE_BASE_PATH;
+  private final String todoByIdResourcePath = todoResourceBasePath + "/{id}";
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock
+  private AsyncTodoService mockTodoService;
+
+  private MockMvc mvc;
+
+  private AsyncTodoController controllerUnderTest;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    controllerUnderTest = new AsyncTodoController(mockTodoService, 1000);
+    mvc = MockMvcBuilders.standaloneSetup(controllerUnderTest).build();
+  }
+
+  @Test
+  public void getAllTodosShouldReturnAllTodosFromTheServiceAsynchronously() throws Exception {
+    when(mockTodoService.findAll(TodoField.ALL)).thenReturn(CompletableFuture.completedFuture(
+            Arrays.asList(new TodoDTO("1", "Title 1", "Content 1"), new TodoDTO("2", "Title 2", "Content 2"))));
+
+    performAsync(get(todoResourceBasePath).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[1].id", is("2")));
+  }
+
+  @Test
+  public void getAllTodosGivenLimitShouldReturnThePageWithTheNextCursor() throws Exception {
+    when(mockTodoService.findPage(null, 1, TodoField.ALL)).thenReturn(CompletableFuture.completedFuture(
+            new TodoPageDTO(Collections.singletonList(new TodoDTO("1", "Title 1", "Content 1")), "next")));
+
+    performAsync(get(todoResourceBasePath).param("limit", "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(TodoController.NEXT_CURSOR_HEADER, "next"))
+            .andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  @Test
+  public void getTodoByIdShouldReturnTheTodoWithItsVersionAsTheETag() throws Exception {
+    when(mockTodoService.findById("1"))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1", 3L)));
+
+    performAsync(get(todoByIdResourcePath, "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+            .andExpect(jsonPath("$.title", is("Title 1")));
+  }
+
+  @Test
+  public void getTodoByIdGivenTheCurrentETagShouldReturnNotModified() throws Exception {
+    when(mockTodoService.findById("1"))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1", 3L)));
+
+    performAsync(get(todoByIdResourcePath, "1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+  }
+
+  @Test
+  public void getTodoByIdGivenTheCurrentETagWeaklyOrInAListShouldReturnNotModified() throws Exception {
+    when(mockTodoService.findById("1"))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1", 3L)));
+
+    performAsync(get(todoByIdResourcePath, "1").header(HttpHeaders.IF_NONE_MATCH, "W/\"3\""))
+            .andExpect(status().isNotModified());
+    performAsync(get(todoByIdResourcePath, "1").header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\""))
+            .andExpect(status().isNotModified());
+    performAsync(get(todoByIdResourcePath, "1").header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isNotModified());
+    performAsync(get(todoByIdResourcePath, "1").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+            .andExpect(status().isOk());
+  }
+
+  @Test
+  public void getTodoByIdWhenTheServiceDoesNotAnswerInTimeShouldReturnServiceUnavailable() throws Exception {
+    when(mockTodoService.findById("1")).thenReturn(new CompletableFuture<>());
+
+    MvcResult asyncResult = mvc.perform(get(todoByIdResourcePath, "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MockAsyncContext asyncContext = (MockAsyncContext) asyncResult.getRequest().getAsyncContext();
+    for (AsyncListener listener : asyncContext.getListeners()) {
+      listener.onTimeout(null);
+    }
+    mvc.perform(asyncDispatch(asyncResult))
+            .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  public void getTodoByIdWhenNotFoundShouldReturnNotFound() throws Exception {
+    when(mockTodoService.findById("1")).thenReturn(failed(new TodoNotFoundException("Not found")));
+
+    performAsync(get(todoByIdResourcePath, "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void getTodoByIdWhenTheServiceIsBusyShouldReturnServiceUnavailable() throws Exception {
+    when(mockTodoService.findById("1")).thenReturn(failed(new TodoServiceBusyException("Busy")));
+
+    performAsync(get(todoByIdResourcePath, "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  public void createTodoShouldReturnCreatedWithTheTodoFromTheService() throws Exception {
+    TodoDTO todoToCreate = new TodoDTO(null, "Title 1", "Content 1");
+    when(mockTodoService.create(todoToCreate))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1", 1L)));
+
+    performAsync(post(todoResourceBasePath)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(todoToCreate)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id", is("1")));
+  }
+
+  @Test
+  public void updateTodoGivenIfMatchShouldUpdateAtThatVersionAndReturnTheNewETag() throws Exception {
+    TodoDTO todoToUpdate = new TodoDTO("1", "Title 1", "Content 1");
+    when(mockTodoService.update("1", todoToUpdate, 3L))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1", 4L)));
+
+    performAsync(put(todoByIdResourcePath, "1")
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(todoToUpdate)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+  }
+
+  @Test
+  public void updateTodoWhenTheVersionHasChangedShouldReturnPreconditionFailed() throws Exception {
+    TodoDTO todoToUpdate = new TodoDTO("1", "Title 1", "Content 1");
+    when(mockTodoService.update("1", todoToUpdate, 3L))
+            .thenReturn(failed(new TodoVersionConflictException("Conflict")));
+
+    performAsync(put(todoByIdResourcePath, "1")
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(todoToUpdate)))
+            .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  public void deleteTodoByIdShouldReturnTheDeletedTodo() throws Exception {
+    when(mockTodoService.delete("1"))
+            .thenReturn(CompletableFuture.completedFuture(new TodoDTO("1", "Title 1", "Content 1")));
+
+    performAsync(delete(todoByIdResourcePath, "1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id", is("1")));
+    verify(mockTodoService, times(1)).delete("1");
+  }
+
+  private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+    MvcResult asyncResult = mvc.perform(requestBuilder)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    return mvc.perform(asyncDispatch(asyncResult));
+  }
+
+  private static <T> CompletableFuture<T> failed(Exception exception) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(exception);
+    return future;
+  }
+}
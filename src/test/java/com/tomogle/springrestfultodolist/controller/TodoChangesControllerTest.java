@@ -0,0 +1,82 @@
+package com.tomogle.springrestfultodolist.controller;
+
+import com.tomogle.springrestfultodolist.changes.TodoChange;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class TodoChangesControllerTest {
+
+  private final String changesResourcePath = TodoController.TODO_RESOURCE_BASE_PATH + "/changes";
+
+  private TodoChangeFeed changeFeed;
+  private MockMvc mvc;
+
+  @Before
+  public void setUp() {
+    changeFeed = new TodoChangeFeed(10);
+    mvc = MockMvcBuilders.standaloneSetup(new TodoChangesController(changeFeed, 60_000)).build();
+  }
+
+  @After
+  public void tearDown() {
+    changeFeed.destroy();
+  }
+
+  @Test
+  public void streamChangesShouldSendEachChangeAsAnEventNamedByItsType() throws Exception {
+    MvcResult result = mvc.perform(get(changesResourcePath)).andExpect(request().asyncStarted()).andReturn();
+
+    changeFeed.publish(TodoChange.Type.CREATED, new TodoDTO("1", "Title", "Content", 1L));
+    changeFeed.publish(TodoChange.Type.DELETED, new TodoDTO("1", "Title", "Content", 1L));
+
+    String events = awaitContent(result.getResponse(), "event:deleted");
+    assertThat(events, containsString("event:created\ndata:{\"id\":\"1\",\"title\":\"Title\",\"content\":\"Content\","
+            + "\"version\":1}\n\n"));
+    assertThat(events, containsString("id:"));
+  }
+
+  @Test
+  public void streamChangesGivenLastEventIdShouldFirstSendTheChangesMissedSinceThen() throws Exception {
+    MvcResult first = mvc.perform(get(changesResourcePath)).andReturn();
+    changeFeed.publish(TodoChange.Type.CREATED, new TodoDTO("1", "First", "Content", 1L));
+    changeFeed.publish(TodoChange.Type.CREATED, new TodoDTO("2", "Second", "Content", 1L));
+    String firstEvents = awaitContent(first.getResponse(), "Second");
+    String firstEventId = firstEvents.substring(firstEvents.indexOf("id:") + 3, firstEvents.indexOf('\n'));
+
+    MvcResult resumed = mvc.perform(get(changesResourcePath)
+            .header(TodoChangesController.LAST_EVENT_ID_HEADER, firstEventId)).andReturn();
+
+    String resumedEvents = awaitContent(resumed.getResponse(), "Second");
+    assertThat(resumedEvents, not(containsString("First")));
+  }
+
+  @Test
+  public void streamChangesGivenUnknownLastEventIdShouldTellTheClientToReload() throws Exception {
+    MvcResult result = mvc.perform(get(changesResourcePath)
+            .header(TodoChangesController.LAST_EVENT_ID_HEADER, "unknown-1")).andReturn();
+
+    awaitContent(result.getResponse(), "event:" + TodoChangesController.MISSED_CHANGES_EVENT);
+  }
+
+  private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(response.getContentAsString(), containsString(expected));
+    return response.getContentAsString();
+  }
+}
@@ -4,31 +4,54 @@ package com.tomogle.springrestfultodolist.controller;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoBatchResultDTO;
 import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPatchDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
 import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoBadPatchException;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
 import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoSearchNotReadyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
 import com.tomogle.springrestfultodolist.service.TodoService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -41,10 +64,14 @@ public class TodoControllerTest {
 
   private final String todoResourceBasePath = TodoController.TODO_RESOURCE_BASE_PATH;
   private final String todoByIdResourcePath = todoResourceBasePath + "/{id}";
+  private final String todoBatchResourcePath = todoResourceBasePath + "/batch";
 
   @Mock
   private TodoService mockTodoService;
 
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
   private MockMvc mvc;
 
   @InjectMocks
@@ -88,6 +115,154 @@ public class TodoControllerTest {
 
   }
 
+  @Test
+  public void getAllTodosGivenLimitShouldReturnThePageFromTheServiceWithTheNextCursor() throws Exception {
+    TodoDTO todo = new TodoDTO("1", "Title 1", "Description 1");
+    when(mockTodoService.findPage(null, 1, TodoField.ALL))
+            .thenReturn(new TodoPageDTO(Collections.singletonList(todo), "next"));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("limit", "1")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(TodoController.NEXT_CURSOR_HEADER, "next"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is("1")));
+  }
+
+  @Test
+  public void getAllTodosShouldGiveTheNumberOfTodosReturnedAsTheTotalCount() throws Exception {
+    when(mockTodoService.findAll()).thenReturn(Arrays.asList(new TodoDTO("1", "Title 1", "Description 1"),
+            new TodoDTO("2", "Title 2", "Description 2")));
+
+    mvc.perform(get(todoResourceBasePath))
+            .andExpect(header().string(TodoController.TOTAL_COUNT_HEADER, "2"));
+    verify(mockTodoService, never()).count();
+  }
+
+  @Test
+  public void getAllTodosGivenLimitShouldGiveTheCountFromTheServiceAsTheTotalCount() throws Exception {
+    TodoDTO todo = new TodoDTO("1", "Title 1", "Description 1");
+    when(mockTodoService.findPage(null, 1, TodoField.ALL))
+            .thenReturn(new TodoPageDTO(Collections.singletonList(todo), "next"));
+    when(mockTodoService.count()).thenReturn(42L);
+
+    mvc.perform(get(todoResourceBasePath).param("limit", "1"))
+            .andExpect(header().string(TodoController.TOTAL_COUNT_HEADER, "42"));
+  }
+
+  @Test
+  public void countTodosShouldReturnTheCountFromTheService() throws Exception {
+    when(mockTodoService.count()).thenReturn(42L);
+
+    mvc.perform(get(todoResourceBasePath + "/count")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count", is(42)));
+    verify(mockTodoService, never()).findAll();
+  }
+
+  @Test
+  public void searchTodosShouldReturnThePageOfMatchesFromTheServiceWithTheNextCursor() throws Exception {
+    TodoDTO todo = new TodoDTO("1", "Buy milk", "Description 1");
+    when(mockTodoService.search("milk", null, 10))
+            .thenReturn(new TodoPageDTO(Collections.singletonList(todo), "next"));
+
+    mvc.perform(get(todoResourceBasePath + "/search")
+            .param("q", "milk")
+            .param("limit", "10")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(TodoController.NEXT_CURSOR_HEADER, "next"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].title", is("Buy milk")));
+  }
+
+  @Test
+  public void searchTodosBeforeTheSearchIndexIsBuiltShouldReturnServiceUnavailable() throws Exception {
+    when(mockTodoService.search("milk", null, TodoController.DEFAULT_PAGE_SIZE))
+            .thenThrow(new TodoSearchNotReadyException("The search index is still being built"));
+
+    mvc.perform(get(todoResourceBasePath + "/search")
+            .param("q", "milk")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  public void searchTodosWithoutAQueryShouldReturnBadRequest() throws Exception {
+    mvc.perform(get(todoResourceBasePath + "/search")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void getAllTodosGivenOnlyACursorShouldRequestADefaultSizedPage() throws Exception {
+    when(mockTodoService.findPage("cursor", TodoController.DEFAULT_PAGE_SIZE, TodoField.ALL))
+            .thenReturn(new TodoPageDTO(Collections.emptyList(), null));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("after", "cursor")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(TodoController.NEXT_CURSOR_HEADER));
+    verify(mockTodoService, times(1)).findPage("cursor", TodoController.DEFAULT_PAGE_SIZE, TodoField.ALL);
+  }
+
+  @Test
+  public void getAllTodosGivenLimitOverTheMaximumShouldRequestTheMaximumPageSize() throws Exception {
+    when(mockTodoService.findPage(null, TodoController.MAX_PAGE_SIZE, TodoField.ALL))
+            .thenReturn(new TodoPageDTO(Collections.emptyList(), null));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("limit", String.valueOf(TodoController.MAX_PAGE_SIZE + 1))
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    verify(mockTodoService, times(1)).findPage(null, TodoController.MAX_PAGE_SIZE, TodoField.ALL);
+  }
+
+  @Test
+  public void getAllTodosGivenServiceThrowsBadCursorExceptionShouldReturnBadRequestResponse() throws Exception {
+    when(mockTodoService.findPage("bad", TodoController.DEFAULT_PAGE_SIZE, TodoField.ALL))
+            .thenThrow(new TodoBadCursorException(""));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("after", "bad")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void streamAllTodosShouldWriteEveryTodoFromTheServiceAsAnArray() throws Exception {
+    TodoDTO first = new TodoDTO("1", "Title 1", "Description 1");
+    TodoDTO second = new TodoDTO("2", "Title 2", "Description 2");
+    when(mockTodoService.streamAll(TodoField.ALL)).thenReturn(Stream.of(first, second));
+
+    MvcResult asyncResult = mvc.perform(get(todoResourceBasePath)
+            .param("stream", "true")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    assertEquals(Arrays.asList(first, second), readStreamedTodos(asyncResult));
+  }
+
+  @Test
+  public void streamAllTodosShouldCloseTheStreamFromTheService() throws Exception {
+    AtomicBoolean closed = new AtomicBoolean();
+    when(mockTodoService.streamAll(TodoField.ALL))
+            .thenReturn(Stream.<TodoDTO>empty().onClose(() -> closed.set(true)));
+
+    MvcResult asyncResult = mvc.perform(get(todoResourceBasePath)
+            .param("stream", "true")
+            .accept(MediaType.APPLICATION_JSON))
+            .andReturn();
+
+    assertEquals(Collections.emptyList(), readStreamedTodos(asyncResult));
+
+    assertTrue("The Stream from the service was not closed", closed.get());
+  }
+
   @Test
   public void getTodoByIdGivenIdFoundByServiceShouldReturnOkResponseCode() throws Exception {
     String idThatExists = "ID exists";
@@ -118,6 +293,93 @@ public class TodoControllerTest {
             .andExpect(jsonPath("$.content", is(content)));
   }
 
+  @Test
+  public void getTodoByIdShouldReturnTheTodoVersionAsTheETag() throws Exception {
+    String id = "IDexists";
+    when(mockTodoService.findById(id)).thenReturn(new TodoDTO(id, "Todo Title", "Some contents", 3L));
+
+    mvc.perform(get(todoByIdResourcePath, id)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+            .andExpect(jsonPath("$.version", is(3)));
+  }
+
+  @Test
+  public void getTodoByIdGivenIfNoneMatchWithTheCurrentVersionShouldReturnNotModifiedWithoutABody() throws Exception {
+    String id = "IDexists";
+    when(mockTodoService.findById(id)).thenReturn(new TodoDTO(id, "Todo Title", "Some contents", 3L));
+
+    mvc.perform(get(todoByIdResourcePath, id)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+  }
+
+  @Test
+  public void getTodoByIdGivenIfNoneMatchWithAnOldVersionShouldReturnTheTodo() throws Exception {
+    String id = "IDexists";
+    when(mockTodoService.findById(id)).thenReturn(new TodoDTO(id, "Todo Title", "Some contents", 3L));
+
+    mvc.perform(get(todoByIdResourcePath, id)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title", is("Todo Title")));
+  }
+
+  @Test
+  public void getTodoByIdGivenFieldsShouldRequestOnlyThoseFieldsAlongWithTheIdAndVersion() throws Exception {
+    String id = "IDexists";
+    Set<TodoField> expectedFields = EnumSet.of(TodoField.ID, TodoField.TITLE, TodoField.VERSION);
+    when(mockTodoService.findById(id, expectedFields)).thenReturn(new TodoDTO(id, "Todo Title", null, 3L));
+
+    mvc.perform(get(todoByIdResourcePath, id)
+            .param("fields", "title")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title", is("Todo Title")))
+            .andExpect(jsonPath("$.content").doesNotExist())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void getTodoByIdGivenUnknownFieldShouldReturnBadRequestResponse() throws Exception {
+    mvc.perform(get(todoByIdResourcePath, "IDexists")
+            .param("fields", "title,colour")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    verifyZeroInteractions(mockTodoService);
+  }
+
+  @Test
+  public void getAllTodosGivenFieldsShouldRequestOnlyThoseFieldsAlongWithTheIdAndVersion() throws Exception {
+    Set<TodoField> expectedFields = EnumSet.of(TodoField.ID, TodoField.TITLE, TodoField.VERSION);
+    when(mockTodoService.findAll(expectedFields)).thenReturn(Arrays.asList(new TodoDTO("1", "Title 1", null)));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("fields", "id,title")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].title", is("Title 1")))
+            .andExpect(jsonPath("$[0].content").doesNotExist());
+  }
+
+  @Test
+  public void getAllTodosGivenLimitAndFieldsShouldRequestAPageWithOnlyThoseFields() throws Exception {
+    Set<TodoField> expectedFields = EnumSet.of(TodoField.ID, TodoField.CONTENT, TodoField.VERSION);
+    when(mockTodoService.findPage(null, 10, expectedFields))
+            .thenReturn(new TodoPageDTO(Collections.emptyList(), null));
+
+    mvc.perform(get(todoResourceBasePath)
+            .param("limit", "10")
+            .param("fields", "content")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    verify(mockTodoService, times(1)).findPage(null, 10, expectedFields);
+  }
+
   @Test
   public void getTodoByIdGivenIdNotFoundByServiceShouldReturnNotFoundResponse() throws Exception {
     String idDoesNotExist = "IDdoesnotexist";
@@ -207,6 +469,35 @@ public class TodoControllerTest {
 
   }
 
+  @Test
+  public void createTodoGivenIdempotencyKeyShouldRequestCreateWithTheKeyFromTheService() throws Exception {
+    TodoDTO todoToCreate = new TodoDTO(null, "some title", "some content");
+    when(mockTodoService.create(todoToCreate, "key")).thenReturn(new TodoDTO("1", "some title", "some content"));
+
+    mvc.perform(post(todoResourceBasePath)
+            .header(TodoController.IDEMPOTENCY_KEY_HEADER, "key")
+            .content(convertToJsonBytes(todoToCreate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id", is("1")));
+    verify(mockTodoService, never()).create(todoToCreate);
+  }
+
+  @Test
+  public void createTodoGivenIdempotencyKeyUsedForAnotherTodoShouldReturnUnprocessableEntity() throws Exception {
+    TodoDTO todoToCreate = new TodoDTO(null, "some title", "some content");
+    when(mockTodoService.create(todoToCreate, "key"))
+            .thenThrow(new TodoIdempotencyKeyReusedException("Key reused"));
+
+    mvc.perform(post(todoResourceBasePath)
+            .header(TodoController.IDEMPOTENCY_KEY_HEADER, "key")
+            .content(convertToJsonBytes(todoToCreate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnprocessableEntity());
+  }
+
   @Test
   public void updateTodoShouldReturnOkResponseCode() throws Exception {
     String todoId = "some ID";
@@ -273,6 +564,158 @@ public class TodoControllerTest {
             .andExpect(status().isBadRequest());
   }
 
+  private List<TodoDTO> readStreamedTodos(MvcResult asyncResult) throws Exception {
+    asyncResult.getAsyncResult();
+    byte[] streamed = asyncResult.getResponse().getContentAsByteArray();
+    return Arrays.asList(objectMapper.readValue(streamed, TodoDTO[].class));
+  }
+
+  @Test
+  public void updateTodoGivenIfMatchShouldRequestUpdateAtThatVersionFromTheService() throws Exception {
+    String todoId = "some ID";
+    TodoDTO todoToUpdate = new TodoDTO(todoId, "some title", "some content");
+    when(mockTodoService.update(todoId, todoToUpdate, 3L))
+            .thenReturn(new TodoDTO(todoId, "some title", "some content", 4L));
+
+    mvc.perform(put(todoByIdResourcePath, todoId)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .content(convertToJsonBytes(todoToUpdate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    verify(mockTodoService, never()).update(todoId, todoToUpdate);
+  }
+
+  @Test
+  public void updateTodoGivenServiceThrowsVersionConflictExceptionShouldReturnPreconditionFailedResponse()
+          throws Exception {
+    String todoId = "some ID";
+    TodoDTO todoToUpdate = new TodoDTO(todoId, "some title", "some content");
+    when(mockTodoService.update(todoId, todoToUpdate, 3L)).thenThrow(new TodoVersionConflictException(""));
+
+    mvc.perform(put(todoByIdResourcePath, todoId)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .content(convertToJsonBytes(todoToUpdate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  public void updateTodoGivenIfMatchThatIsNotAVersionShouldReturnPreconditionFailedResponse() throws Exception {
+    String todoId = "some ID";
+    TodoDTO todoToUpdate = new TodoDTO(todoId, "some title", "some content");
+
+    mvc.perform(put(todoByIdResourcePath, todoId)
+            .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+            .content(convertToJsonBytes(todoToUpdate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPreconditionFailed());
+    verifyZeroInteractions(mockTodoService);
+  }
+
+  @Test
+  public void patchTodoShouldPassOnlyTheMembersOfTheMergePatchToTheService() throws Exception {
+    String todoId = "some ID";
+    ArgumentCaptor<TodoPatchDTO> patch = ArgumentCaptor.forClass(TodoPatchDTO.class);
+    when(mockTodoService.patch(eq(todoId), patch.capture()))
+            .thenReturn(new TodoDTO(todoId, "new title", null, 4L));
+
+    mvc.perform(patch(todoByIdResourcePath, todoId)
+            .content("{\"title\":\"new title\",\"content\":null}")
+            .contentType(TodoController.MERGE_PATCH_JSON_VALUE)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+            .andExpect(jsonPath("$.title", is("new title")));
+    assertEquals(EnumSet.of(TodoField.TITLE, TodoField.CONTENT), patch.getValue().getFields());
+    assertEquals("new title", patch.getValue().getTitle());
+  }
+
+  @Test
+  public void patchTodoGivenIfMatchShouldRequestPatchAtThatVersionFromTheService() throws Exception {
+    String todoId = "some ID";
+    when(mockTodoService.patch(eq(todoId), any(TodoPatchDTO.class), eq(3L)))
+            .thenReturn(new TodoDTO(todoId, "title", "new content", 4L));
+
+    mvc.perform(patch(todoByIdResourcePath, todoId)
+            .header(HttpHeaders.IF_MATCH, "\"3\"")
+            .content("{\"content\":\"new content\"}")
+            .contentType(TodoController.MERGE_PATCH_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    verify(mockTodoService, never()).patch(eq(todoId), any(TodoPatchDTO.class));
+  }
+
+  @Test
+  public void patchTodoGivenServiceThrowsBadPatchExceptionShouldReturnBadRequestResponse() throws Exception {
+    String todoId = "some ID";
+    when(mockTodoService.patch(eq(todoId), any(TodoPatchDTO.class))).thenThrow(new TodoBadPatchException(""));
+
+    mvc.perform(patch(todoByIdResourcePath, todoId)
+            .content("{\"title\":\"\"}")
+            .contentType(TodoController.MERGE_PATCH_JSON_VALUE))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void createTodosShouldReturnTheResultForEachTodoFromTheService() throws Exception {
+    List<TodoDTO> todosToCreate = Arrays.asList(new TodoDTO(null, "title", "content"), new TodoDTO(null, "", ""));
+    when(mockTodoService.createAll(todosToCreate)).thenReturn(Arrays.asList(
+            new TodoBatchResultDTO(201, new TodoDTO("1", "title", "content"), null),
+            new TodoBatchResultDTO(400, null, "title may not be empty")));
+
+    mvc.perform(post(todoBatchResourcePath)
+            .content(objectMapper.writeValueAsBytes(todosToCreate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].status", is(201)))
+            .andExpect(jsonPath("$[0].todo.id", is("1")))
+            .andExpect(jsonPath("$[1].status", is(400)))
+            .andExpect(jsonPath("$[1].error", is("title may not be empty")));
+  }
+
+  @Test
+  public void updateTodosShouldRequestUpdateOfAllTheTodosFromTheService() throws Exception {
+    List<TodoDTO> todosToUpdate = Arrays.asList(new TodoDTO("1", "title", "content"), new TodoDTO("2", "title", ""));
+
+    mvc.perform(put(todoBatchResourcePath)
+            .content(objectMapper.writeValueAsBytes(todosToUpdate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    verify(mockTodoService, times(1)).updateAll(todosToUpdate);
+  }
+
+  @Test
+  public void deleteTodosShouldRequestDeleteOfAllTheIdsFromTheService() throws Exception {
+    List<String> idsToDelete = Arrays.asList("1", "2");
+
+    mvc.perform(delete(todoBatchResourcePath)
+            .content(objectMapper.writeValueAsBytes(idsToDelete))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    verify(mockTodoService, times(1)).deleteAll(idsToDelete);
+  }
+
+  @Test
+  public void createTodosGivenMoreTodosThanTheMaximumBatchSizeShouldReturnPayloadTooLargeResponse() throws Exception {
+    List<TodoDTO> todosToCreate = Collections.nCopies(TodoController.MAX_BATCH_SIZE + 1,
+            new TodoDTO(null, "title", "content"));
+
+    mvc.perform(post(todoBatchResourcePath)
+            .content(objectMapper.writeValueAsBytes(todosToCreate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isPayloadTooLarge());
+    verify(mockTodoService, never()).createAll(anyListOf(TodoDTO.class));
+  }
+
   private static byte[] convertToJsonBytes(TodoDTO todoToCreate) throws JsonProcessingException {
     ObjectMapper mapper = new ObjectMapper();
     mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -0,0 +1,73 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryHttpMessageConverterTest {
+
+  private final TodoDTO todo = new TodoDTO("1", "A title", "Some content", 2L);
+
+  @Test
+  public void smileConverterShouldWriteSmileThatReadsBackAsTheSameTodo() throws IOException {
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    SmileHttpMessageConverter converterUnderTest = new SmileHttpMessageConverter(smileMapper);
+
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converterUnderTest.write(todo, SmileHttpMessageConverter.SMILE, output);
+
+    assertEquals(SmileHttpMessageConverter.SMILE, output.getHeaders().getContentType());
+    assertArrayEquals(smileMapper.writeValueAsBytes(todo), output.getBodyAsBytes());
+    assertEquals(todo, converterUnderTest.read(TodoDTO.class, new MockHttpInputMessage(output.getBodyAsBytes())));
+  }
+
+  @Test
+  public void cborConverterShouldWriteCborThatReadsBackAsTheSameTodo() throws IOException {
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    CborHttpMessageConverter converterUnderTest = new CborHttpMessageConverter(cborMapper);
+
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converterUnderTest.write(todo, CborHttpMessageConverter.CBOR, output);
+
+    assertEquals(CborHttpMessageConverter.CBOR, output.getHeaders().getContentType());
+    assertEquals(todo, cborMapper.readValue(output.getBodyAsBytes(), TodoDTO.class));
+  }
+
+  @Test
+  public void binaryConvertersShouldOnlyHandleTheirOwnMediaType() {
+    SmileHttpMessageConverter smile = new SmileHttpMessageConverter(new ObjectMapper(new SmileFactory()));
+    CborHttpMessageConverter cbor = new CborHttpMessageConverter(new ObjectMapper(new CBORFactory()));
+
+    assertTrue(smile.canWrite(TodoDTO.class, SmileHttpMessageConverter.SMILE));
+    assertFalse(smile.canWrite(TodoDTO.class, MediaType.APPLICATION_JSON));
+    assertTrue(cbor.canRead(TodoDTO.class, CborHttpMessageConverter.CBOR));
+    assertFalse(cbor.canRead(TodoDTO.class, SmileHttpMessageConverter.SMILE));
+  }
+
+  @Test
+  public void smileShouldBeSmallerThanJsonForAListOfTodos() throws IOException {
+    List<TodoDTO> todos = Collections.nCopies(50, todo);
+    MockHttpOutputMessage json = new MockHttpOutputMessage();
+    new MappingJackson2HttpMessageConverter().write(todos, MediaType.APPLICATION_JSON, json);
+    MockHttpOutputMessage smile = new MockHttpOutputMessage();
+    new SmileHttpMessageConverter(new ObjectMapper(new SmileFactory())).write(todos, SmileHttpMessageConverter.SMILE,
+            smile);
+
+    assertTrue(smile.getBodyAsBytes().length < json.getBodyAsBytes().length);
+  }
+}
@@ -0,0 +1,115 @@
+package com.tomogle.springrestfultodolist.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomogle.springrestfultodolist.AllocationMeter;
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class TodoJsonHttpMessageConverterTest {
+
+  /**
+   * Mostly Spring's handling of the headers, as writing a Todo with buffers that are not reused allocates over 16KB
+   */
+  private static final long WRITE_BUDGET_BYTES = 2048;
+
+  private final TodoDTO todo = new TodoDTO("1", "A title", null, 2L);
+  private final TodoJsonHttpMessageConverter converterUnderTest = new TodoJsonHttpMessageConverter(new ObjectMapper());
+
+  @Test
+  public void writeShouldWriteATodoAsTheJsonConverterDoes() throws IOException {
+    MockHttpOutputMessage expected = new MockHttpOutputMessage();
+    new MappingJackson2HttpMessageConverter().write(todo, MediaType.APPLICATION_JSON, expected);
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    converterUnderTest.write(todo, MediaType.APPLICATION_JSON, output);
+
+    assertEquals("{\"id\":\"1\",\"title\":\"A title\",\"version\":2}", output.getBodyAsString());
+    assertEquals(expected.getBodyAsString(), output.getBodyAsString());
+    assertEquals(expected.getHeaders().getContentType(), output.getHeaders().getContentType());
+  }
+
+  @Test
+  public void writeShouldWriteAnythingElseAsTheJsonConverterDoes() throws IOException {
+    List<TodoDTO> todos = Collections.singletonList(todo);
+    MockHttpOutputMessage expected = new MockHttpOutputMessage();
+    new MappingJackson2HttpMessageConverter().write(todos, MediaType.APPLICATION_JSON, expected);
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    converterUnderTest.write(todos, MediaType.APPLICATION_JSON, output);
+
+    assertEquals(expected.getBodyAsString(), output.getBodyAsString());
+  }
+
+  @Test
+  public void writeShouldLeaveTheResponseOpen() throws IOException {
+    ReusedOutputMessage output = new ReusedOutputMessage();
+
+    converterUnderTest.write(todo, MediaType.APPLICATION_JSON, output);
+
+    assertFalse(output.closed);
+    assertTrue(output.body.size() > 0);
+  }
+
+  @Test
+  public void writeShouldStayWithinItsAllocationBudget() throws Exception {
+    assumeTrue(AllocationMeter.isSupported());
+    ReusedOutputMessage output = new ReusedOutputMessage();
+
+    long bytesPerWrite = AllocationMeter.bytesPerCall(() -> {
+      output.body.reset();
+      converterUnderTest.write(todo, MediaType.APPLICATION_JSON, output);
+    });
+
+    assertTrue(bytesPerWrite + " bytes per write", bytesPerWrite <= WRITE_BUDGET_BYTES);
+  }
+
+  /**
+   * Output message reused for every write, so only the converter's own allocation is measured.
+   */
+  private static class ReusedOutputMessage implements HttpOutputMessage {
+    private final HttpHeaders headers = new HttpHeaders();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    private boolean closed;
+
+    @Override
+    public OutputStream getBody() {
+      return new OutputStream() {
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+          body.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() {
+          closed = true;
+        }
+      };
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.tomogle.springrestfultodolist.domain;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TodoTest {
+
+  private static final String LONG_CONTENT = String.join(" ", Collections.nCopies(200, "Buy milk, eggs and bread ✓"));
+
+  @Test
+  public void withContentCompressedAboveGivenLongContentShouldHoldItCompressedAndInflateItWhenRead() {
+    Todo todo = new Todo("1", "title", LONG_CONTENT, 1L);
+
+    Todo compressed = todo.withContentCompressedAbove(100);
+
+    assertTrue(compressed.getTodoContent().isCompressed());
+    assertTrue(compressed.getTodoContent().getCompressed().remaining() < LONG_CONTENT.length() / 10);
+    assertEquals(LONG_CONTENT, compressed.getContent());
+    assertEquals(todo, compressed);
+    assertEquals(todo.hashCode(), compressed.hashCode());
+  }
+
+  @Test
+  public void withContentCompressedAboveGivenShortOrIncompressibleContentShouldKeepItAsText() {
+    Todo shortContent = new Todo("1", "title", "short");
+    Todo noThreshold = new Todo("1", "title", LONG_CONTENT);
+
+    assertSame(shortContent, shortContent.withContentCompressedAbove(100));
+    assertSame(noThreshold, noThreshold.withContentCompressedAbove(0));
+    assertFalse(TodoContent.compress("a").isCompressed());
+  }
+
+  @Test
+  public void withOnlyAndWithFieldsFromShouldKeepContentCompressed() {
+    Todo compressed = new Todo("1", "title", LONG_CONTENT, 1L).withContentCompressedAbove(100);
+
+    Todo onlyContent = compressed.withOnly(EnumSet.of(TodoField.CONTENT));
+    Todo merged = new Todo("2", "other", "other", 3L).withFieldsFrom(compressed, EnumSet.of(TodoField.CONTENT));
+
+    assertSame(compressed.getTodoContent(), onlyContent.getTodoContent());
+    assertSame(compressed.getTodoContent(), merged.getTodoContent());
+  }
+
+  @Test
+  public void contentNotYetLoadedShouldBeLoadedOnceWhenFirstRead() {
+    TodoContent stored = TodoContent.compress(LONG_CONTENT);
+    AtomicInteger loads = new AtomicInteger();
+    Todo todo = Todo.of("1", "title", TodoContent.lazy(() -> {
+      loads.incrementAndGet();
+      return stored;
+    }), 1L);
+
+    Todo onlyContent = todo.withOnly(EnumSet.of(TodoField.ID, TodoField.CONTENT));
+    assertSame(todo.getTodoContent(), onlyContent.getTodoContent());
+    assertTrue(todo.getTodoContent().isCompressed());
+    assertEquals(0, loads.get());
+
+    assertEquals(LONG_CONTENT, todo.getContent());
+    assertEquals(LONG_CONTENT, todo.getContent());
+    assertSame(stored, todo.withContentLoaded().getTodoContent());
+    assertEquals(1, loads.get());
+  }
+}
@@ -0,0 +1,61 @@
+package com.tomogle.springrestfultodolist.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class EndpointMetricsInterceptorTest {
+
+  private MetricRegistry metricRegistry;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+            .addInterceptors(new EndpointMetricsInterceptor(metricRegistry))
+            .build();
+  }
+
+  @Test
+  public void requestShouldBeTimedByPathPatternAndStatus() throws Exception {
+    mockMvc.perform(get("/api/thing/1"));
+    mockMvc.perform(get("/api/thing/2"));
+
+    assertEquals(2, metricRegistry.timer("todo.endpoint.GET.api.thing.id.200").getCount());
+    assertFalse(metricRegistry.getCounters().containsKey("todo.endpoint.GET.api.thing.id.errors"));
+  }
+
+  @Test
+  public void failedRequestShouldBeTimedByStatusAndCountedAsAnError() throws Exception {
+    mockMvc.perform(get("/api/thing/missing"));
+
+    assertEquals(1, metricRegistry.timer("todo.endpoint.GET.api.thing.id.404").getCount());
+    assertEquals(1, metricRegistry.counter("todo.endpoint.GET.api.thing.id.errors").getCount());
+  }
+
+  @RestController
+  static class TestController {
+
+    @RequestMapping(value = "/api/thing/{id}", method = RequestMethod.GET)
+    public String getThing(@PathVariable("id") String id, HttpServletResponse response) {
+      if ("missing".equals(id)) {
+        response.setStatus(HttpStatus.NOT_FOUND.value());
+      }
+      return id;
+    }
+  }
+}
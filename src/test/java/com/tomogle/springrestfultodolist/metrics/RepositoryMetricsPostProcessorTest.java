@@ -0,0 +1,90 @@
+package com.tomogle.springrestfultodolist.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class RepositoryMetricsPostProcessorTest {
+
+  private MetricRegistry metricRegistry;
+  private TodoRepository repository;
+  private TodoRepository timedRepository;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    repository = mock(TodoRepository.class);
+    timedRepository = (TodoRepository) new RepositoryMetricsPostProcessor(metricRegistry)
+            .postProcessAfterInitialization(repository, "todoRepository");
+  }
+
+  @Test
+  public void postProcessShouldLeaveOtherBeansAlone() {
+    Object bean = new Object();
+    assertSame(bean, new RepositoryMetricsPostProcessor(metricRegistry).postProcessAfterInitialization(bean, "bean"));
+  }
+
+  @Test
+  public void postProcessShouldKeepTheOtherInterfacesOfTheRepository() throws Exception {
+    TodoRepository disposableRepository =
+            mock(TodoRepository.class, withSettings().extraInterfaces(DisposableBean.class));
+
+    Object timed = new RepositoryMetricsPostProcessor(metricRegistry)
+            .postProcessAfterInitialization(disposableRepository, "todoRepository");
+    ((DisposableBean) timed).destroy();
+
+    verify((DisposableBean) disposableRepository).destroy();
+    assertFalse(metricRegistry.getTimers().containsKey("todo.repository.destroy"));
+  }
+
+  @Test
+  public void repositoryCallShouldBeTimedByMethod() {
+    Todo todo = new Todo("1", "title", "content");
+    when(repository.find("1")).thenReturn(Optional.of(todo));
+
+    assertEquals(Optional.of(todo), timedRepository.find("1"));
+    assertEquals(1, metricRegistry.timer("todo.repository.find").getCount());
+    assertEquals(0, metricRegistry.counter("todo.repository.find.errors").getCount());
+  }
+
+  @Test
+  public void failedRepositoryCallShouldBeTimedAndCountedAsAnErrorAndRethrown() {
+    IllegalStateException failure = new IllegalStateException("Data store unavailable");
+    when(repository.findAll()).thenThrow(failure);
+
+    try {
+      timedRepository.findAll();
+      fail("Expected the repository exception");
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+    assertEquals(1, metricRegistry.timer("todo.repository.findAll").getCount());
+    assertEquals(1, metricRegistry.counter("todo.repository.findAll.errors").getCount());
+  }
+
+  @Test
+  public void streamingRepositoryCallShouldBeTimedWhenTheStreamIsClosed() {
+    when(repository.streamAll(TodoField.ALL)).thenReturn(Stream.of(new Todo("1", "title", "content")));
+
+    Stream<Todo> todos = timedRepository.streamAll(TodoField.ALL);
+    assertEquals(0, metricRegistry.timer("todo.repository.streamAll").getCount());
+    todos.close();
+    assertEquals(1, metricRegistry.timer("todo.repository.streamAll").getCount());
+  }
+}
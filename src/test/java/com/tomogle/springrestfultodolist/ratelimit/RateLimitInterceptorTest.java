@@ -0,0 +1,86 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RateLimitInterceptorTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private MetricRegistry metricRegistry;
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    metricRegistry = new MetricRegistry();
+    RateLimiter readLimiter = new RateLimiter(0.5, 1, 100, nanoTime::get);
+    RateLimiter writeLimiter = new RateLimiter(0.5, 1, 100, nanoTime::get);
+    mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+            .addInterceptors(new RateLimitInterceptor(readLimiter, writeLimiter, new HashSet<>(Arrays.asList("a", "b")),
+                    metricRegistry))
+            .build();
+  }
+
+  @Test
+  public void requestOverTheLimitShouldBeRejectedWithTheSecondsUntilTheClientMayRetry() throws Exception {
+    mockMvc.perform(get("/api/thing")).andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/thing"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "2"));
+    assertEquals(1, metricRegistry.counter("todo.rateLimit.read.rejected").getCount());
+  }
+
+  @Test
+  public void readsAndWritesShouldBeLimitedSeparately() throws Exception {
+    mockMvc.perform(post("/api/thing")).andExpect(status().isOk());
+    mockMvc.perform(post("/api/thing")).andExpect(status().isTooManyRequests());
+
+    mockMvc.perform(get("/api/thing")).andExpect(status().isOk());
+    assertEquals(1, metricRegistry.counter("todo.rateLimit.write.rejected").getCount());
+    assertEquals(0, metricRegistry.counter("todo.rateLimit.read.rejected").getCount());
+  }
+
+  @Test
+  public void clientsWithDifferentConfiguredApiKeysShouldBeLimitedSeparately() throws Exception {
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "a")).andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "b")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "a"))
+            .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  public void clientsWithUnknownApiKeysShouldBeLimitedByTheirAddress() throws Exception {
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "made up"))
+            .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "made up again"))
+            .andExpect(status().isTooManyRequests());
+    mockMvc.perform(get("/api/thing").header(RateLimitInterceptor.API_KEY_HEADER, "a")).andExpect(status().isOk());
+  }
+
+  @RestController
+  static class TestController {
+
+    @RequestMapping(value = "/api/thing", method = {RequestMethod.GET, RequestMethod.POST})
+    public String thing() {
+      return "thing";
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.tomogle.springrestfultodolist.ratelimit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  public void tryAcquireShouldAllowABurstUpToTheCapacityThenRefillAtTheRate() {
+    RateLimiter limiterUnderTest = new RateLimiter(10, 3, 100, nanoTime::get);
+
+    assertEquals(0, limiterUnderTest.tryAcquire("a"));
+    assertEquals(0, limiterUnderTest.tryAcquire("a"));
+    assertEquals(0, limiterUnderTest.tryAcquire("a"));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiterUnderTest.tryAcquire("a"));
+
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(0, limiterUnderTest.tryAcquire("a"));
+    assertTrue(limiterUnderTest.tryAcquire("a") > 0);
+  }
+
+  @Test
+  public void tryAcquireShouldLimitEachClientSeparately() {
+    RateLimiter limiterUnderTest = new RateLimiter(10, 1, 100, nanoTime::get);
+
+    assertEquals(0, limiterUnderTest.tryAcquire("a"));
+    assertTrue(limiterUnderTest.tryAcquire("a") > 0);
+    assertEquals(0, limiterUnderTest.tryAcquire("b"));
+  }
+
+  @Test
+  public void tryAcquireGivenAsManyClientsAsAllowedShouldDropFullBucketsToMakeRoom() {
+    RateLimiter limiterUnderTest = new RateLimiter(10, 1, 2, nanoTime::get);
+    limiterUnderTest.tryAcquire("a");
+    limiterUnderTest.tryAcquire("b");
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(0, limiterUnderTest.tryAcquire("c"));
+
+    assertEquals(1, limiterUnderTest.getClientCount());
+  }
+
+  @Test
+  public void tryAcquireGivenAsManyBusyClientsAsAllowedShouldShareOneBucketBetweenNewClients() {
+    RateLimiter limiterUnderTest = new RateLimiter(10, 1, 1, nanoTime::get);
+    limiterUnderTest.tryAcquire("a");
+
+    assertEquals(0, limiterUnderTest.tryAcquire("b"));
+    assertTrue(limiterUnderTest.tryAcquire("c") > 0);
+    assertEquals(1, limiterUnderTest.getClientCount());
+  }
+
+  @Test
+  public void concurrentRequestsFromTheSameClientShouldNotTakeMoreThanTheCapacity() throws Exception {
+    RateLimiter limiterUnderTest = new RateLimiter(1, 1000, 100, nanoTime::get);
+    AtomicInteger allowed = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> requests = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      requests.add(executor.submit(() -> {
+        for (int j = 0; j < 500; j++) {
+          if (limiterUnderTest.tryAcquire("a") == 0) {
+            allowed.incrementAndGet();
+          }
+        }
+      }));
+    }
+    for (Future<?> request : requests) {
+      request.get();
+    }
+    executor.shutdown();
+
+    assertEquals(1000, allowed.get());
+  }
+}
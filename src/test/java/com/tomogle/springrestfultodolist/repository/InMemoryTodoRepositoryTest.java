@@ -0,0 +1,219 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryTodoRepositoryTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private InMemoryTodoRepository repositoryUnderTest;
+
+  @Before
+  public void setUp() throws Exception {
+    repositoryUnderTest = new InMemoryTodoRepository((Path) null, 0);
+  }
+
+  @Test
+  public void saveGivenNewTodoShouldGenerateAnIdAndStartAtVersionOne() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    assertNotNull(saved.getId());
+    assertEquals(Long.valueOf(1L), saved.getVersion());
+    assertEquals(Optional.of(saved), repositoryUnderTest.find(saved.getId()));
+  }
+
+  @Test
+  public void saveGivenExistingTodoShouldReplaceItAndIncrementTheVersion() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    Todo updated = repositoryUnderTest.save(new Todo(saved.getId(), "new title", "new content"));
+
+    assertEquals(Long.valueOf(2L), updated.getVersion());
+    assertEquals("new title", repositoryUnderTest.find(saved.getId()).get().getTitle());
+  }
+
+  @Test
+  public void saveIfVersionShouldOnlySaveAtTheExpectedVersion() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    assertFalse(repositoryUnderTest.saveIfVersion(new Todo(saved.getId(), "stale", "stale"), 2L).isPresent());
+    Optional<Todo> updated = repositoryUnderTest.saveIfVersion(new Todo(saved.getId(), "current", "current"), 1L);
+
+    assertEquals(Long.valueOf(2L), updated.get().getVersion());
+    assertEquals("current", repositoryUnderTest.find(saved.getId()).get().getTitle());
+  }
+
+  @Test
+  public void saveIfVersionGivenMissingTodoShouldNotSave() {
+    assertFalse(repositoryUnderTest.saveIfVersion(new Todo("missing", "title", "content"), 1L).isPresent());
+    assertFalse(repositoryUnderTest.find("missing").isPresent());
+  }
+
+  @Test
+  public void saveFieldsShouldOnlyChangeThoseFields() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    Optional<Todo> patched = repositoryUnderTest.saveFields(new Todo(saved.getId(), "new title", null),
+            EnumSet.of(TodoField.TITLE));
+
+    assertEquals(Optional.of(new Todo(saved.getId(), "new title", "content", 2L)), patched);
+    assertEquals(patched, repositoryUnderTest.find(saved.getId()));
+  }
+
+  @Test
+  public void saveFieldsGivenMissingTodoShouldNotCreateIt() {
+    assertFalse(repositoryUnderTest.saveFields(new Todo("missing", "title", null), EnumSet.of(TodoField.TITLE))
+            .isPresent());
+    assertFalse(repositoryUnderTest.find("missing").isPresent());
+  }
+
+  @Test
+  public void saveFieldsIfVersionShouldOnlySaveAtTheExpectedVersion() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    assertFalse(repositoryUnderTest.saveFieldsIfVersion(new Todo(saved.getId(), null, null),
+            EnumSet.of(TodoField.CONTENT), 2L).isPresent());
+    Optional<Todo> patched = repositoryUnderTest.saveFieldsIfVersion(new Todo(saved.getId(), null, null),
+            EnumSet.of(TodoField.CONTENT), 1L);
+
+    assertEquals(Optional.of(new Todo(saved.getId(), "title", null, 2L)), patched);
+  }
+
+  @Test
+  public void findGivenFieldsShouldReturnOnlyThoseFields() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    Todo found = repositoryUnderTest.find(saved.getId(), EnumSet.of(TodoField.ID, TodoField.TITLE)).get();
+
+    assertEquals("title", found.getTitle());
+    assertNull(found.getContent());
+  }
+
+  @Test
+  public void findPageShouldReturnTodosInIdOrderAfterTheGivenId() {
+    repositoryUnderTest.saveAll(Arrays.asList(new Todo("c", "title c", "content c"),
+            new Todo("a", "title a", "content a"), new Todo("b", "title b", "content b")));
+
+    assertEquals(Arrays.asList("a", "b"), ids(repositoryUnderTest.findPage(null, 2, TodoField.ALL)));
+    assertEquals(Arrays.asList("c"), ids(repositoryUnderTest.findPage("b", 2, TodoField.ALL)));
+  }
+
+  @Test
+  public void findAndRemoveAllShouldRemoveAndReturnOnlyTheTodosThatExisted() {
+    repositoryUnderTest.saveAll(Arrays.asList(new Todo("a", "title a", "content a"),
+            new Todo("b", "title b", "content b")));
+
+    List<Todo> removed = repositoryUnderTest.findAndRemoveAll(Arrays.asList("a", "missing"));
+
+    assertEquals(Arrays.asList("a"), ids(removed));
+    assertEquals(Arrays.asList("b"), ids(repositoryUnderTest.findAll()));
+  }
+
+  @Test
+  public void countShouldOnlyCountTodosThatExist() {
+    repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    repositoryUnderTest.saveAll(Arrays.asList(new Todo("b", "title b", "content b"),
+            new Todo("c", "title c", "content c")));
+    repositoryUnderTest.findAndRemoveAll(Arrays.asList("c", "missing"));
+
+    assertEquals(2, repositoryUnderTest.count());
+  }
+
+  @Test
+  public void snapshotShouldBeRecoveredByANewRepository() throws Exception {
+    Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("todos.snapshot");
+    InMemoryTodoRepository snapshotting = new InMemoryTodoRepository(snapshotFile, 0);
+    Todo withNullContent = snapshotting.save(new Todo("a", "title a", null));
+    snapshotting.save(new Todo("b", "title é", "content ✓"));
+    Todo updated = snapshotting.save(new Todo("b", "title é", "content ✓"));
+    snapshotting.destroy();
+
+    InMemoryTodoRepository recovered = new InMemoryTodoRepository(snapshotFile, 0);
+
+    assertEquals(Optional.of(withNullContent), recovered.find("a"));
+    assertEquals(Optional.of(updated), recovered.find("b"));
+    assertEquals(2, recovered.count());
+  }
+
+  @Test
+  public void snapshotWhileTodosAreSavedAndRemovedShouldOnlyRecoverWholeTodos() throws Exception {
+    Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("todos.snapshot");
+    InMemoryTodoRepository snapshotting = new InMemoryTodoRepository(snapshotFile, 0);
+    for (int i = 0; i < 1000; i++) {
+      snapshotting.save(new Todo("todo" + i, "title", "content"));
+    }
+    AtomicBoolean writing = new AtomicBoolean(true);
+    Thread writer = new Thread(() -> {
+      for (int i = 1000; writing.get(); i++) {
+        snapshotting.save(new Todo("todo" + i, "title", "content"));
+        snapshotting.findAndRemove("todo" + (i - 1000));
+      }
+    });
+    writer.start();
+    try {
+      for (int i = 0; i < 200; i++) {
+        snapshotting.snapshot();
+      }
+    } finally {
+      writing.set(false);
+      writer.join();
+    }
+
+    List<Todo> recovered = new InMemoryTodoRepository(snapshotFile, 0).findAll();
+
+    assertFalse(recovered.isEmpty());
+    assertTrue(recovered.stream().allMatch(todo -> todo.getId().startsWith("todo") && "title".equals(todo.getTitle())));
+  }
+
+  @Test
+  public void saveGivenCompressionShouldHoldLongContentCompressedIncludingInTheSnapshot() throws Exception {
+    Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("todos.snapshot");
+    InMemoryTodoRepository compressing = new InMemoryTodoRepository(snapshotFile, 0, 100);
+    String content = String.join(" ", Collections.nCopies(100, "Buy milk, eggs and bread"));
+    Todo saved = compressing.save(new Todo("a", "title", content));
+    Todo shortContent = compressing.save(new Todo("b", "title", "short"));
+    compressing.destroy();
+
+    InMemoryTodoRepository recovered = new InMemoryTodoRepository(snapshotFile, 0, 100);
+
+    assertTrue(saved.getTodoContent().isCompressed());
+    assertFalse(shortContent.getTodoContent().isCompressed());
+    assertTrue(recovered.find("a").get().getTodoContent().isCompressed());
+    assertEquals(Optional.of(saved), recovered.find("a"));
+    assertEquals(Optional.of(shortContent), recovered.find("b"));
+    assertTrue(snapshotFile.toFile().length() < content.length());
+  }
+
+  @Test
+  public void newRepositoryWithoutASnapshotShouldBeEmpty() throws Exception {
+    Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("missing.snapshot");
+
+    assertTrue(new InMemoryTodoRepository(snapshotFile, 0).findAll().isEmpty());
+  }
+
+  private static List<String> ids(List<Todo> todos) {
+    return todos.stream().map(Todo::getId).collect(Collectors.toList());
+  }
+}
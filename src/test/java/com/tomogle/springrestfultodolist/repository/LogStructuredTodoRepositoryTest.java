@@ -0,0 +1,289 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.repository.LogStructuredTodoRepository.FsyncPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LogStructuredTodoRepositoryTest {
+
+  private static final long SMALL_SEGMENT_SIZE = 512;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+  private LogStructuredTodoRepository repositoryUnderTest;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.getRoot().toPath();
+    repositoryUnderTest = open();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    repositoryUnderTest.destroy();
+  }
+
+  @Test
+  public void saveGivenNewTodoShouldGenerateAnIdAndStartAtVersionOne() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    assertNotNull(saved.getId());
+    assertEquals(Long.valueOf(1L), saved.getVersion());
+    assertEquals(Optional.of(saved), repositoryUnderTest.find(saved.getId()));
+  }
+
+  @Test
+  public void saveIfVersionShouldOnlySaveAtTheExpectedVersion() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    assertFalse(repositoryUnderTest.saveIfVersion(new Todo(saved.getId(), "stale", "stale"), 2L).isPresent());
+    Optional<Todo> updated = repositoryUnderTest.saveIfVersion(new Todo(saved.getId(), "current", "current"), 1L);
+
+    assertEquals(Long.valueOf(2L), updated.get().getVersion());
+    assertEquals("current", repositoryUnderTest.find(saved.getId()).get().getTitle());
+  }
+
+  @Test
+  public void saveFieldsShouldOnlyChangeThoseFieldsIncludingAfterReopening() throws Exception {
+    repositoryUnderTest.save(new Todo("a", "title", "content"));
+    assertFalse(repositoryUnderTest.saveFields(new Todo("missing", "title", null), EnumSet.of(TodoField.TITLE))
+            .isPresent());
+    assertFalse(repositoryUnderTest.saveFieldsIfVersion(new Todo("a", "stale", null), EnumSet.of(TodoField.TITLE), 2L)
+            .isPresent());
+
+    Optional<Todo> patched = repositoryUnderTest.saveFieldsIfVersion(new Todo("a", "new title", null),
+            EnumSet.of(TodoField.TITLE), 1L);
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open();
+
+    assertEquals(Optional.of(new Todo("a", "new title", "content", 2L)), patched);
+    assertEquals(patched, repositoryUnderTest.find("a"));
+    assertFalse(repositoryUnderTest.find("missing").isPresent());
+  }
+
+  @Test
+  public void findAndRemoveShouldReturnTheTodoAndRemoveIt() {
+    Todo saved = repositoryUnderTest.save(new Todo("a", "title", "content"));
+
+    assertEquals(Optional.of(saved), repositoryUnderTest.findAndRemove("a"));
+    assertFalse(repositoryUnderTest.find("a").isPresent());
+    assertFalse(repositoryUnderTest.findAndRemove("a").isPresent());
+  }
+
+  @Test
+  public void findPageShouldReturnTodosInIdOrderAfterTheGivenId() {
+    repositoryUnderTest.saveAll(Arrays.asList(new Todo("c", "title c", "content c"),
+            new Todo("a", "title a", "content a"), new Todo("b", "title b", "content b")));
+
+    assertEquals(Arrays.asList("a", "b"), ids(repositoryUnderTest.findPage(null, 2, TodoField.ALL)));
+    assertEquals(Arrays.asList("c"), ids(repositoryUnderTest.findPage("b", 2, TodoField.ALL)));
+  }
+
+  @Test
+  public void saveAllShouldSeeEarlierSavesOfTheSameTodoInTheBatch() {
+    List<Todo> saved = repositoryUnderTest.saveAll(Arrays.asList(new Todo("a", "first", "content"),
+            new Todo("a", "second", "content")));
+
+    assertEquals(Long.valueOf(1L), saved.get(0).getVersion());
+    assertEquals(Long.valueOf(2L), saved.get(1).getVersion());
+    assertEquals("second", repositoryUnderTest.find("a").get().getTitle());
+  }
+
+  @Test
+  public void concurrentSavesOfTheSameTodoShouldEachGetTheirOwnVersion() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<CompletableFuture<Todo>> saves = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      saves.add(CompletableFuture.supplyAsync(() -> repositoryUnderTest.save(new Todo("a", "title", "content")),
+              executor));
+    }
+    List<Long> versions = saves.stream().map(CompletableFuture::join).map(Todo::getVersion).sorted()
+            .collect(Collectors.toList());
+    executor.shutdown();
+
+    assertEquals(Stream.iterate(1L, version -> version + 1).limit(200).collect(Collectors.toList()), versions);
+    assertEquals(Long.valueOf(200L), repositoryUnderTest.find("a").get().getVersion());
+  }
+
+  @Test
+  public void savesRacingDestroyShouldEachBeWrittenOrRefusedRatherThanLeftWaiting() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<CompletableFuture<Void>> saves = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      String id = "todo" + i;
+      saves.add(CompletableFuture.runAsync(() -> {
+        try {
+          repositoryUnderTest.save(new Todo(id, "title", "content"));
+        } catch (IllegalStateException closed) {
+          // Refused, as the log was closed first
+        }
+      }, executor));
+    }
+    repositoryUnderTest.destroy();
+
+    CompletableFuture.allOf(saves.toArray(new CompletableFuture[saves.size()])).get(10, TimeUnit.SECONDS);
+    executor.shutdown();
+    repositoryUnderTest = open();
+  }
+
+  @Test
+  public void reopenedRepositoryShouldRecoverTheLatestStateOfEachTodo() throws Exception {
+    repositoryUnderTest.save(new Todo("a", "title a", null));
+    Todo updated = repositoryUnderTest.save(new Todo("a", "title é", "content ✓"));
+    repositoryUnderTest.save(new Todo("b", "title b", "content b"));
+    repositoryUnderTest.findAndRemove("b");
+    repositoryUnderTest.destroy();
+
+    repositoryUnderTest = open();
+
+    assertEquals(Optional.of(updated), repositoryUnderTest.find("a"));
+    assertFalse(repositoryUnderTest.find("b").isPresent());
+    assertEquals(Long.valueOf(3L), repositoryUnderTest.save(new Todo("a", "title", "content")).getVersion());
+  }
+
+  @Test
+  public void countShouldOnlyCountTodosThatExistIncludingAfterReopening() throws Exception {
+    repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    repositoryUnderTest.saveAll(Arrays.asList(new Todo("b", "title b", "content b"),
+            new Todo("c", "title c", "content c")));
+    repositoryUnderTest.findAndRemove("c");
+    repositoryUnderTest.findAndRemove("missing");
+    assertEquals(2, repositoryUnderTest.count());
+
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open();
+
+    assertEquals(2, repositoryUnderTest.count());
+  }
+
+  @Test
+  public void reopenedRepositoryShouldDropARecordCutShortByACrash() throws Exception {
+    Todo saved = repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    repositoryUnderTest.destroy();
+    Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.filter(file -> TodoLogSegment.idOf(file) >= 0).findFirst().get();
+    }
+    Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+    repositoryUnderTest = open();
+
+    assertEquals(Optional.of(saved), repositoryUnderTest.find("a"));
+    Todo savedAfterRecovery = repositoryUnderTest.save(new Todo("b", "title b", "content b"));
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open();
+    assertEquals(Optional.of(savedAfterRecovery), repositoryUnderTest.find("b"));
+  }
+
+  @Test
+  public void compactShouldRemoveSupersededRecordsAndKeepTheLatestState() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      repositoryUnderTest.save(new Todo("a", "title " + i, "content"));
+      repositoryUnderTest.save(new Todo("b", "title " + i, "content"));
+    }
+    repositoryUnderTest.save(new Todo("c", "title c", "content c"));
+    repositoryUnderTest.findAndRemove("c");
+    long sizeBeforeCompaction = logSize();
+
+    repositoryUnderTest.compact();
+
+    assertTrue(logSize() < sizeBeforeCompaction / 4);
+    assertEquals("title 49", repositoryUnderTest.find("a").get().getTitle());
+    assertEquals(Long.valueOf(50L), repositoryUnderTest.find("b").get().getVersion());
+    assertFalse(repositoryUnderTest.find("c").isPresent());
+
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open();
+    assertEquals("title 49", repositoryUnderTest.find("a").get().getTitle());
+    assertEquals(Long.valueOf(50L), repositoryUnderTest.find("b").get().getVersion());
+    assertFalse(repositoryUnderTest.find("c").isPresent());
+  }
+
+  @Test
+  public void compactShouldKeepATombstoneWhileASegmentMadeByCompactionHoldsTheDeletedTodo() throws Exception {
+    repositoryUnderTest.save(new Todo("a", "title a", "content a"));
+    for (int i = 0; i < 30; i++) {
+      repositoryUnderTest.save(new Todo("b", "title " + i, "content"));
+    }
+    // Moves a to a new segment with a higher ID than the active segment the delete then lands in
+    repositoryUnderTest.compact();
+    repositoryUnderTest.findAndRemove("a");
+    for (int i = 0; i < 30; i++) {
+      repositoryUnderTest.save(new Todo("b", "title " + i, "content"));
+    }
+
+    repositoryUnderTest.compact();
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open();
+
+    assertFalse(repositoryUnderTest.find("a").isPresent());
+    assertEquals("title 29", repositoryUnderTest.find("b").get().getTitle());
+  }
+
+  @Test
+  public void saveGivenCompressionShouldRecordLongContentCompressedIncludingAfterReopening() throws Exception {
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open(100);
+    String content = String.join(" ", Collections.nCopies(100, "Buy milk, eggs and bread"));
+    repositoryUnderTest.save(new Todo("a", "title", content));
+    repositoryUnderTest.saveFields(new Todo("a", "new title", null), EnumSet.of(TodoField.TITLE));
+
+    repositoryUnderTest.destroy();
+    repositoryUnderTest = open(100);
+
+    Todo recovered = repositoryUnderTest.find("a").get();
+    assertTrue(recovered.getTodoContent().isCompressed());
+    assertEquals(content, recovered.getContent());
+    assertEquals("new title", recovered.getTitle());
+    assertTrue(logSize() < content.length());
+  }
+
+  private LogStructuredTodoRepository open() throws IOException {
+    return open(0);
+  }
+
+  private LogStructuredTodoRepository open(int compressContentAboveChars) throws IOException {
+    return new LogStructuredTodoRepository(directory, SMALL_SEGMENT_SIZE, FsyncPolicy.ALWAYS, 1000, 0,
+            compressContentAboveChars);
+  }
+
+  private long logSize() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.mapToLong(file -> file.toFile().length()).sum();
+    }
+  }
+
+  private static List<String> ids(List<Todo> todos) {
+    return todos.stream().map(Todo::getId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,209 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PartitionedTodoRepositoryTest {
+
+  private MetricRegistry metricRegistry;
+  private Map<String, TodoRepository> partitions;
+  private PartitionedTodoRepository repositoryUnderTest;
+
+  @Before
+  public void setUp() throws Exception {
+    metricRegistry = new MetricRegistry();
+    partitions = inMemoryPartitions(4);
+    repositoryUnderTest = new PartitionedTodoRepository(partitions, Comparator.naturalOrder(), metricRegistry);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    repositoryUnderTest.destroy();
+  }
+
+  @Test
+  public void saveShouldStoreTheTodoOnlyInThePartitionItsIdHashesTo() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    String partition = repositoryUnderTest.partitionNameOf(saved.getId());
+    assertEquals(Optional.of(saved), partitions.get(partition).find(saved.getId()));
+    assertEquals(1, partitions.values().stream().mapToLong(TodoRepository::count).sum());
+    assertEquals(Optional.of(saved), repositoryUnderTest.find(saved.getId()));
+    assertEquals(Long.valueOf(2L), repositoryUnderTest.save(saved).getVersion());
+  }
+
+  @Test
+  public void saveFieldsShouldChangeTheTodoInThePartitionItsIdHashesTo() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+
+    Optional<Todo> patched = repositoryUnderTest.saveFieldsIfVersion(new Todo(saved.getId(), "new title", null),
+            EnumSet.of(TodoField.TITLE), 1L);
+
+    String partition = repositoryUnderTest.partitionNameOf(saved.getId());
+    assertEquals(Optional.of(new Todo(saved.getId(), "new title", "content", 2L)), patched);
+    assertEquals(patched, partitions.get(partition).find(saved.getId()));
+    assertFalse(repositoryUnderTest.saveFields(new Todo("missing", "title", null), EnumSet.of(TodoField.TITLE))
+            .isPresent());
+  }
+
+  @Test
+  public void findAllAndCountShouldGatherTheTodosOfEveryPartitionInIdOrder() {
+    List<String> ids = saveTodos(100);
+
+    assertEquals(ids, ids(repositoryUnderTest.findAll()));
+    assertEquals(100, repositoryUnderTest.count());
+    assertTrue(partitions.values().stream().allMatch(partition -> partition.count() > 0));
+  }
+
+  @Test
+  public void findPageShouldPageThroughTheTodosOfEveryPartitionInIdOrder() {
+    List<String> ids = saveTodos(50);
+
+    List<String> paged = new ArrayList<>();
+    List<Todo> page = repositoryUnderTest.findPage(null, 7, TodoField.ALL);
+    while (!page.isEmpty()) {
+      paged.addAll(ids(page));
+      page = repositoryUnderTest.findPage(paged.get(paged.size() - 1), 7, TodoField.ALL);
+    }
+
+    assertEquals(ids, paged);
+  }
+
+  @Test
+  public void saveAllShouldReturnTheSavedTodosInBatchOrder() {
+    List<Todo> batch = Arrays.asList(new Todo("a", "title a", "content"), new Todo(null, "new", "content"),
+            new Todo("b", "title b", "content"), new Todo("a", "title a2", "content"));
+
+    List<Todo> saved = repositoryUnderTest.saveAll(batch);
+
+    assertEquals(Arrays.asList("title a", "new", "title b", "title a2"),
+            saved.stream().map(Todo::getTitle).collect(Collectors.toList()));
+    assertEquals(Long.valueOf(2L), saved.get(3).getVersion());
+    assertEquals(Optional.of(saved.get(1)), repositoryUnderTest.find(saved.get(1).getId()));
+  }
+
+  @Test
+  public void findAndRemoveAllShouldRemoveTheTodosFromEveryPartition() {
+    List<String> ids = saveTodos(20);
+
+    List<Todo> removed = repositoryUnderTest.findAndRemoveAll(ids.subList(0, 10));
+
+    assertEquals(10, removed.size());
+    assertEquals(ids.subList(10, 20), ids(repositoryUnderTest.findAll()));
+  }
+
+  @Test
+  public void streamAllShouldStreamTheTodosOfEveryPartition() {
+    List<String> ids = saveTodos(20);
+
+    try (Stream<Todo> todos = repositoryUnderTest.streamAll(TodoField.ALL)) {
+      assertEquals(ids, todos.map(Todo::getId).sorted().collect(Collectors.toList()));
+    }
+    assertEquals(4, metricRegistry.getTimers().keySet().stream().filter(name -> name.endsWith(".streamAll")).count());
+  }
+
+  @Test
+  public void todosShouldBeSpreadEvenlyAcrossThePartitions() {
+    Map<String, Integer> todosByPartition = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      todosByPartition.merge(repositoryUnderTest.partitionNameOf("todo-" + i), 1, Integer::sum);
+    }
+
+    assertEquals(4, todosByPartition.size());
+    todosByPartition.values().forEach(count -> assertTrue("Uneven spread " + todosByPartition, count > 1500));
+  }
+
+  @Test
+  public void addingAPartitionShouldOnlyMoveTodosToTheNewPartition() throws Exception {
+    Map<String, TodoRepository> fivePartitions = inMemoryPartitions(5);
+    PartitionedTodoRepository withAnotherPartition = new PartitionedTodoRepository(fivePartitions,
+            Comparator.naturalOrder(), new MetricRegistry());
+    int moved = 0;
+    for (int i = 0; i < 10_000; i++) {
+      String before = repositoryUnderTest.partitionNameOf("todo-" + i);
+      String after = withAnotherPartition.partitionNameOf("todo-" + i);
+      if (!before.equals(after)) {
+        assertEquals("partition4", after);
+        moved++;
+      }
+    }
+    withAnotherPartition.destroy();
+
+    assertTrue("Moved " + moved, moved > 1000 && moved < 3000);
+  }
+
+  @Test
+  public void callsShouldBeTimedForEachPartitionWithTheNumberOfTodosItHolds() {
+    Todo saved = repositoryUnderTest.save(new Todo(null, "title", "content"));
+    repositoryUnderTest.findAll();
+
+    String partition = repositoryUnderTest.partitionNameOf(saved.getId());
+    assertEquals(1, metricRegistry.timer("todo.partition." + partition + ".save").getCount());
+    assertEquals(1, metricRegistry.timer("todo.partition.partition0.findAll").getCount());
+    assertEquals(1L, metricRegistry.getGauges().get("todo.partition." + partition + ".todos").getValue());
+  }
+
+  @Test
+  public void partitionFailuresShouldBeCountedAndThrown() throws Exception {
+    Map<String, TodoRepository> failing = new LinkedHashMap<>(partitions);
+    failing.put("partition0", new InMemoryTodoRepository((Path) null, 0) {
+      @Override
+      public long count() {
+        throw new IllegalStateException("Partition unavailable");
+      }
+    });
+    MetricRegistry failingMetrics = new MetricRegistry();
+    PartitionedTodoRepository withFailingPartition = new PartitionedTodoRepository(failing,
+            Comparator.naturalOrder(), failingMetrics);
+    try {
+      withFailingPartition.count();
+      fail("The partition failure was not thrown");
+    } catch (IllegalStateException expected) {
+      assertEquals(1, failingMetrics.counter("todo.partition.partition0.count.errors").getCount());
+    } finally {
+      withFailingPartition.destroy();
+    }
+  }
+
+  private List<String> saveTodos(int count) {
+    return IntStream.range(0, count)
+            .mapToObj(i -> repositoryUnderTest.save(new Todo(null, "title " + i, "content")).getId())
+            .sorted()
+            .collect(Collectors.toList());
+  }
+
+  private static Map<String, TodoRepository> inMemoryPartitions(int count) throws Exception {
+    Map<String, TodoRepository> partitions = new LinkedHashMap<>();
+    for (int partition = 0; partition < count; partition++) {
+      partitions.put("partition" + partition, new InMemoryTodoRepository((Path) null, 0));
+    }
+    return partitions;
+  }
+
+  private static List<String> ids(List<Todo> todos) {
+    return todos.stream().map(Todo::getId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,89 @@
+package com.tomogle.springrestfultodolist.repository;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoContent;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TodoDocumentReaderTest {
+
+  private static final String LONG_CONTENT = String.join(" ", Collections.nCopies(200, "Buy milk, eggs and bread"));
+
+  private DBCollection contents;
+  private TodoDocumentReader readerUnderTest;
+
+  @Before
+  public void setUp() {
+    DB database = mock(DB.class);
+    contents = mock(DBCollection.class);
+    when(database.getCollection(TodoRepositoryImpl.CONTENT_COLLECTION)).thenReturn(contents);
+    readerUnderTest = new TodoDocumentReader(() -> database);
+  }
+
+  @Test
+  public void convertGivenContentStoredAsTextShouldReadIt() {
+    ObjectId id = new ObjectId();
+    Todo todo = readerUnderTest.convert(new BasicDBObject("_id", id)
+            .append("title", "title")
+            .append("content", "content")
+            .append("version", 3L));
+
+    assertEquals(new Todo(id.toHexString(), "title", "content", 3L), todo);
+    verify(contents, never()).findOne(any(Object.class));
+  }
+
+  @Test
+  public void convertGivenContentStoredApartShouldOnlyLoadItOnceItIsRead() {
+    ObjectId contentId = new ObjectId();
+    TodoContent compressed = TodoContent.compress(LONG_CONTENT);
+    ByteBuffer data = compressed.getCompressed();
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    when(contents.findOne(contentId)).thenReturn(new BasicDBObject("_id", contentId)
+            .append("data", bytes)
+            .append("utf8Length", compressed.getUtf8Length()));
+
+    Todo todo = readerUnderTest.convert(new BasicDBObject("_id", "a")
+            .append("title", "title")
+            .append("contentId", contentId)
+            .append("version", 1L));
+    assertEquals("a", todo.getId());
+    assertTrue(todo.getTodoContent().isCompressed());
+    verify(contents, never()).findOne(any(Object.class));
+
+    assertEquals(LONG_CONTENT, todo.getContent());
+    assertEquals(LONG_CONTENT, todo.getContent());
+    verify(contents, times(1)).findOne(contentId);
+  }
+
+  @Test(expected = DataRetrievalFailureException.class)
+  public void readingContentNoLongerStoredShouldThrow() {
+    Todo todo = readerUnderTest.convert(new BasicDBObject("_id", "a").append("contentId", new ObjectId()));
+
+    todo.getContent();
+  }
+
+  @Test
+  public void convertGivenAProjectionWithoutContentShouldLeaveItNull() {
+    Todo todo = readerUnderTest.convert(new BasicDBObject("_id", "a").append("title", "title"));
+
+    assertEquals(new Todo("a", "title", null, null), todo);
+  }
+}
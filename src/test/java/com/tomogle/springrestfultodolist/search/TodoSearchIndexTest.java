@@ -0,0 +1,82 @@
+package com.tomogle.springrestfultodolist.search;
+
+import com.tomogle.springrestfultodolist.domain.Todo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TodoSearchIndexTest {
+
+  private final TodoSearchIndex indexUnderTest = new TodoSearchIndex();
+
+  @Test
+  public void searchShouldFindTodosByAnyWordInTheTitleOrContentIgnoringCase() {
+    indexUnderTest.index(new Todo("1", "Buy milk", "From the shop"));
+    indexUnderTest.index(new Todo("2", "Walk the dog", "Around the PARK"));
+    indexUnderTest.index(new Todo("3", "Read", "A book"));
+
+    TodoSearchIndex.Hits hits = indexUnderTest.search("park, milk!", 0, 10);
+
+    assertEquals(2, hits.getTotal());
+    assertEquals(2, hits.getIds().size());
+    assertTrue(hits.getIds().containsAll(Arrays.asList("1", "2")));
+  }
+
+  @Test
+  public void searchShouldRankTodosMatchingInTheTitleAndMatchingMoreWordsHigher() {
+    indexUnderTest.index(new Todo("content", "Chores", "Paint the fence"));
+    indexUnderTest.index(new Todo("title", "Paint the fence", "Chores"));
+    indexUnderTest.index(new Todo("one word", "Paint", "Chores"));
+
+    assertEquals(Arrays.asList("title", "content", "one word"), indexUnderTest.search("paint fence", 0, 10).getIds());
+  }
+
+  @Test
+  public void searchShouldReturnTheRequestedPageOfResults() {
+    indexUnderTest.index(new Todo("a", "garden", "garden garden"));
+    indexUnderTest.index(new Todo("b", "garden", "garden"));
+    indexUnderTest.index(new Todo("c", "garden", "weeds"));
+
+    assertEquals(Arrays.asList("a", "b"), indexUnderTest.search("garden", 0, 2).getIds());
+    assertEquals(Collections.singletonList("c"), indexUnderTest.search("garden", 2, 2).getIds());
+    assertEquals(Collections.emptyList(), indexUnderTest.search("garden", 4, 2).getIds());
+    assertEquals(3, indexUnderTest.search("garden", 4, 2).getTotal());
+  }
+
+  @Test
+  public void indexGivenANewVersionShouldReplaceTheWordsOfTheOldVersion() {
+    indexUnderTest.index(new Todo("1", "Buy milk", "", 1L));
+    indexUnderTest.index(new Todo("1", "Buy bread", "", 2L));
+
+    assertEquals(0, indexUnderTest.search("milk", 0, 10).getTotal());
+    assertEquals(Collections.singletonList("1"), indexUnderTest.search("bread", 0, 10).getIds());
+  }
+
+  @Test
+  public void indexGivenAnOlderVersionShouldIgnoreIt() {
+    indexUnderTest.index(new Todo("1", "Buy bread", "", 2L));
+    indexUnderTest.index(new Todo("1", "Buy milk", "", 1L));
+
+    assertEquals(0, indexUnderTest.search("milk", 0, 10).getTotal());
+    assertEquals(1, indexUnderTest.search("bread", 0, 10).getTotal());
+  }
+
+  @Test
+  public void removeShouldStopTheTodoBeingFound() {
+    indexUnderTest.index(new Todo("1", "Buy milk", "From the shop"));
+
+    indexUnderTest.remove("1");
+
+    assertEquals(0, indexUnderTest.search("milk", 0, 10).getTotal());
+    assertEquals(0, indexUnderTest.size());
+  }
+
+  @Test
+  public void tokenizeShouldSplitOnAnythingButLettersAndDigits() {
+    assertEquals(Arrays.asList("café", "au", "lait", "2x"), TodoSearchIndex.tokenize("Café-au lait, 2x!"));
+  }
+}
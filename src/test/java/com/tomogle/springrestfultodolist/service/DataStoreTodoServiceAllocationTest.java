@@ -0,0 +1,89 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.AllocationMeter;
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.cache.TodoCountCache;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.repository.InMemoryTodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.validation.Validation;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Keeps reading a Todo by its ID, the most common request, within a budget of bytes allocated per read, with the data
+ * store held in memory so only the service's own allocation is measured.
+ */
+public class DataStoreTodoServiceAllocationTest {
+
+  // Measured on Java 8 at 48 and 56 bytes, leaving headroom for how differently the JIT may compile the reads
+  private static final long FOUND_BUDGET_BYTES = 96;
+  private static final long NOT_FOUND_BUDGET_BYTES = 160;
+
+  private TodoChangeFeed changeFeed;
+  private DataStoreTodoService serviceUnderTest;
+  private String savedId;
+
+  @Before
+  public void setUp() throws Exception {
+    InMemoryTodoRepository repository = new InMemoryTodoRepository((Path) null, 0);
+    savedId = repository.save(new Todo(null, "A title", "Some content")).getId();
+    changeFeed = new TodoChangeFeed(10);
+    TodoSearchIndex searchIndex = new TodoSearchIndex();
+    serviceUnderTest = new DataStoreTodoService(repository, new TodoCache(10, 0), new TodoCountCache(1000),
+            searchIndex, new TodoSearchIndexBuilder(() -> repository, searchIndex),
+            Validation.buildDefaultValidatorFactory().getValidator(), changeFeed, new TodoIdempotencyStore(10, 60),
+            Optional.empty());
+  }
+
+  @After
+  public void tearDown() {
+    changeFeed.destroy();
+  }
+
+  @Test
+  public void findByIdShouldStayWithinItsAllocationBudget() throws Exception {
+    assumeTrue(AllocationMeter.isSupported());
+
+    long bytesPerRead = AllocationMeter.bytesPerCall(() -> serviceUnderTest.findById(savedId));
+
+    assertTrue(bytesPerRead + " bytes per read", bytesPerRead <= FOUND_BUDGET_BYTES);
+  }
+
+  @Test
+  public void findByIdNotFoundShouldStayWithinItsAllocationBudget() throws Exception {
+    assumeTrue(AllocationMeter.isSupported());
+
+    long bytesPerRead = AllocationMeter.bytesPerCall(() -> {
+      try {
+        serviceUnderTest.findById("5716b8a2e4b0a1c2d3e4f5a6");
+      } catch (TodoNotFoundException expected) {
+        // The allocation of the miss is what is measured
+      }
+    });
+
+    assertTrue(bytesPerRead + " bytes per read", bytesPerRead <= NOT_FOUND_BUDGET_BYTES);
+  }
+
+  @Test
+  public void findByIdNotFoundShouldNotRecordAStackTrace() {
+    try {
+      serviceUnderTest.findById("5716b8a2e4b0a1c2d3e4f5a6");
+    } catch (TodoNotFoundException e) {
+      assertEquals("Could not find Todo with ID 5716b8a2e4b0a1c2d3e4f5a6", e.getMessage());
+      assertEquals(0, e.getStackTrace().length);
+      return;
+    }
+    throw new AssertionError("The Todo was found");
+  }
+}
@@ -1,25 +1,58 @@
 package com.tomogle.springrestfultodolist.service;
 
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.cache.TodoCountCache;
+import com.tomogle.springrestfultodolist.changes.TodoChange;
+import com.tomogle.springrestfultodolist.changes.TodoChangeFeed;
 import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.domain.TodoField;
+import com.tomogle.springrestfultodolist.dto.TodoBatchResultDTO;
 import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPageDTO;
+import com.tomogle.springrestfultodolist.dto.TodoPatchDTO;
+import com.tomogle.springrestfultodolist.exception.TodoBadCursorException;
 import com.tomogle.springrestfultodolist.exception.TodoBadIDException;
+import com.tomogle.springrestfultodolist.exception.TodoBadPatchException;
 import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoSearchNotReadyException;
+import com.tomogle.springrestfultodolist.exception.TodoVersionConflictException;
 import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import javax.validation.Validation;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.notNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -28,6 +61,14 @@ public class DataStoreTodoServiceTest {
   @Mock
   private TodoRepository mockTodoRepository;
 
+  @Mock
+  private TodoChangeFeed changeFeed;
+
+  private TodoCache cache;
+  private TodoCountCache countCache;
+  private TodoIdempotencyStore idempotencyStore;
+  private TodoSearchIndex searchIndex;
+  private TodoSearchIndexBuilder searchIndexBuilder;
   private DataStoreTodoService serviceUnderTest;
   private final String ID = "1";
   private final String TITLE = "A Placeholder";
@@ -35,7 +76,14 @@ public class DataStoreTodoServiceTest {
 
   @Before
   public void setUp() {
-    serviceUnderTest = new DataStoreTodoService(mockTodoRepository);
+    cache = new TodoCache(100, 0);
+    countCache = new TodoCountCache(60_000);
+    idempotencyStore = new TodoIdempotencyStore(100, 60);
+    searchIndex = new TodoSearchIndex();
+    when(mockTodoRepository.normaliseId(anyString())).thenAnswer(returnsFirstArg());
+    searchIndexBuilder = new TodoSearchIndexBuilder(() -> mockTodoRepository, searchIndex);
+    serviceUnderTest = new DataStoreTodoService(mockTodoRepository, cache, countCache, searchIndex, searchIndexBuilder,
+            Validation.buildDefaultValidatorFactory().getValidator(), changeFeed, idempotencyStore, Optional.empty());
   }
 
   @Test
@@ -77,6 +125,86 @@ public class DataStoreTodoServiceTest {
     assertEquals("The returned ToDoDTO was not the expected ToDoDTO", expectedResult, result);
   }
 
+  @Test
+  public void findByIdGivenTodoWasAlreadyFoundShouldNotReadFromDataStoreAgain() throws TodoNotFoundException {
+    String idInDataStore = "id in data store";
+    Todo returnedFromDataStore = new Todo(idInDataStore, TITLE, DESCRIPTION);
+    when(mockTodoRepository.find(idInDataStore)).thenReturn(Optional.of(returnedFromDataStore));
+
+    serviceUnderTest.findById(idInDataStore);
+    TodoDTO result = serviceUnderTest.findById(idInDataStore);
+    assertEquals(createTodoDTO(idInDataStore, TITLE, DESCRIPTION), result);
+    verify(mockTodoRepository, times(1)).find(idInDataStore);
+  }
+
+  @Test
+  public void findByIdAfterUpdateShouldReturnTheUpdatedTodoWithoutReadingFromDataStore()
+          throws TodoNotFoundException, TodoBadIDException {
+    String id = "an ID";
+    when(mockTodoRepository.find(id)).thenReturn(Optional.of(new Todo(id, "title", "content")));
+    serviceUnderTest.findById(id);
+    Todo updatedTodo = new Todo(id, "new title", "new content");
+    when(mockTodoRepository.save(updatedTodo)).thenReturn(updatedTodo);
+
+    serviceUnderTest.update(id, new TodoDTO(id, "new title", "new content"));
+    TodoDTO result = serviceUnderTest.findById(id);
+    assertEquals(new TodoDTO(id, "new title", "new content"), result);
+    verify(mockTodoRepository, times(1)).find(id);
+  }
+
+  @Test(expected = TodoNotFoundException.class)
+  public void findByIdAfterDeleteShouldNotReturnTheDeletedTodo() throws TodoNotFoundException {
+    String id = "an ID";
+    when(mockTodoRepository.find(id)).thenReturn(Optional.of(new Todo(id, "title", "content")));
+    serviceUnderTest.findById(id);
+    when(mockTodoRepository.findAndRemove(id)).thenReturn(Optional.of(new Todo(id, "title", "content")));
+
+    serviceUnderTest.delete(id);
+    when(mockTodoRepository.find(id)).thenReturn(Optional.empty());
+    serviceUnderTest.findById(id);
+  }
+
+  @Test
+  public void findByIdGivenFieldsShouldReadOnlyThoseFieldsFromDataStore() throws TodoNotFoundException {
+    String id = "id in data store";
+    Set<TodoField> fields = EnumSet.of(TodoField.ID, TodoField.TITLE);
+    when(mockTodoRepository.find(id, fields)).thenReturn(Optional.of(new Todo(id, TITLE, null)));
+
+    TodoDTO result = serviceUnderTest.findById(id, fields);
+    assertEquals(createTodoDTO(id, TITLE, null), result);
+    verify(mockTodoRepository, never()).find(id);
+  }
+
+  @Test
+  public void findByIdGivenFieldsAndTodoAlreadyFoundShouldReturnOnlyThoseFieldsWithoutReadingFromDataStore()
+          throws TodoNotFoundException {
+    String id = "id in data store";
+    when(mockTodoRepository.find(id)).thenReturn(Optional.of(new Todo(id, TITLE, DESCRIPTION, 2L)));
+    serviceUnderTest.findById(id);
+
+    TodoDTO result = serviceUnderTest.findById(id, EnumSet.of(TodoField.ID, TodoField.CONTENT));
+    assertEquals(createTodoDTO(id, null, DESCRIPTION), result);
+    verify(mockTodoRepository, never()).find(id, EnumSet.of(TodoField.ID, TodoField.CONTENT));
+  }
+
+  @Test(expected = TodoNotFoundException.class)
+  public void findByIdGivenFieldsShouldThrowIfCannotFindTodo() throws TodoNotFoundException {
+    Set<TodoField> fields = EnumSet.of(TodoField.ID, TodoField.TITLE);
+    when(mockTodoRepository.find("missing", fields)).thenReturn(Optional.empty());
+
+    serviceUnderTest.findById("missing", fields);
+  }
+
+  @Test
+  public void findAllGivenFieldsShouldStreamOnlyThoseFieldsFromDataStore() {
+    Set<TodoField> fields = EnumSet.of(TodoField.ID, TodoField.TITLE);
+    when(mockTodoRepository.streamAll(fields)).thenReturn(Stream.of(new Todo("1", "title", null)));
+
+    List<TodoDTO> result = serviceUnderTest.findAll(fields);
+    assertEquals(Arrays.asList(new TodoDTO("1", "title", null)), result);
+    verify(mockTodoRepository, never()).findAll();
+  }
+
   @Test
   public void findAllGivenNoTodosInDatastoreShouldReturnEmptyList() {
     List<TodoDTO> expectedResult = new ArrayList<>();
@@ -101,14 +229,75 @@ public class DataStoreTodoServiceTest {
     assertEquals("The returned List of DTOs was not as expected", expectedResult, result);
   }
 
+  @Test
+  public void streamAllShouldReturnConvertedToDoDTOsFromDataStore() {
+    Todo todo1 = new Todo("1", "title", "contents");
+    Todo todo2 = new Todo("2", "title 2", "contents 2");
+    List<TodoDTO> expectedResult = Arrays.asList(
+            new TodoDTO("1", "title", "contents"), new TodoDTO("2", "title 2", "contents 2"));
+
+    when(mockTodoRepository.streamAll(TodoField.ALL)).thenReturn(Stream.of(todo1, todo2));
+    try (Stream<TodoDTO> result = serviceUnderTest.streamAll(TodoField.ALL)) {
+      assertEquals("The streamed DTOs were not as expected", expectedResult, result.collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void streamAllWhenClosedShouldCloseTheStreamFromTheDataStore() {
+    AtomicBoolean closed = new AtomicBoolean();
+    when(mockTodoRepository.streamAll(TodoField.ALL))
+            .thenReturn(Stream.<Todo>empty().onClose(() -> closed.set(true)));
+
+    serviceUnderTest.streamAll(TodoField.ALL).close();
+    assertTrue("The data store Stream was not closed", closed.get());
+  }
+
+  @Test
+  public void findPageGivenMoreTodosThanTheLimitShouldReturnOnlyTheLimitAndANextCursor() throws TodoBadCursorException {
+    Todo todo1 = new Todo("1", "title", "contents");
+    Todo todo2 = new Todo("2", "title 2", "contents 2");
+    when(mockTodoRepository.findPage(null, 2, TodoField.ALL)).thenReturn(Arrays.asList(todo1, todo2));
+
+    TodoPageDTO result = serviceUnderTest.findPage(null, 1, TodoField.ALL);
+    assertEquals(Arrays.asList(new TodoDTO("1", "title", "contents")), result.getTodos());
+  }
+
+  @Test
+  public void findPageGivenTheNextCursorShouldFindTheTodosAfterTheLastTodoInThePreviousPage()
+          throws TodoBadCursorException {
+    Todo todo1 = new Todo("1", "title", "contents");
+    Todo todo2 = new Todo("2", "title 2", "contents 2");
+    when(mockTodoRepository.findPage(null, 2, TodoField.ALL)).thenReturn(Arrays.asList(todo1, todo2));
+    String nextCursor = serviceUnderTest.findPage(null, 1, TodoField.ALL).getNextCursor();
+
+    serviceUnderTest.findPage(nextCursor, 1, TodoField.ALL);
+    verify(mockTodoRepository, times(1)).findPage("1", 2, TodoField.ALL);
+  }
+
+  @Test
+  public void findPageGivenNoMoreTodosThanTheLimitShouldReturnNoNextCursor() throws TodoBadCursorException {
+    Todo todo1 = new Todo("1", "title", "contents");
+    when(mockTodoRepository.findPage(null, 3, TodoField.ALL)).thenReturn(Arrays.asList(todo1));
+
+    TodoPageDTO result = serviceUnderTest.findPage(null, 2, TodoField.ALL);
+    assertEquals(Arrays.asList(new TodoDTO("1", "title", "contents")), result.getTodos());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test(expected = TodoBadCursorException.class)
+  public void findPageGivenMalformedCursorShouldThrowTodoBadCursorException() throws TodoBadCursorException {
+    serviceUnderTest.findPage("not*a*cursor", 10, TodoField.ALL);
+  }
+
   @Test
   public void deleteShouldDeleteTheTodo() throws TodoNotFoundException {
     String idToDelete = "id to delete";
     Todo todoReturnedFromRepository = new Todo(idToDelete, "title", "some content");
-    when(mockTodoRepository.find(idToDelete)).thenReturn(Optional.of(todoReturnedFromRepository));
+    when(mockTodoRepository.findAndRemove(idToDelete)).thenReturn(Optional.of(todoReturnedFromRepository));
 
     serviceUnderTest.delete(idToDelete);
-    verify(mockTodoRepository, times(1)).delete(todoReturnedFromRepository);
+    verify(mockTodoRepository, times(1)).findAndRemove(idToDelete);
+    verify(mockTodoRepository, never()).find(idToDelete);
   }
 
   @Test
@@ -116,7 +305,7 @@ public class DataStoreTodoServiceTest {
     String idToDelete = "id to delete";
     Todo todoReturnedFromRepository = new Todo(idToDelete, "title", "content");
     TodoDTO expectedResult = new TodoDTO(idToDelete, "title", "content");
-    when(mockTodoRepository.find(idToDelete)).thenReturn(Optional.of(todoReturnedFromRepository));
+    when(mockTodoRepository.findAndRemove(idToDelete)).thenReturn(Optional.of(todoReturnedFromRepository));
 
     TodoDTO result = serviceUnderTest.delete(idToDelete);
     assertEquals(expectedResult, result);
@@ -125,7 +314,7 @@ public class DataStoreTodoServiceTest {
   @Test(expected = TodoNotFoundException.class)
   public void deleteGivenRepositoryThrowsTodoNotFoundExceptionShouldPropagateException() throws TodoNotFoundException {
     String idToDelete = "an ID";
-    when(mockTodoRepository.find(idToDelete)).thenReturn(Optional.empty());
+    when(mockTodoRepository.findAndRemove(idToDelete)).thenReturn(Optional.empty());
     serviceUnderTest.delete(idToDelete);
   }
 
@@ -197,6 +386,384 @@ public class DataStoreTodoServiceTest {
     assertEquals(expectedResult, result);
   }
 
+  @Test
+  public void updateGivenExpectedVersionShouldReturnTheTodoSavedAtTheNextVersion()
+          throws TodoBadIDException, TodoVersionConflictException {
+    String id = "an ID";
+    Todo todoToBeSaved = new Todo(id, "title", "content");
+    when(mockTodoRepository.saveIfVersion(todoToBeSaved, 3L)).thenReturn(Optional.of(
+            new Todo(id, "title", "content", 4L)));
+
+    TodoDTO result = serviceUnderTest.update(id, new TodoDTO(id, "title", "content"), 3L);
+    assertEquals(new TodoDTO(id, "title", "content", 4L), result);
+  }
+
+  @Test(expected = TodoVersionConflictException.class)
+  public void updateGivenTodoNotAtTheExpectedVersionShouldThrowTodoVersionConflictException()
+          throws TodoBadIDException, TodoVersionConflictException {
+    String id = "an ID";
+    when(mockTodoRepository.saveIfVersion(new Todo(id, "title", "content"), 3L)).thenReturn(Optional.empty());
+
+    serviceUnderTest.update(id, new TodoDTO(id, "title", "content"), 3L);
+  }
+
+  @Test
+  public void patchShouldSaveOnlyThePatchedFieldsAndReturnThePatchedTodo() throws Exception {
+    String id = "an ID";
+    TodoPatchDTO patch = new TodoPatchDTO();
+    patch.setTitle("new title");
+    when(mockTodoRepository.saveFields(new Todo(id, "new title", null), EnumSet.of(TodoField.TITLE)))
+            .thenReturn(Optional.of(new Todo(id, "new title", "content", 2L)));
+
+    TodoDTO result = serviceUnderTest.patch(id, patch);
+
+    assertEquals(new TodoDTO(id, "new title", "content", 2L), result);
+    assertEquals(Optional.of(new Todo(id, "new title", "content", 2L)), cache.get(id));
+    verify(changeFeed).publish(TodoChange.Type.UPDATED, result);
+  }
+
+  @Test(expected = TodoNotFoundException.class)
+  public void patchGivenMissingTodoShouldThrowTodoNotFoundException() throws Exception {
+    TodoPatchDTO patch = new TodoPatchDTO();
+    patch.setContent(null);
+    when(mockTodoRepository.saveFields(new Todo("missing", null, null), EnumSet.of(TodoField.CONTENT)))
+            .thenReturn(Optional.empty());
+
+    serviceUnderTest.patch("missing", patch);
+  }
+
+  @Test
+  public void patchGivenInvalidFieldsShouldThrowTodoBadPatchExceptionWithoutSaving() throws Exception {
+    TodoPatchDTO blankTitle = new TodoPatchDTO();
+    blankTitle.setTitle("");
+    TodoPatchDTO unknownMember = new TodoPatchDTO();
+    unknownMember.setUnknownMember("version", 5);
+
+    for (TodoPatchDTO patch : Arrays.asList(blankTitle, unknownMember)) {
+      try {
+        serviceUnderTest.patch("an ID", patch);
+        throw new AssertionError("The patch was accepted");
+      } catch (TodoBadPatchException expected) {
+        // Refused before reaching the data store
+      }
+    }
+    verifyZeroInteractions(mockTodoRepository);
+  }
+
+  @Test
+  public void patchShouldOnlyValidateThePatchedFields() throws Exception {
+    String id = "an ID";
+    TodoPatchDTO patch = new TodoPatchDTO();
+    patch.setContent("new content");
+    when(mockTodoRepository.saveFields(new Todo(id, null, "new content"), EnumSet.of(TodoField.CONTENT)))
+            .thenReturn(Optional.of(new Todo(id, "title", "new content", 2L)));
+
+    assertEquals(new TodoDTO(id, "title", "new content", 2L), serviceUnderTest.patch(id, patch));
+  }
+
+  @Test(expected = TodoVersionConflictException.class)
+  public void patchGivenTodoNotAtTheExpectedVersionShouldThrowTodoVersionConflictException() throws Exception {
+    String id = "an ID";
+    TodoPatchDTO patch = new TodoPatchDTO();
+    patch.setTitle("new title");
+    when(mockTodoRepository.saveFieldsIfVersion(new Todo(id, "new title", null), EnumSet.of(TodoField.TITLE), 3L))
+            .thenReturn(Optional.empty());
+
+    serviceUnderTest.patch(id, patch, 3L);
+  }
+
+  @Test
+  public void createAllShouldSaveTheValidTodosTogetherAndFailTheInvalidTodos() {
+    TodoDTO valid = createTodoDTO(null, TITLE, DESCRIPTION);
+    TodoDTO invalid = createTodoDTO(null, "", DESCRIPTION);
+    Todo saved = createToDo(ID, TITLE, DESCRIPTION);
+    when(mockTodoRepository.saveAll(Collections.singletonList(createToDo(null, TITLE, DESCRIPTION))))
+            .thenReturn(Collections.singletonList(saved));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.createAll(Arrays.asList(invalid, valid));
+    assertEquals(2, results.size());
+    assertEquals(400, results.get(0).getStatus());
+    assertEquals(new TodoBatchResultDTO(201, createTodoDTO(ID, TITLE, DESCRIPTION), null), results.get(1));
+  }
+
+  @Test
+  public void updateAllGivenTodoWithoutIdShouldFailItWithoutSavingIt() {
+    when(mockTodoRepository.saveAll(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.updateAll(
+            Collections.singletonList(createTodoDTO(null, TITLE, DESCRIPTION)));
+    assertEquals(1, results.size());
+    assertEquals(400, results.get(0).getStatus());
+    verify(mockTodoRepository, times(1)).saveAll(Collections.emptyList());
+  }
+
+  @Test
+  public void updateAllShouldSaveTheTodosAndReturnThemAsUpdated() {
+    Todo todo = createToDo(ID, TITLE, DESCRIPTION);
+    when(mockTodoRepository.saveAll(Collections.singletonList(todo))).thenReturn(Collections.singletonList(todo));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.updateAll(
+            Collections.singletonList(createTodoDTO(ID, TITLE, DESCRIPTION)));
+    assertEquals(Collections.singletonList(new TodoBatchResultDTO(200, createTodoDTO(ID, TITLE, DESCRIPTION), null)),
+            results);
+  }
+
+  @Test
+  public void deleteAllShouldReturnTheDeletedTodosAndFailTheTodosNotFound() {
+    Todo deleted = createToDo(ID, TITLE, DESCRIPTION);
+    List<String> ids = Arrays.asList("missing", ID);
+    when(mockTodoRepository.findAndRemoveAll(ids)).thenReturn(Collections.singletonList(deleted));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.deleteAll(ids);
+    assertEquals(404, results.get(0).getStatus());
+    assertEquals(new TodoBatchResultDTO(200, createTodoDTO(ID, TITLE, DESCRIPTION), null), results.get(1));
+  }
+
+  @Test
+  public void deleteAllGivenMissingAndRepeatedIdsShouldFailThemWithoutDeletingThem() {
+    Todo deleted = createToDo(ID, TITLE, DESCRIPTION);
+    when(mockTodoRepository.findAndRemoveAll(Collections.singletonList(ID)))
+            .thenReturn(Collections.singletonList(deleted));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.deleteAll(Arrays.asList(ID, null, ID));
+    assertEquals(new TodoBatchResultDTO(200, createTodoDTO(ID, TITLE, DESCRIPTION), null), results.get(0));
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals(400, results.get(2).getStatus());
+    verify(changeFeed, times(1)).publish(TodoChange.Type.DELETED, createTodoDTO(ID, TITLE, DESCRIPTION));
+  }
+
+  @Test
+  public void deleteAllShouldMatchTheDeletedTodosByTheIdTheyAreStoredWith() {
+    String storedId = "0123456789abcdef01234567";
+    String givenId = storedId.toUpperCase();
+    Todo deleted = createToDo(storedId, TITLE, DESCRIPTION);
+    cache.put(deleted);
+    when(mockTodoRepository.normaliseId(givenId)).thenReturn(storedId);
+    when(mockTodoRepository.findAndRemoveAll(Collections.singletonList(givenId)))
+            .thenReturn(Collections.singletonList(deleted));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.deleteAll(Collections.singletonList(givenId));
+    assertEquals(new TodoBatchResultDTO(200, createTodoDTO(storedId, TITLE, DESCRIPTION), null), results.get(0));
+    assertFalse(cache.get(storedId).isPresent());
+  }
+
+  @Test
+  public void updateAllGivenRepeatedIdShouldFailTheRepeatWithoutSavingIt() {
+    Todo todo = createToDo(ID, TITLE, DESCRIPTION);
+    when(mockTodoRepository.saveAll(Collections.singletonList(todo))).thenReturn(Collections.singletonList(todo));
+
+    List<TodoBatchResultDTO> results = serviceUnderTest.updateAll(
+            Arrays.asList(createTodoDTO(ID, TITLE, DESCRIPTION), createTodoDTO(ID, "Another title", DESCRIPTION)));
+    assertEquals(200, results.get(0).getStatus());
+    assertEquals(400, results.get(1).getStatus());
+    verify(mockTodoRepository, times(1)).saveAll(Collections.singletonList(todo));
+  }
+
+  @Test
+  public void searchShouldReturnTheMatchingTodosWithACursorForTheNextPage() throws Exception {
+    buildSearchIndex();
+    Todo milk = createToDo("1", "Buy milk", DESCRIPTION);
+    Todo moreMilk = createToDo("2", "Buy more milk", DESCRIPTION);
+    when(mockTodoRepository.save(milk)).thenReturn(milk);
+    when(mockTodoRepository.save(moreMilk)).thenReturn(moreMilk);
+    serviceUnderTest.create(createTodoDTO("1", "Buy milk", DESCRIPTION));
+    serviceUnderTest.create(createTodoDTO("2", "Buy more milk", DESCRIPTION));
+
+    TodoPageDTO firstPage = serviceUnderTest.search("milk", null, 1);
+    TodoPageDTO secondPage = serviceUnderTest.search("milk", firstPage.getNextCursor(), 1);
+
+    assertEquals(1, firstPage.getTodos().size());
+    assertEquals(1, secondPage.getTodos().size());
+    assertNull(secondPage.getNextCursor());
+    verify(mockTodoRepository, never()).findAll();
+  }
+
+  @Test
+  public void searchShouldNotFindDeletedTodos() throws Exception {
+    buildSearchIndex();
+    Todo milk = createToDo(ID, "Buy milk", DESCRIPTION);
+    when(mockTodoRepository.save(milk)).thenReturn(milk);
+    when(mockTodoRepository.findAndRemove(ID)).thenReturn(Optional.of(milk));
+    serviceUnderTest.create(createTodoDTO(ID, "Buy milk", DESCRIPTION));
+
+    serviceUnderTest.delete(ID);
+
+    assertTrue(serviceUnderTest.search("milk", null, 10).getTodos().isEmpty());
+  }
+
+  @Test
+  public void buildingTheSearchIndexShouldMakeTheTodosAlreadyStoredSearchable() throws Exception {
+    when(mockTodoRepository.find(ID)).thenReturn(Optional.of(createToDo(ID, "Buy milk", DESCRIPTION)));
+
+    buildSearchIndex(createToDo(ID, "Buy milk", DESCRIPTION));
+
+    assertEquals(Collections.singletonList(createTodoDTO(ID, "Buy milk", DESCRIPTION)),
+            serviceUnderTest.search("milk", null, 10).getTodos());
+  }
+
+  @Test
+  public void searchBeforeTheSearchIndexIsBuiltShouldBuildItInTheBackgroundAndThrowUntilItIsBuilt() throws Exception {
+    CountDownLatch streamRequested = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(mockTodoRepository.streamAll(TodoField.ALL)).thenAnswer(invocation -> {
+      streamRequested.countDown();
+      release.await();
+      return Stream.of(createToDo(ID, "Buy milk", DESCRIPTION));
+    });
+
+    try {
+      serviceUnderTest.search("milk", null, 10);
+      fail("Expected the search to be turned away until the index is built");
+    } catch (TodoSearchNotReadyException expected) {
+      assertTrue(streamRequested.await(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test(expected = TodoBadCursorException.class)
+  public void searchGivenCursorThatIsNotAnOffsetShouldThrowTodoBadCursorException() throws Exception {
+    serviceUnderTest.search("milk", "bm90LWEtbnVtYmVy", 10);
+  }
+
+  @Test
+  public void updateWithWriteBehindShouldBufferTheTodoWhichReadsByIdThenSee() throws Exception {
+    TodoWriteBehindBuffer buffer = writeBehindBuffer();
+    serviceUnderTest = new DataStoreTodoService(mockTodoRepository, cache, countCache, searchIndex, searchIndexBuilder,
+            Validation.buildDefaultValidatorFactory().getValidator(), changeFeed, idempotencyStore,
+            Optional.of(buffer));
+    try {
+      TodoDTO result = serviceUnderTest.update(ID, createTodoDTO(ID, TITLE, DESCRIPTION));
+
+      assertNull(result.getVersion());
+      assertEquals(createTodoDTO(ID, TITLE, DESCRIPTION), serviceUnderTest.findById(ID));
+      assertEquals(createTodoDTO(ID, TITLE, null),
+              serviceUnderTest.findById(ID, EnumSet.of(TodoField.ID, TodoField.TITLE)));
+      verify(mockTodoRepository, never()).save((Todo) notNull());
+      verify(mockTodoRepository, never()).find(ID);
+    } finally {
+      buffer.destroy();
+    }
+  }
+
+  @Test
+  public void findAllWithWriteBehindShouldFlushTheBufferedTodosFirst() throws Exception {
+    TodoWriteBehindBuffer buffer = writeBehindBuffer();
+    serviceUnderTest = new DataStoreTodoService(mockTodoRepository, cache, countCache, searchIndex, searchIndexBuilder,
+            Validation.buildDefaultValidatorFactory().getValidator(), changeFeed, idempotencyStore,
+            Optional.of(buffer));
+    List<Todo> buffered = Collections.singletonList(createToDo(ID, TITLE, DESCRIPTION));
+    when(mockTodoRepository.saveAll(buffered)).thenReturn(Collections.singletonList(new Todo(ID, TITLE, DESCRIPTION,
+            1L)));
+    when(mockTodoRepository.findAll()).thenReturn(Collections.singletonList(new Todo(ID, TITLE, DESCRIPTION, 1L)));
+    try {
+      serviceUnderTest.update(ID, createTodoDTO(ID, TITLE, DESCRIPTION));
+      serviceUnderTest.update(ID, createTodoDTO(ID, TITLE, DESCRIPTION));
+
+      assertEquals(Collections.singletonList(new TodoDTO(ID, TITLE, DESCRIPTION, 1L)), serviceUnderTest.findAll());
+      verify(mockTodoRepository, times(1)).saveAll(buffered);
+      assertTrue(buffer.isEmpty());
+    } finally {
+      buffer.destroy();
+    }
+  }
+
+  @Test
+  public void createShouldPublishTheCreatedTodoToTheChangeFeed() {
+    when(mockTodoRepository.save(createToDo(null, TITLE, DESCRIPTION)))
+            .thenReturn(new Todo(ID, TITLE, DESCRIPTION, 1L));
+
+    serviceUnderTest.create(createTodoDTO(null, TITLE, DESCRIPTION));
+
+    verify(changeFeed).publish(TodoChange.Type.CREATED, new TodoDTO(ID, TITLE, DESCRIPTION, 1L));
+  }
+
+  @Test
+  public void updateAndDeleteShouldPublishTheirChangesToTheChangeFeed() throws Exception {
+    when(mockTodoRepository.save(createToDo(ID, TITLE, DESCRIPTION))).thenReturn(new Todo(ID, TITLE, DESCRIPTION, 2L));
+    when(mockTodoRepository.findAndRemove(ID)).thenReturn(Optional.of(new Todo(ID, TITLE, DESCRIPTION, 2L)));
+
+    serviceUnderTest.update(ID, createTodoDTO(ID, TITLE, DESCRIPTION));
+    serviceUnderTest.delete(ID);
+
+    verify(changeFeed).publish(TodoChange.Type.UPDATED, new TodoDTO(ID, TITLE, DESCRIPTION, 2L));
+    verify(changeFeed).publish(TodoChange.Type.DELETED, new TodoDTO(ID, TITLE, DESCRIPTION, 2L));
+  }
+
+  @Test
+  public void failedDeleteShouldNotPublishAChange() {
+    when(mockTodoRepository.findAndRemove(ID)).thenReturn(Optional.empty());
+
+    try {
+      serviceUnderTest.delete(ID);
+    } catch (TodoNotFoundException expected) {
+      verifyZeroInteractions(changeFeed);
+    }
+  }
+
+  @Test
+  public void createAllShouldPublishACreatedChangeForEachSavedTodoOnly() {
+    Todo valid = createToDo(null, TITLE, DESCRIPTION);
+    when(mockTodoRepository.saveAll(Collections.singletonList(valid)))
+            .thenReturn(Collections.singletonList(new Todo(ID, TITLE, DESCRIPTION, 1L)));
+
+    serviceUnderTest.createAll(Arrays.asList(createTodoDTO(null, TITLE, DESCRIPTION), createTodoDTO(null, null, null)));
+
+    verify(changeFeed).publish(TodoChange.Type.CREATED, new TodoDTO(ID, TITLE, DESCRIPTION, 1L));
+    verifyNoMoreInteractions(changeFeed);
+  }
+
+  @Test
+  public void countShouldReuseTheCountFromTheDataStoreUntilTodosAreCreatedOrDeleted() throws Exception {
+    when(mockTodoRepository.count()).thenReturn(1L, 2L, 1L);
+    when(mockTodoRepository.save(createToDo(null, TITLE, DESCRIPTION)))
+            .thenReturn(new Todo(ID, TITLE, DESCRIPTION, 1L));
+    when(mockTodoRepository.findAndRemove(ID)).thenReturn(Optional.of(new Todo(ID, TITLE, DESCRIPTION, 1L)));
+
+    assertEquals(1L, serviceUnderTest.count());
+    assertEquals(1L, serviceUnderTest.count());
+    serviceUnderTest.create(createTodoDTO(null, TITLE, DESCRIPTION));
+    assertEquals(2L, serviceUnderTest.count());
+    serviceUnderTest.delete(ID);
+    assertEquals(1L, serviceUnderTest.count());
+
+    verify(mockTodoRepository, times(3)).count();
+  }
+
+  @Test
+  public void countShouldNotBeInvalidatedByUpdatesToExistingTodos() throws Exception {
+    when(mockTodoRepository.count()).thenReturn(1L);
+    when(mockTodoRepository.save(createToDo(ID, TITLE, DESCRIPTION))).thenReturn(new Todo(ID, TITLE, DESCRIPTION, 2L));
+
+    serviceUnderTest.count();
+    serviceUnderTest.update(ID, createTodoDTO(ID, TITLE, DESCRIPTION));
+    serviceUnderTest.count();
+
+    verify(mockTodoRepository, times(1)).count();
+  }
+
+  @Test
+  public void createGivenTheSameIdempotencyKeyAgainShouldReturnTheFirstTodoWithoutSavingAnother() throws Exception {
+    when(mockTodoRepository.save(createToDo(null, TITLE, DESCRIPTION)))
+            .thenReturn(new Todo(ID, TITLE, DESCRIPTION, 1L));
+
+    TodoDTO created = serviceUnderTest.create(createTodoDTO(null, TITLE, DESCRIPTION), "key");
+    TodoDTO retried = serviceUnderTest.create(createTodoDTO(null, TITLE, DESCRIPTION), "key");
+
+    assertEquals(new TodoDTO(ID, TITLE, DESCRIPTION, 1L), retried);
+    assertEquals(created, retried);
+    verify(mockTodoRepository, times(1)).save(any(Todo.class));
+  }
+
+  private void buildSearchIndex(Todo... storedTodos) {
+    when(mockTodoRepository.streamAll(TodoField.ALL)).thenReturn(Stream.of(storedTodos));
+    searchIndexBuilder.build();
+  }
+
+  private TodoWriteBehindBuffer writeBehindBuffer() {
+    return new TodoWriteBehindBuffer(mockTodoRepository, cache, searchIndex, new MetricRegistry(), 100, 1000, 60_000);
+  }
+
   private static TodoDTO createTodoDTO(String id, String title, String content) {
     return new TodoDTO(id, title, content);
   }
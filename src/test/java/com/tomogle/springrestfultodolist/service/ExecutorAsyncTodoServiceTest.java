@@ -0,0 +1,124 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.exception.TodoNotFoundException;
+import com.tomogle.springrestfultodolist.exception.TodoServiceBusyException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExecutorAsyncTodoServiceTest {
+
+  private TodoService mockTodoService;
+  private ExecutorAsyncTodoService serviceUnderTest;
+
+  @Before
+  public void setUp() {
+    mockTodoService = mock(TodoService.class);
+    serviceUnderTest = new ExecutorAsyncTodoService(mockTodoService, 1, 1);
+  }
+
+  @After
+  public void tearDown() {
+    serviceUnderTest.destroy();
+  }
+
+  @Test
+  public void findByIdShouldCompleteWithTheTodoFromTheService() throws Exception {
+    TodoDTO todo = new TodoDTO("1", "title", "content");
+    when(mockTodoService.findById("1")).thenReturn(todo);
+
+    assertEquals(todo, serviceUnderTest.findById("1").get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void findByIdWhenNotFoundShouldCompleteExceptionallyWithTheUnwrappedException() throws Exception {
+    TodoNotFoundException notFound = new TodoNotFoundException("Not found");
+    when(mockTodoService.findById("1")).thenThrow(notFound);
+
+    try {
+      serviceUnderTest.findById("1").get(1, TimeUnit.SECONDS);
+      fail("Expected the lookup to fail");
+    } catch (ExecutionException e) {
+      assertEquals(notFound, e.getCause());
+    }
+  }
+
+  @Test
+  public void requestWhenTheQueueIsFullShouldBeTurnedAwayAsBusy() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(mockTodoService.findById("slow")).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return new TodoDTO("slow", "title", "content");
+    });
+
+    CompletableFuture<TodoDTO> running = serviceUnderTest.findById("slow");
+    started.await(1, TimeUnit.SECONDS);
+    CompletableFuture<TodoDTO> queued = serviceUnderTest.findById("slow");
+    CompletableFuture<TodoDTO> rejected = serviceUnderTest.findById("slow");
+
+    assertTrue(rejected.isCompletedExceptionally());
+    try {
+      rejected.get();
+      fail("Expected the request to be turned away");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TodoServiceBusyException);
+    }
+    assertEquals(1, serviceUnderTest.getQueueSize());
+    assertEquals(1, serviceUnderTest.getRejected());
+
+    release.countDown();
+    running.get(1, TimeUnit.SECONDS);
+    queued.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void destroyShouldCompleteTheRequestsLeftOnceTheShutdownTimeoutIsOver() throws Exception {
+    ExecutorAsyncTodoService service = new ExecutorAsyncTodoService(mockTodoService, 1, 1, 0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(mockTodoService.findById("stuck")).thenAnswer(invocation -> {
+      started.countDown();
+      // Ignores being interrupted, as a call blocked in the data store might
+      while (true) {
+        try {
+          release.await();
+          return new TodoDTO("stuck", "title", "content");
+        } catch (InterruptedException ignored) {
+        }
+      }
+    });
+
+    try {
+      CompletableFuture<TodoDTO> running = service.findById("stuck");
+      started.await(1, TimeUnit.SECONDS);
+      CompletableFuture<TodoDTO> waiting = service.findById("stuck");
+      service.destroy();
+
+      for (CompletableFuture<TodoDTO> left : Arrays.asList(running, waiting)) {
+        try {
+          left.get(1, TimeUnit.SECONDS);
+          fail("Expected the request to be turned away");
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof TodoServiceBusyException);
+        }
+      }
+    } finally {
+      release.countDown();
+    }
+  }
+}
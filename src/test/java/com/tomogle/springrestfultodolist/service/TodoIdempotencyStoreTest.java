@@ -0,0 +1,108 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.tomogle.springrestfultodolist.dto.TodoDTO;
+import com.tomogle.springrestfultodolist.exception.TodoIdempotencyKeyReusedException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TodoIdempotencyStoreTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final AtomicInteger creates = new AtomicInteger();
+  private final TodoDTO todo = new TodoDTO(null, "title", "content");
+
+  @Test
+  public void createOnceGivenTheSameKeyAgainShouldReturnTheFirstTodoWithoutCreatingAnother() throws Exception {
+    TodoIdempotencyStore storeUnderTest = new TodoIdempotencyStore(10, 60, nanoTime::get);
+
+    TodoDTO first = storeUnderTest.createOnce("key", todo, this::create);
+    TodoDTO retried = storeUnderTest.createOnce("key", new TodoDTO(null, "title", "content"), this::create);
+
+    assertSame(first, retried);
+    assertEquals(1, creates.get());
+  }
+
+  @Test(expected = TodoIdempotencyKeyReusedException.class)
+  public void createOnceGivenTheSameKeyForADifferentTodoShouldThrow() throws Exception {
+    TodoIdempotencyStore storeUnderTest = new TodoIdempotencyStore(10, 60, nanoTime::get);
+    storeUnderTest.createOnce("key", todo, this::create);
+
+    storeUnderTest.createOnce("key", new TodoDTO(null, "other title", "content"), this::create);
+  }
+
+  @Test
+  public void createOnceGivenAKeyThatHasExpiredOrBeenEvictedShouldCreateAgain() throws Exception {
+    TodoIdempotencyStore storeUnderTest = new TodoIdempotencyStore(2, 60, nanoTime::get);
+    storeUnderTest.createOnce("expired", todo, this::create);
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    storeUnderTest.createOnce("expired", todo, this::create);
+    storeUnderTest.createOnce("evicted", todo, this::create);
+    storeUnderTest.createOnce("b", todo, this::create);
+    storeUnderTest.createOnce("c", todo, this::create);
+
+    storeUnderTest.createOnce("evicted", todo, this::create);
+
+    assertEquals(6, creates.get());
+    assertEquals(2, storeUnderTest.size());
+  }
+
+  @Test
+  public void createOnceGivenTheCreateFailedShouldForgetTheKeySoItCanBeRetried() throws Exception {
+    TodoIdempotencyStore storeUnderTest = new TodoIdempotencyStore(10, 60, nanoTime::get);
+    try {
+      storeUnderTest.createOnce("key", todo, () -> {
+        throw new IllegalStateException("Data store unavailable");
+      });
+      fail("The failure to create the Todo was not thrown");
+    } catch (IllegalStateException expected) {
+    }
+
+    storeUnderTest.createOnce("key", todo, this::create);
+
+    assertEquals(1, creates.get());
+  }
+
+  @Test
+  public void concurrentCreatesWithTheSameKeyShouldWaitForAndReturnTheFirst() throws Exception {
+    TodoIdempotencyStore storeUnderTest = new TodoIdempotencyStore(10, 60, nanoTime::get);
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch finishCreating = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<TodoDTO> first = executor.submit(() -> storeUnderTest.createOnce("key", todo, () -> {
+      creating.countDown();
+      awaitUninterruptibly(finishCreating);
+      return create();
+    }));
+    creating.await();
+    Future<TodoDTO> second = executor.submit(() -> storeUnderTest.createOnce("key", todo, this::create));
+
+    finishCreating.countDown();
+
+    assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, creates.get());
+    executor.shutdown();
+  }
+
+  private TodoDTO create() {
+    return new TodoDTO(Integer.toString(creates.incrementAndGet()), todo.getTitle(), todo.getContent(), 1L);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
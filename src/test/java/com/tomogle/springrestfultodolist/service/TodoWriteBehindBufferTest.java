@@ -0,0 +1,196 @@
+package com.tomogle.springrestfultodolist.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.tomogle.springrestfultodolist.cache.TodoCache;
+import com.tomogle.springrestfultodolist.domain.Todo;
+import com.tomogle.springrestfultodolist.repository.InMemoryTodoRepository;
+import com.tomogle.springrestfultodolist.repository.TodoRepository;
+import com.tomogle.springrestfultodolist.search.TodoSearchIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+public class TodoWriteBehindBufferTest {
+
+  private static final long NEVER_MILLIS = 60_000;
+
+  private InMemoryTodoRepository repository;
+  private TodoCache cache;
+  private MetricRegistry metricRegistry;
+  private TodoWriteBehindBuffer bufferUnderTest;
+
+  @Before
+  public void setUp() throws Exception {
+    repository = new InMemoryTodoRepository((Path) null, 0);
+    cache = new TodoCache(100, 0);
+    bufferUnderTest = buffer(repository, 100, 1000, NEVER_MILLIS);
+  }
+
+  @After
+  public void tearDown() {
+    bufferUnderTest.destroy();
+  }
+
+  @Test
+  public void writesOfTheSameTodoShouldBeCoalescedIntoOneSave() {
+    bufferUnderTest.write(new Todo("a", "first", "content"));
+    bufferUnderTest.write(new Todo("a", "second", "content"));
+    bufferUnderTest.write(new Todo("a", "third", "content"));
+
+    bufferUnderTest.flush();
+
+    assertEquals(Optional.of(new Todo("a", "third", "content", 1L)), repository.find("a"));
+    assertEquals(2, metricRegistry.counter(TodoWriteBehindBuffer.PREFIX + "coalesced").getCount());
+    assertEquals(1, metricRegistry.timer(TodoWriteBehindBuffer.PREFIX + "flush").getCount());
+  }
+
+  @Test
+  public void writtenTodoShouldBeFoundInTheBufferUntilFlushedAndThenInTheCache() {
+    bufferUnderTest.write(new Todo("a", "title", "content"));
+
+    assertEquals(Optional.of(new Todo("a", "title", "content")), bufferUnderTest.get("a"));
+    assertFalse(repository.find("a").isPresent());
+    assertEquals(1, metricRegistry.getGauges().get(TodoWriteBehindBuffer.PREFIX + "pending").getValue());
+
+    bufferUnderTest.flush();
+
+    assertTrue(bufferUnderTest.isEmpty());
+    assertFalse(bufferUnderTest.get("a").isPresent());
+    assertEquals(Optional.of(new Todo("a", "title", "content", 1L)), cache.get("a"));
+  }
+
+  @Test
+  public void writtenTodoShouldBeSearchableBeforeItIsFlushed() {
+    TodoSearchIndex searchIndex = new TodoSearchIndex();
+    bufferUnderTest.destroy();
+    bufferUnderTest = new TodoWriteBehindBuffer(repository, cache, searchIndex, metricRegistry, 100, 1000,
+            NEVER_MILLIS);
+
+    bufferUnderTest.write(new Todo("a", "Buy milk", "content"));
+
+    assertEquals(Collections.singletonList("a"), searchIndex.search("milk", 0, 10).getIds());
+  }
+
+  @Test
+  public void findAndRemoveShouldDropASaveBufferedWhileTheDeleteWasBeingMade() {
+    TodoRepository racingRepository = spy(repository);
+    bufferUnderTest.destroy();
+    bufferUnderTest = buffer(racingRepository, 100, 1000, NEVER_MILLIS);
+    repository.save(new Todo("a", "title", "content"));
+    bufferUnderTest.write(new Todo("a", "before the delete", "content"));
+    doAnswer(invocation -> {
+      bufferUnderTest.write(new Todo("a", "during the delete", "content"));
+      return invocation.callRealMethod();
+    }).when(racingRepository).findAndRemove("a");
+
+    Optional<Todo> removed = bufferUnderTest.findAndRemove("a");
+    bufferUnderTest.flush();
+
+    assertEquals("before the delete", removed.get().getTitle());
+    assertFalse(bufferUnderTest.get("a").isPresent());
+    assertFalse(repository.find("a").isPresent());
+  }
+
+  @Test
+  public void findAndRemoveAllShouldKeepASaveOfATodoThatWasNotDeleted() {
+    bufferUnderTest.write(new Todo("a", "title a", "content a"));
+    TodoRepository racingRepository = spy(repository);
+    bufferUnderTest.destroy();
+    bufferUnderTest = buffer(racingRepository, 100, 1000, NEVER_MILLIS);
+    doAnswer(invocation -> {
+      bufferUnderTest.write(new Todo("a", "during the delete", "content"));
+      bufferUnderTest.write(new Todo("b", "during the delete", "content"));
+      return invocation.callRealMethod();
+    }).when(racingRepository).findAndRemoveAll(Arrays.asList("a", "b"));
+
+    List<Todo> removed = bufferUnderTest.findAndRemoveAll(Arrays.asList("a", "b"));
+    bufferUnderTest.flush();
+
+    assertEquals(Collections.singletonList("a"), removed.stream().map(Todo::getId).collect(Collectors.toList()));
+    assertFalse(repository.find("a").isPresent());
+    assertTrue(repository.find("b").isPresent());
+  }
+
+  @Test
+  public void reachingTheBatchSizeShouldFlushInTheBackground() throws Exception {
+    bufferUnderTest.destroy();
+    bufferUnderTest = buffer(repository, 2, 1000, NEVER_MILLIS);
+
+    bufferUnderTest.write(new Todo("a", "title a", "content a"));
+    bufferUnderTest.write(new Todo("b", "title b", "content b"));
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (repository.findAll().size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(2, repository.findAll().size());
+  }
+
+  @Test
+  public void bufferShouldBeFlushedAfterTheMaximumDelay() throws Exception {
+    bufferUnderTest.destroy();
+    bufferUnderTest = buffer(repository, 100, 1000, 10);
+
+    bufferUnderTest.write(new Todo("a", "title", "content"));
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!repository.find("a").isPresent() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(repository.find("a").isPresent());
+  }
+
+  @Test
+  public void destroyShouldFlushTheWaitingTodos() {
+    bufferUnderTest.write(new Todo("a", "title", "content"));
+
+    bufferUnderTest.destroy();
+
+    assertTrue(repository.find("a").isPresent());
+  }
+
+  @Test
+  public void failedFlushShouldKeepTheTodosAndWritesBeyondMaxPendingShouldSeeTheFailure() {
+    TodoRepository failingRepository = mock(TodoRepository.class);
+    when(failingRepository.saveAll(anyListOf(Todo.class)))
+            .thenThrow(new DataAccessResourceFailureException("Data store is down"));
+    bufferUnderTest.destroy();
+    bufferUnderTest = buffer(failingRepository, 100, 2, NEVER_MILLIS);
+    bufferUnderTest.write(new Todo("a", "title a", "content a"));
+
+    try {
+      bufferUnderTest.write(new Todo("b", "title b", "content b"));
+      fail("Expected the write to flush the full buffer and fail");
+    } catch (DataAccessResourceFailureException expected) {
+      assertEquals(2, bufferUnderTest.size());
+      assertEquals(1, metricRegistry.counter(TodoWriteBehindBuffer.PREFIX + "flush.errors").getCount());
+    }
+    doAnswer(invocation -> invocation.getArguments()[0]).when(failingRepository).saveAll(anyListOf(Todo.class));
+    bufferUnderTest.flush();
+    assertTrue(bufferUnderTest.isEmpty());
+  }
+
+  private TodoWriteBehindBuffer buffer(TodoRepository repository, int batchSize, int maxPending, long maxDelayMillis) {
+    metricRegistry = new MetricRegistry();
+    return new TodoWriteBehindBuffer(repository, cache, new TodoSearchIndex(), metricRegistry, batchSize, maxPending,
+            maxDelayMillis);
+  }
+}